@@ -0,0 +1,44 @@
+-- 订单冗余号主ID
+-- 商家订单列表、订单数直接按 lease_order.owner_uid 查询，不再先查出商家全部账号ID再 IN
+-- 新订单创建时写入；存量订单由应用内的回填任务（OrderOwnerBackfill）分批写入，回填完成前查询会兼容未回填的订单
+-- 版本: v1.4
+
+USE zhk_rental;
+
+SET @dbname = DATABASE();
+SET @tablename = 'lease_order';
+
+-- 号主用户ID（允许为空，回填完成前存量订单为 NULL）
+SET @columnname = 'owner_uid';
+SET @preparedStatement = (SELECT IF(
+  (
+    SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS
+    WHERE
+      (TABLE_SCHEMA = @dbname)
+      AND (TABLE_NAME = @tablename)
+      AND (COLUMN_NAME = @columnname)
+  ) > 0,
+  'SELECT 1',
+  CONCAT('ALTER TABLE ', @tablename, ' ADD COLUMN ', @columnname, ' BIGINT NULL COMMENT ''号主用户ID（冗余自 account.owner_uid）'' AFTER tenant_uid')
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
+
+-- 商家订单列表：owner_uid = ? [AND status = ?] ORDER BY created_at DESC, id DESC
+-- 回填任务按 owner_uid IS NULL 扫描同样使用该索引
+SET @indexname = 'idx_owner_status_created';
+SET @preparedStatement = (SELECT IF(
+  (
+    SELECT COUNT(*) FROM INFORMATION_SCHEMA.STATISTICS
+    WHERE
+      (TABLE_SCHEMA = @dbname)
+      AND (TABLE_NAME = @tablename)
+      AND (INDEX_NAME = @indexname)
+  ) > 0,
+  'SELECT 1',
+  CONCAT('ALTER TABLE ', @tablename, ' ADD INDEX ', @indexname, ' (owner_uid, status, created_at)')
+));
+PREPARE alterIfNotExists FROM @preparedStatement;
+EXECUTE alterIfNotExists;
+DEALLOCATE PREPARE alterIfNotExists;
@@ -0,0 +1,19 @@
+-- 支付宝异步通知收件箱
+-- 验签后的通知先落库再返回 success，由后台线程按顺序处理；(trade_no, trade_status) 唯一，支付宝重复通知只保存一次
+-- 版本: v1.3
+
+USE zhk_rental;
+
+CREATE TABLE IF NOT EXISTS payment_notify (
+  id BIGINT PRIMARY KEY AUTO_INCREMENT,
+  trade_no VARCHAR(64) NOT NULL COMMENT '支付宝交易号',
+  trade_status VARCHAR(32) NOT NULL COMMENT '交易状态：TRADE_SUCCESS/TRADE_FINISHED/TRADE_CLOSED等',
+  out_trade_no VARCHAR(64) NOT NULL COMMENT '商户订单号（payment_record.transaction_id）',
+  params TEXT COMMENT '通知参数（JSON格式）',
+  status TINYINT NOT NULL DEFAULT 0 COMMENT '处理状态：0-待处理 1-已处理 2-处理失败',
+  attempts INT NOT NULL DEFAULT 0 COMMENT '失败次数',
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '接收时间',
+  processed_at TIMESTAMP NULL COMMENT '处理完成时间',
+  UNIQUE KEY uk_trade_status (trade_no, trade_status),
+  INDEX idx_status_id (status, id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='支付宝异步通知收件箱';
@@ -0,0 +1,34 @@
+package com.zhk.common.core.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 审计日志声明
+ * 标注在 Controller 方法上时，审计切面直接使用这里声明的操作类型和资源类型，不再按请求路径推断
+ *
+ * @author shigure
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Audited {
+
+    /**
+     * 操作类型，如 ORDER_CREATE
+     */
+    String action();
+
+    /**
+     * 资源类型，如 ORDER
+     */
+    String resourceType() default "";
+
+    /**
+     * 是否记录日志，设为 false 可以排除某个方法
+     */
+    boolean enabled() default true;
+}
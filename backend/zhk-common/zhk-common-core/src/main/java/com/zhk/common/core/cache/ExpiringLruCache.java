@@ -0,0 +1,163 @@
+package com.zhk.common.core.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 有界、带过期时间的本地 LRU 缓存
+ * 按键的哈希分段，每段是一个访问顺序的 LinkedHashMap，超出容量时淘汰该段最久未访问的条目；
+ * 条目过期后在读取时惰性删除。适合缓存条目数有上限、允许短时间不一致的热点数据。
+ * 线程安全。
+ *
+ * @author shigure
+ */
+public class ExpiringLruCache<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    private final long defaultTtlMillis;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    /**
+     * @param maxSize          最大条目数
+     * @param defaultTtlMillis 默认过期时间（毫秒）
+     */
+    public ExpiringLruCache(int maxSize, long defaultTtlMillis) {
+        this(maxSize, defaultTtlMillis, DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param maxSize          最大条目数
+     * @param defaultTtlMillis 默认过期时间（毫秒）
+     * @param segmentCount     分段数（向上取整为 2 的幂）
+     */
+    @SuppressWarnings("unchecked")
+    public ExpiringLruCache(int maxSize, long defaultTtlMillis, int segmentCount) {
+        if (maxSize <= 0 || defaultTtlMillis <= 0 || segmentCount <= 0) {
+            throw new IllegalArgumentException("maxSize, defaultTtlMillis and segmentCount must be positive");
+        }
+        int count = Integer.highestOneBit(Math.min(segmentCount, maxSize));
+        if (count < Math.min(segmentCount, maxSize)) {
+            count <<= 1;
+        }
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        int perSegment = Math.max(1, (maxSize + count - 1) / count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(perSegment);
+        }
+    }
+
+    /**
+     * 获取缓存值
+     *
+     * @return 缓存值，不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        return segmentFor(key).get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 按默认过期时间写入
+     */
+    public void put(K key, V value) {
+        put(key, value, defaultTtlMillis);
+    }
+
+    /**
+     * 按指定过期时间写入（不超过 0 时不缓存）
+     */
+    public void put(K key, V value, long ttlMillis) {
+        if (key == null || value == null || ttlMillis <= 0) {
+            return;
+        }
+        segmentFor(key).put(key, value, System.currentTimeMillis() + ttlMillis);
+    }
+
+    /**
+     * 删除缓存
+     */
+    public void remove(K key) {
+        if (key != null) {
+            segmentFor(key).remove(key);
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * 当前条目数（包含已过期但尚未被清理的条目）
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> map;
+
+        Segment(int capacity) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        synchronized V get(K key, long now) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= now) {
+                map.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+
+        synchronized void put(K key, V value, long expireAt) {
+            map.put(key, new Entry<>(value, expireAt));
+        }
+
+        synchronized void remove(K key) {
+            map.remove(key);
+        }
+
+        synchronized void clear() {
+            map.clear();
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
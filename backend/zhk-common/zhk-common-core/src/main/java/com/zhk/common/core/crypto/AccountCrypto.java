@@ -0,0 +1,172 @@
+package com.zhk.common.core.crypto;
+
+import com.zhk.common.core.cache.ExpiringLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 账号凭据加解密组件（AES-256-GCM，zhk-user 与 zhk-order 的 EncryptionService 共用）
+ * 1. 每个账号使用独立密钥：新数据用 HKDF-SHA256 从主密钥派生，旧数据沿用 SHA-256(主密钥:账号ID)，
+ *    派生结果缓存在有界 LRU 中，同一账号的重复加解密不再重新计算；
+ * 2. Cipher、Mac、MessageDigest 按线程复用，每次加解密只重新 init；
+ * 3. 全局共用一个 SecureRandom 生成 IV；
+ * 4. IV 与密文写入同一个数组后一次 Base64 编码，解密时直接在解码后的数组上按偏移读取 IV 和密文。
+ * 密文格式：新数据为 "v2:" + Base64(IV + 密文 + 标签)，旧数据为不带前缀的 Base64(IV + 密文 + 标签)，
+ * ':' 不在 Base64 字符表中，两种格式不会混淆。
+ *
+ * @author shigure
+ */
+@Component
+public class AccountCrypto {
+
+    private static final String ALGORITHM = "AES";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final String HMAC = "HmacSHA256";
+    private static final int GCM_IV_LENGTH = 12; // GCM 推荐使用 12 字节 IV
+    private static final int GCM_TAG_BITS = 128; // GCM 认证标签长度
+    private static final String V2_PREFIX = "v2:";
+    private static final byte[] HKDF_SALT = "zhk-account-credential".getBytes(StandardCharsets.UTF_8);
+
+    private static final int KEY_CACHE_SIZE = 10000;
+    private static final long KEY_CACHE_TTL = 30 * 60 * 1000L; // 30分钟
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Cipher> CIPHER = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final String masterKey;
+
+    /**
+     * HKDF 提取阶段的伪随机密钥（只依赖主密钥，构造时计算一次）
+     */
+    private final SecretKeySpec pseudoRandomKey;
+    private final ThreadLocal<Mac> expandMac;
+
+    private final ExpiringLruCache<Long, SecretKeySpec> keys = new ExpiringLruCache<>(KEY_CACHE_SIZE, KEY_CACHE_TTL);
+    private final ExpiringLruCache<Long, SecretKeySpec> legacyKeys = new ExpiringLruCache<>(KEY_CACHE_SIZE, KEY_CACHE_TTL);
+
+    public AccountCrypto(@Value("${zhk.encryption.master-key:ZHK-RentalCore-2024-MasterKey-32Bytes!!}") String masterKey) {
+        this.masterKey = masterKey;
+        try {
+            Mac extract = Mac.getInstance(HMAC);
+            extract.init(new SecretKeySpec(HKDF_SALT, HMAC));
+            this.pseudoRandomKey = new SecretKeySpec(extract.doFinal(masterKey.getBytes(StandardCharsets.UTF_8)), HMAC);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化密钥派生失败", e);
+        }
+        this.expandMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(HMAC);
+                mac.init(pseudoRandomKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * 加密
+     *
+     * @param plaintext 明文
+     * @param accountId 账号ID（用于派生密钥）
+     * @return 密文（v2 格式）
+     */
+    public String encrypt(String plaintext, long accountId) throws GeneralSecurityException {
+        byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
+        Cipher cipher = CIPHER.get();
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        cipher.init(Cipher.ENCRYPT_MODE, key(accountId), new GCMParameterSpec(GCM_TAG_BITS, iv));
+
+        // IV 与密文写入同一个数组：IV (12字节) + 密文 + 标签
+        byte[] output = new byte[GCM_IV_LENGTH + cipher.getOutputSize(input.length)];
+        System.arraycopy(iv, 0, output, 0, GCM_IV_LENGTH);
+        int length = cipher.doFinal(input, 0, input.length, output, GCM_IV_LENGTH);
+        if (GCM_IV_LENGTH + length != output.length) {
+            throw new IllegalStateException("unexpected GCM output length");
+        }
+        return V2_PREFIX + Base64.getEncoder().encodeToString(output);
+    }
+
+    /**
+     * 解密（兼容旧格式）
+     *
+     * @param ciphertext 密文
+     * @param accountId  账号ID（用于派生密钥）
+     * @return 明文
+     */
+    public String decrypt(String ciphertext, long accountId) throws GeneralSecurityException {
+        boolean v2 = ciphertext.startsWith(V2_PREFIX);
+        byte[] decoded = Base64.getDecoder().decode(v2 ? ciphertext.substring(V2_PREFIX.length()) : ciphertext);
+        if (decoded.length <= GCM_IV_LENGTH) {
+            throw new GeneralSecurityException("ciphertext too short");
+        }
+        Cipher cipher = CIPHER.get();
+        cipher.init(Cipher.DECRYPT_MODE, v2 ? key(accountId) : legacyKey(accountId),
+                new GCMParameterSpec(GCM_TAG_BITS, decoded, 0, GCM_IV_LENGTH));
+        byte[] plaintext = cipher.doFinal(decoded, GCM_IV_LENGTH, decoded.length - GCM_IV_LENGTH);
+        return new String(plaintext, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 生成随机 IV（Base64 编码）
+     */
+    public String generateIV() {
+        byte[] iv = new byte[GCM_IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        return Base64.getEncoder().encodeToString(iv);
+    }
+
+    /**
+     * HKDF-SHA256 派生账号密钥（32 字节，只需一轮 expand）
+     */
+    private SecretKeySpec key(long accountId) {
+        SecretKeySpec key = keys.get(accountId);
+        if (key == null) {
+            Mac mac = expandMac.get();
+            mac.update(("account:" + accountId).getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 1);
+            key = new SecretKeySpec(mac.doFinal(), ALGORITHM);
+            keys.put(accountId, key);
+        }
+        return key;
+    }
+
+    /**
+     * 旧数据的密钥：SHA-256(主密钥:账号ID)
+     */
+    private SecretKeySpec legacyKey(long accountId) {
+        SecretKeySpec key = legacyKeys.get(accountId);
+        if (key == null) {
+            byte[] keyBytes = SHA256.get().digest((masterKey + ":" + accountId).getBytes(StandardCharsets.UTF_8));
+            key = new SecretKeySpec(keyBytes, ALGORITHM);
+            legacyKeys.put(accountId, key);
+        }
+        return key;
+    }
+}
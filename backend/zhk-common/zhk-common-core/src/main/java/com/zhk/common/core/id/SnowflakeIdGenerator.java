@@ -0,0 +1,125 @@
+package com.zhk.common.core.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按时间递增的分布式 ID 生成器（Snowflake 变体）
+ * ID 结构（共 53 位，前端 JavaScript 的 Number 可以精确表示）：
+ * 41 位毫秒时间戳（自 2024-01-01 起，约 69 年）+ 5 位节点号 + 7 位序列号（每节点每毫秒 128 个）。
+ * 生成过程只有一次 CAS，不访问数据库或 Redis；同一毫秒序列号用尽时借用下一毫秒，
+ * 时钟回拨时继续在上次的时间戳上递增，保证同一节点生成的 ID 严格递增。
+ * 借用的时间最多领先系统时钟 {@link #MAX_BORROW_MILLIS} 毫秒，超过后等待时钟追上。
+ * 上次的时间戳只保存在内存中：进程重启后如果系统时钟落后于重启前已发出的时间戳，
+ * 使用同一节点号会重新生成已经发出的 ID，节点号的分配方需要避免这种情况（见 IdGeneratorConfig 的租约）。
+ * 节点号的租约丢失时分配方调用 {@link #suspend()}，此后 {@link #nextId()} 抛出异常，重新取得租约后再 {@link #resume()}。
+ * 线程安全。
+ *
+ * @author shigure
+ */
+public class SnowflakeIdGenerator {
+
+    /**
+     * 起始时间 2024-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1704067200000L;
+
+    public static final int WORKER_BITS = 5;
+    public static final int SEQUENCE_BITS = 7;
+    public static final int MAX_WORKER_ID = (1 << WORKER_BITS) - 1;
+
+    /**
+     * 时间戳最多领先系统时钟的毫秒数
+     */
+    public static final long MAX_BORROW_MILLIS = 1000L;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_BITS + SEQUENCE_BITS;
+
+    private final long workerBits;
+
+    /**
+     * 上次生成的 (时间戳 << SEQUENCE_BITS | 序列号)，序列号溢出时自然进位到时间戳
+     */
+    private final AtomicLong last = new AtomicLong();
+
+    /**
+     * 节点号不再归本进程所有时为 true，期间拒绝生成 ID
+     */
+    private volatile boolean suspended;
+
+    /**
+     * @param workerId 节点号，0 ~ {@link #MAX_WORKER_ID}
+     */
+    public SnowflakeIdGenerator(int workerId) {
+        if (workerId < 0 || workerId > MAX_WORKER_ID) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + MAX_WORKER_ID);
+        }
+        this.workerBits = (long) workerId << SEQUENCE_BITS;
+    }
+
+    /**
+     * 生成下一个 ID
+     *
+     * @throws IllegalStateException 生成器已暂停（节点号租约丢失）
+     */
+    public long nextId() {
+        if (suspended) {
+            throw new IllegalStateException("worker id " + getWorkerId() + " is no longer owned by this process");
+        }
+        long now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        while (true) {
+            long prev = last.get();
+            long next = Math.max(now, prev + 1);
+            if (next - now > MAX_BORROW_MILLIS << SEQUENCE_BITS) {
+                waitForClock();
+                now = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+            } else if (last.compareAndSet(prev, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | workerBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private static void waitForClock() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for clock", e);
+        }
+    }
+
+    /**
+     * 暂停生成 ID（节点号租约丢失时调用）
+     */
+    public void suspend() {
+        suspended = true;
+    }
+
+    /**
+     * 恢复生成 ID（重新取得节点号租约后调用）
+     */
+    public void resume() {
+        suspended = false;
+    }
+
+    /**
+     * 是否已暂停
+     */
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * 节点号
+     */
+    public int getWorkerId() {
+        return (int) (workerBits >>> SEQUENCE_BITS);
+    }
+
+    /**
+     * 从 ID 中解析生成时间（毫秒时间戳）
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+}
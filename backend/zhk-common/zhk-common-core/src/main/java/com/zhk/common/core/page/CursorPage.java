@@ -0,0 +1,42 @@
+package com.zhk.common.core.page;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ * 不返回总数，以 hasMore 表示是否还有下一页，下一页请求携带 nextCursor。
+ *
+ * @author shigure
+ */
+@Data
+public class CursorPage<T> {
+
+    /**
+     * 当前页数据
+     */
+    private List<T> list;
+
+    /**
+     * 下一页游标，没有下一页时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 每页大小
+     */
+    private int pageSize;
+
+    public CursorPage(List<T> list, String nextCursor, boolean hasMore, int pageSize) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,14 @@
+package com.zhk.common.core.page;
+
+/**
+ * 分页游标格式不正确
+ * 由请求参数中的游标引起，全局异常处理器按参数错误（400）返回
+ *
+ * @author shigure
+ */
+public class InvalidCursorException extends IllegalArgumentException {
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
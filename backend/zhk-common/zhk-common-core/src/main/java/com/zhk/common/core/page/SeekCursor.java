@@ -0,0 +1,88 @@
+package com.zhk.common.core.page;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 游标分页的游标
+ * 记录上一页最后一条记录的排序键和主键，下一页按 (排序键, 主键) 定位后继续读取，
+ * 无论翻到第几页都只需一次索引范围扫描，不再需要 OFFSET 跳过前面的行。
+ * 对外以 URL 安全的 Base64 字符串传递，调用方不应解析其内容。
+ *
+ * @author shigure
+ */
+public final class SeekCursor {
+
+    private static final byte VERSION = 1;
+    private static final int ENCODED_BYTES = 1 + Long.BYTES * 2;
+
+    private final long sortKey;
+    private final long id;
+
+    /**
+     * @param sortKey 排序键（时间类排序键为毫秒时间戳，金额类为分）
+     * @param id      主键
+     */
+    public SeekCursor(long sortKey, long id) {
+        this.sortKey = sortKey;
+        this.id = id;
+    }
+
+    /**
+     * 以时间为排序键创建游标
+     */
+    public static SeekCursor ofTime(LocalDateTime time, long id) {
+        return new SeekCursor(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), id);
+    }
+
+    public long getSortKey() {
+        return sortKey;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 以时间解读排序键
+     */
+    public LocalDateTime getTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(sortKey), ZoneId.systemDefault());
+    }
+
+    /**
+     * 编码为对外传递的字符串
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES);
+        buffer.put(VERSION).putLong(sortKey).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @param cursor 游标字符串
+     * @return 游标，空字符串（第一页）返回 null
+     * @throws IllegalArgumentException 游标格式不正确
+     */
+    public static SeekCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid cursor", e);
+        }
+        if (bytes.length != ENCODED_BYTES || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, Long.BYTES * 2);
+        return new SeekCursor(buffer.getLong(), buffer.getLong());
+    }
+}
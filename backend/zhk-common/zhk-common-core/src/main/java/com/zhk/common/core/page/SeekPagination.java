@@ -0,0 +1,95 @@
+package com.zhk.common.core.page;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 游标分页工具类
+ * 为 LambdaQueryWrapper 追加 (排序列, 主键) 的定位条件、排序和 LIMIT，
+ * 定位条件展开为 sort &lt; ? OR (sort = ? AND id &lt; ?)，MySQL 可以直接在排序列的索引上做范围扫描
+ * （InnoDB 二级索引自带主键，排序列有索引即可）。
+ * 每次多取一条记录判断是否还有下一页，不再执行 COUNT(*)。
+ *
+ * @author shigure
+ */
+public class SeekPagination {
+
+    /**
+     * 每页最大条数
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * 解析请求中的游标
+     *
+     * @param cursor 游标字符串，空字符串表示第一页
+     * @return 游标，第一页返回 null
+     * @throws InvalidCursorException 游标格式不正确（由全局异常处理器转换为 400）
+     */
+    public static SeekCursor decode(String cursor) {
+        try {
+            return SeekCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 规范每页条数
+     */
+    public static int pageSize(Integer pageSize, int defaultPageSize) {
+        if (pageSize == null || pageSize <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(pageSize, MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 追加定位条件、排序和 LIMIT（多取一条用于判断是否还有下一页）
+     *
+     * @param wrapper    查询条件
+     * @param sortColumn 排序列
+     * @param idColumn   主键列
+     * @param afterSort  上一页最后一条记录的排序值，第一页传 null
+     * @param afterId    上一页最后一条记录的主键，第一页传 null
+     * @param descending 是否倒序
+     * @param pageSize   每页条数
+     */
+    public static <T> void seek(LambdaQueryWrapper<T> wrapper, SFunction<T, ?> sortColumn, SFunction<T, ?> idColumn,
+                                Object afterSort, Long afterId, boolean descending, int pageSize) {
+        if (afterSort != null && afterId != null) {
+            if (descending) {
+                wrapper.and(w -> w.lt(sortColumn, afterSort)
+                        .or(o -> o.eq(sortColumn, afterSort).lt(idColumn, afterId)));
+            } else {
+                wrapper.and(w -> w.gt(sortColumn, afterSort)
+                        .or(o -> o.eq(sortColumn, afterSort).gt(idColumn, afterId)));
+            }
+        }
+        if (descending) {
+            wrapper.orderByDesc(sortColumn).orderByDesc(idColumn);
+        } else {
+            wrapper.orderByAsc(sortColumn).orderByAsc(idColumn);
+        }
+        wrapper.last("LIMIT " + (pageSize + 1));
+    }
+
+    /**
+     * 将多取一条的查询结果转换为游标分页结果
+     *
+     * @param rows      查询结果（最多 pageSize + 1 条）
+     * @param pageSize  每页条数
+     * @param cursorOf  由记录生成游标
+     * @param converter 记录转换为 VO（整页转换，便于批量关联查询）
+     */
+    public static <R, T> CursorPage<T> page(List<R> rows, int pageSize, Function<R, SeekCursor> cursorOf,
+                                            Function<List<R>, List<T>> converter) {
+        boolean hasMore = rows.size() > pageSize;
+        List<R> current = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(current.get(current.size() - 1)).encode() : null;
+        return new CursorPage<>(converter.apply(current), nextCursor, hasMore, pageSize);
+    }
+}
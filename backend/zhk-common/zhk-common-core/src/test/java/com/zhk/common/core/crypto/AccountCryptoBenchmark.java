@@ -0,0 +1,133 @@
+package com.zhk.common.core.crypto;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AccountCrypto 基准测试（每秒操作数）
+ * hot 系列使用同一个账号，派生密钥命中缓存，测量的是 AES-GCM 本身和 Base64 的开销；
+ * cold 系列在 5 万个账号之间轮换（超过密钥缓存容量 1 万），每次都要重新派生密钥；
+ * legacy 为旧格式密文（SHA-256 派生密钥）的解密。
+ * 运行方式（不随 mvn test 执行，-t 指定线程数，用于观察多线程下 ThreadLocal Cipher 的扩展性）：
+ * <pre>
+ * mvn -pl zhk-common/zhk-common-core -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp zhk-common/zhk-common-core/target/test-classes:zhk-common/zhk-common-core/target/classes:$(cat zhk-common/zhk-common-core/target/cp.txt) \
+ *     org.openjdk.jmh.Main AccountCryptoBenchmark -t 4
+ * </pre>
+ *
+ * @author shigure
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AccountCryptoBenchmark {
+
+    static final String MASTER_KEY = "benchmark-master-key-0123456789ab";
+    static final String PLAINTEXT = "账号:player_20240101 密码:Zhk@2024!rental";
+    static final long HOT_ACCOUNT = 42L;
+    static final int COLD_ACCOUNTS = 50_000;
+
+    @State(Scope.Benchmark)
+    public static class Shared {
+        AccountCrypto crypto;
+        String hotCiphertext;
+        String legacyCiphertext;
+        String[] coldCiphertexts;
+
+        @Setup(Level.Trial)
+        public void setUp() throws GeneralSecurityException {
+            crypto = new AccountCrypto(MASTER_KEY);
+            hotCiphertext = crypto.encrypt(PLAINTEXT, HOT_ACCOUNT);
+            legacyCiphertext = legacyEncrypt(PLAINTEXT, HOT_ACCOUNT);
+            coldCiphertexts = new String[COLD_ACCOUNTS];
+            for (int i = 0; i < COLD_ACCOUNTS; i++) {
+                coldCiphertexts[i] = crypto.encrypt(PLAINTEXT, i);
+            }
+        }
+    }
+
+    /**
+     * 每个线程各自轮换账号，线程之间不共享计数器
+     */
+    @State(Scope.Thread)
+    public static class Rotation {
+        int next;
+
+        int nextAccount() {
+            int account = next;
+            next = account + 1 == COLD_ACCOUNTS ? 0 : account + 1;
+            return account;
+        }
+    }
+
+    @Benchmark
+    public String encryptHot(Shared shared) throws GeneralSecurityException {
+        return shared.crypto.encrypt(PLAINTEXT, HOT_ACCOUNT);
+    }
+
+    @Benchmark
+    public String decryptHot(Shared shared) throws GeneralSecurityException {
+        return shared.crypto.decrypt(shared.hotCiphertext, HOT_ACCOUNT);
+    }
+
+    @Benchmark
+    public String decryptLegacy(Shared shared) throws GeneralSecurityException {
+        return shared.crypto.decrypt(shared.legacyCiphertext, HOT_ACCOUNT);
+    }
+
+    @Benchmark
+    public String encryptCold(Shared shared, Rotation rotation) throws GeneralSecurityException {
+        return shared.crypto.encrypt(PLAINTEXT, rotation.nextAccount());
+    }
+
+    @Benchmark
+    public String decryptCold(Shared shared, Rotation rotation) throws GeneralSecurityException {
+        int account = rotation.nextAccount();
+        return shared.crypto.decrypt(shared.coldCiphertexts[account], account);
+    }
+
+    /**
+     * 旧格式：SHA-256(主密钥:账号ID) 作为密钥，Base64(IV + 密文 + 标签)，没有版本前缀
+     */
+    static String legacyEncrypt(String plaintext, long accountId) throws GeneralSecurityException {
+        byte[] key = MessageDigest.getInstance("SHA-256")
+                .digest((MASTER_KEY + ":" + accountId).getBytes(StandardCharsets.UTF_8));
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] output = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, output, 0, iv.length);
+        System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+        return Base64.getEncoder().encodeToString(output);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AccountCryptoBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.zhk.common.core.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AccountCrypto 单元测试
+ * v2 密文和旧格式密文都用独立实现的密钥派生和 AES-GCM 对照，不只验证自身的往返
+ *
+ * @author shigure
+ */
+class AccountCryptoTest {
+
+    private static final String MASTER_KEY = "test-master-key-0123456789abcdef";
+
+    private final AccountCrypto crypto = new AccountCrypto(MASTER_KEY);
+
+    @Test
+    void v2RoundTrip() throws Exception {
+        String ciphertext = crypto.encrypt("账号:player01 密码:p@ss", 42L);
+        assertTrue(ciphertext.startsWith("v2:"));
+        assertEquals("账号:player01 密码:p@ss", crypto.decrypt(ciphertext, 42L));
+        // 每次加密使用新的 IV
+        assertNotEquals(ciphertext, crypto.encrypt("账号:player01 密码:p@ss", 42L));
+        assertEquals("", crypto.decrypt(crypto.encrypt("", 42L), 42L));
+    }
+
+    @Test
+    void v2CiphertextUsesHkdfDerivedKey() throws Exception {
+        String ciphertext = crypto.encrypt("secret", 7L);
+        byte[] decoded = Base64.getDecoder().decode(ciphertext.substring("v2:".length()));
+        assertEquals("secret", gcmDecrypt(hkdfKey(7L), decoded));
+    }
+
+    @Test
+    void decryptsLegacyCiphertext() throws Exception {
+        byte[] legacyKey = MessageDigest.getInstance("SHA-256")
+                .digest((MASTER_KEY + ":" + 1001L).getBytes(StandardCharsets.UTF_8));
+        String legacy = Base64.getEncoder().encodeToString(gcmEncrypt(legacyKey, "旧数据"));
+
+        assertEquals("旧数据", crypto.decrypt(legacy, 1001L));
+        // 旧格式不会被当作 v2 解密
+        assertThrows(GeneralSecurityException.class, () -> crypto.decrypt("v2:" + legacy, 1001L));
+    }
+
+    @Test
+    void keysAreIsolatedPerAccountAndMasterKey() throws Exception {
+        String ciphertext = crypto.encrypt("secret", 1L);
+        assertThrows(GeneralSecurityException.class, () -> crypto.decrypt(ciphertext, 2L));
+        assertThrows(GeneralSecurityException.class,
+                () -> new AccountCrypto("another-master-key-0123456789abcd").decrypt(ciphertext, 1L));
+        // 失败之后同一线程仍能正常解密
+        assertEquals("secret", crypto.decrypt(ciphertext, 1L));
+    }
+
+    @Test
+    void rejectsTamperedOrTruncatedCiphertext() throws Exception {
+        String ciphertext = crypto.encrypt("secret", 3L);
+        byte[] decoded = Base64.getDecoder().decode(ciphertext.substring("v2:".length()));
+        decoded[decoded.length - 1] ^= 1;
+        String tampered = "v2:" + Base64.getEncoder().encodeToString(decoded);
+        assertThrows(GeneralSecurityException.class, () -> crypto.decrypt(tampered, 3L));
+        assertThrows(GeneralSecurityException.class,
+                () -> crypto.decrypt("v2:" + Base64.getEncoder().encodeToString(new byte[12]), 3L));
+    }
+
+    @Test
+    void concurrentUseOfThreadLocalCipher() throws Exception {
+        int threads = 8;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        // 账号在线程之间重叠，同时覆盖共享的密钥缓存
+                        long accountId = (thread * perThread + i) % 500;
+                        String plaintext = "t" + thread + "-" + i;
+                        assertEquals(plaintext, crypto.decrypt(crypto.encrypt(plaintext, accountId), accountId));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] hkdfKey(long accountId) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("zhk-account-credential".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] prk = mac.doFinal(MASTER_KEY.getBytes(StandardCharsets.UTF_8));
+        mac.init(new SecretKeySpec(prk, "HmacSHA256"));
+        mac.update(("account:" + accountId).getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 1);
+        return mac.doFinal();
+    }
+
+    private static byte[] gcmEncrypt(byte[] key, String plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, iv));
+        byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] output = new byte[iv.length + encrypted.length];
+        System.arraycopy(iv, 0, output, 0, iv.length);
+        System.arraycopy(encrypted, 0, output, iv.length, encrypted.length);
+        return output;
+    }
+
+    private static String gcmDecrypt(byte[] key, byte[] decoded) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, decoded, 0, 12));
+        return new String(cipher.doFinal(decoded, 12, decoded.length - 12), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,100 @@
+package com.zhk.common.core.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SnowflakeIdGenerator 单元测试
+ *
+ * @author shigure
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+
+    @Test
+    void rejectsWorkerIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID + 1));
+    }
+
+    @Test
+    void encodesWorkerIdAndTimestamp() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_WORKER_ID);
+        long before = System.currentTimeMillis();
+        long id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        int workerId = (int) ((id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_WORKER_ID);
+        assertEquals(SnowflakeIdGenerator.MAX_WORKER_ID, workerId);
+        long timestamp = SnowflakeIdGenerator.timestampOf(id);
+        assertTrue(timestamp >= before && timestamp <= after + SnowflakeIdGenerator.MAX_BORROW_MILLIS);
+        assertTrue(id > 0 && id <= MAX_SAFE_INTEGER);
+    }
+
+    @Test
+    void idsStrictlyIncreaseAndBorrowStaysWithinCap() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        long previous = 0;
+        // 远超单毫秒的 128 个序列号，必然借用后续毫秒
+        for (int i = 0; i < 200_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        long lead = SnowflakeIdGenerator.timestampOf(previous) - System.currentTimeMillis();
+        assertTrue(lead <= SnowflakeIdGenerator.MAX_BORROW_MILLIS);
+    }
+
+    @Test
+    void suspendedGeneratorRefusesUntilResumed() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(4);
+        long before = generator.nextId();
+
+        generator.suspend();
+        assertTrue(generator.isSuspended());
+        assertThrows(IllegalStateException.class, generator::nextId);
+
+        generator.resume();
+        assertTrue(generator.nextId() > before);
+    }
+
+    @Test
+    void uniqueAcrossThreadsAndWorkers() throws Exception {
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SnowflakeIdGenerator generator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+}
@@ -0,0 +1,36 @@
+package com.zhk.common.security;
+
+import lombok.Getter;
+
+/**
+ * JWT 解析结果
+ * 签名校验通过后的不可变用户信息，可在多个请求之间安全共享
+ *
+ * @author shigure
+ */
+@Getter
+public final class JwtPrincipal {
+
+    private final Long userId;
+    private final String username;
+    private final String role;
+
+    /**
+     * 过期时间（毫秒时间戳）
+     */
+    private final long expiresAt;
+
+    public JwtPrincipal(Long userId, String username, String role, long expiresAt) {
+        this.userId = userId;
+        this.username = username;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * 是否已过期
+     */
+    public boolean isExpired() {
+        return expiresAt <= System.currentTimeMillis();
+    }
+}
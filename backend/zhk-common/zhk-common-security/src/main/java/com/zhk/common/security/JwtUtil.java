@@ -1,6 +1,8 @@
 package com.zhk.common.security;
 
+import com.zhk.common.core.cache.ExpiringLruCache;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
@@ -8,6 +10,10 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,11 +33,28 @@ public class JwtUtil {
     @Value("${zhk.jwt.expiration:86400000}")
     private Long expiration;
 
+    private static final int PRINCIPAL_CACHE_SIZE = 10000;
+    private static final long PRINCIPAL_CACHE_TTL = 5 * 60 * 1000L; // 5分钟
+
+    /**
+     * 已验证 Token 的缓存：Token 摘要 -> 解析结果
+     * 缓存时间不超过 Token 自身的剩余有效期
+     */
+    private final ExpiringLruCache<String, JwtPrincipal> principalCache =
+            new ExpiringLruCache<>(PRINCIPAL_CACHE_SIZE, PRINCIPAL_CACHE_TTL);
+
+    private volatile SecretKey signingKey;
+
     /**
-     * 获取签名密钥
+     * 获取签名密钥（构造一次后复用）
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        SecretKey key = signingKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(secret.getBytes());
+            signingKey = key;
+        }
+        return key;
     }
 
     /**
@@ -71,42 +94,85 @@ public class JwtUtil {
                 .getPayload();
     }
 
+    /**
+     * 解析并验证 Token（只做一次签名校验，命中缓存时不再校验）
+     *
+     * @param token Token
+     * @return 解析结果，Token 无效或已过期时返回 null
+     */
+    public JwtPrincipal parse(String token) {
+        try {
+            return resolve(token);
+        } catch (Exception e) {
+            log.debug("Token 解析失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * 从 Token 中获取用户ID
      */
     public Long getUserIdFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("userId", Long.class);
+        return resolve(token).getUserId();
     }
 
     /**
      * 从 Token 中获取用户名
      */
     public String getUsernameFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.getSubject();
+        return resolve(token).getUsername();
     }
 
     /**
      * 从 Token 中获取角色
      */
     public String getRoleFromToken(String token) {
-        Claims claims = parseToken(token);
-        return claims.get("role", String.class);
+        return resolve(token).getRole();
     }
 
     /**
-     * 验证 Token 是否过期
+     * 先查缓存，未命中时校验签名并缓存
+     *
+     * @throws JwtException Token 无效或已过期
      */
-    public boolean isTokenExpired(String token) {
-        try {
+    private JwtPrincipal resolve(String token) {
+        String digest = digest(token);
+        JwtPrincipal principal = principalCache.get(digest);
+        if (principal == null) {
             Claims claims = parseToken(token);
-            return claims.getExpiration().before(new Date());
-        } catch (Exception e) {
-            return true;
+            long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+            principal = new JwtPrincipal(claims.get("userId", Long.class), claims.getSubject(),
+                    claims.get("role", String.class), expiresAt);
+            principalCache.put(digest, principal, Math.min(expiresAt - System.currentTimeMillis(), PRINCIPAL_CACHE_TTL));
+        }
+        if (principal.isExpired()) {
+            principalCache.remove(digest);
+            throw new JwtException("Token 已过期");
+        }
+        return principal;
+    }
+
+    /**
+     * Token 的 SHA-256 摘要，避免在缓存中保存原始 Token
+     */
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
         }
     }
 
+    /**
+     * 验证 Token 是否过期
+     */
+    public boolean isTokenExpired(String token) {
+        JwtPrincipal principal = parse(token);
+        return principal == null || principal.isExpired();
+    }
+
     /**
      * 验证 Token 是否有效
      */
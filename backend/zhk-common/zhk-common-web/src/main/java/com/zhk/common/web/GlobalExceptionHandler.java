@@ -1,5 +1,6 @@
 package com.zhk.common.web;
 
+import com.zhk.common.core.page.InvalidCursorException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.validation.BindException;
 import org.springframework.validation.FieldError;
@@ -51,6 +52,15 @@ public class GlobalExceptionHandler {
         return Result.badRequest("参数绑定失败: " + message);
     }
 
+    /**
+     * 分页游标异常
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public Result<?> handleInvalidCursorException(InvalidCursorException e) {
+        log.warn("分页游标无效: {}", e.getMessage());
+        return Result.badRequest(e.getMessage());
+    }
+
     /**
      * 系统异常
      */
@@ -0,0 +1,182 @@
+package com.zhk.order.config;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.zhk.common.core.id.SnowflakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式 ID 生成配置
+ * 注册为 MyBatis-Plus 的 IdentifierGenerator，实体主键为 IdType.ASSIGN_ID 时在插入前生成 ID。
+ * 节点号优先使用配置 zhk.id.worker-id；未配置时启动时在 Redis 中租用一个节点号：
+ * 1. 依次对 id:worker:lease:{节点号} 执行 SET NX PX，第一个成功的即为本节点的节点号，全部被占用时启动失败；
+ * 2. 每隔 zhk.id.lease-renew-interval-ms 续租，租约已过期且未被其他节点占用时重新占用；
+ *    发现租约被其他节点占用，或连续续租失败到租约可能已经过期时，暂停生成 ID（插入报错），重新取得租约后恢复；
+ * 3. 停机时不主动释放，租约在 zhk.id.lease-ms 后过期，刚重启的进程会租到另一个节点号，
+ *    不会在时钟回拨后用同一个节点号重新生成已经发出的 ID。
+ * 未引入 Redis 时按主机名和进程号计算（单节点部署不会冲突，多节点部署应显式配置）；
+ * 已配置 Redis 但租用失败时启动失败，不会退回到可能冲突的计算方式。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class IdGeneratorConfig {
+
+    private static final String LEASE_KEY_PREFIX = "id:worker:lease:";
+
+    /**
+     * 租约仍属于自己时延长；已过期时重新占用；被其他节点占用时返回 0
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('get', KEYS[1]) "
+                    + "if owner == ARGV[1] then "
+                    + "redis.call('pexpire', KEYS[1], ARGV[2]) "
+                    + "return 1 "
+                    + "end "
+                    + "if not owner then "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    @Value("${zhk.id.worker-id:-1}")
+    private int workerId;
+
+    @Value("${zhk.id.lease-ms:60000}")
+    private long leaseMillis;
+
+    @Value("${zhk.id.lease-renew-interval-ms:10000}")
+    private long renewIntervalMillis;
+
+    /**
+     * 租用的节点号，未租用（显式配置或未引入 Redis）时为 -1
+     */
+    private volatile int leasedWorkerId = -1;
+    private final String leaseToken = UUID.randomUUID().toString();
+
+    /**
+     * 租约至少有效到的时间（System.nanoTime），取最近一次成功续租开始时的时间加上租约时长
+     */
+    private volatile long leaseValidUntilNanos;
+
+    private volatile SnowflakeIdGenerator generator;
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator() {
+        int resolved = resolveWorkerId();
+        log.info("ID 生成器初始化完成: workerId={}", resolved);
+        generator = new SnowflakeIdGenerator(resolved);
+        return generator;
+    }
+
+    @Bean
+    public IdentifierGenerator identifierGenerator(SnowflakeIdGenerator snowflakeIdGenerator) {
+        return entity -> snowflakeIdGenerator.nextId();
+    }
+
+    /**
+     * 续租节点号
+     */
+    @Scheduled(fixedDelayString = "${zhk.id.lease-renew-interval-ms:10000}")
+    public void renewLease() {
+        int leased = leasedWorkerId;
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        SnowflakeIdGenerator current = generator;
+        if (leased < 0 || redisTemplate == null || current == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(LEASE_KEY_PREFIX + leased),
+                    leaseToken, String.valueOf(leaseMillis));
+            if (renewed == null || renewed == 0L) {
+                if (!current.isSuspended()) {
+                    current.suspend();
+                    log.error("节点号租约已被其他节点占用，暂停生成 ID: workerId={}", leased);
+                }
+                return;
+            }
+            leaseValidUntilNanos = start + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+            if (current.isSuspended()) {
+                current.resume();
+                log.info("重新取得节点号租约，恢复生成 ID: workerId={}", leased);
+            }
+        } catch (Exception e) {
+            log.warn("节点号续租失败，稍后重试: workerId={}, error={}", leased, e.getMessage());
+            // 下一次续租之前租约就会过期时，不再等待
+            long deadline = leaseValidUntilNanos - TimeUnit.MILLISECONDS.toNanos(renewIntervalMillis);
+            if (System.nanoTime() - deadline >= 0 && !current.isSuspended()) {
+                current.suspend();
+                log.error("节点号租约可能已经过期，暂停生成 ID: workerId={}", leased);
+            }
+        }
+    }
+
+    private int resolveWorkerId() {
+        if (workerId >= 0) {
+            if (workerId > SnowflakeIdGenerator.MAX_WORKER_ID) {
+                throw new IllegalStateException("zhk.id.worker-id 超出范围: " + workerId);
+            }
+            return workerId;
+        }
+        Integer leased = leaseWorkerId();
+        if (leased != null) {
+            return leased;
+        }
+        String identity;
+        try {
+            identity = InetAddress.getLocalHost().getHostName() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        } catch (Exception e) {
+            identity = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        log.warn("未引入 Redis，按主机标识计算节点号: identity={}", identity);
+        return (identity.hashCode() & 0x7fffffff) % (SnowflakeIdGenerator.MAX_WORKER_ID + 1);
+    }
+
+    /**
+     * 在 Redis 中租用一个空闲的节点号
+     *
+     * @return 节点号，未引入 Redis 时返回 null
+     * @throws IllegalStateException 已配置 Redis 但租用失败，或没有空闲的节点号
+     */
+    private Integer leaseWorkerId() {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            for (int candidate = 0; candidate <= SnowflakeIdGenerator.MAX_WORKER_ID; candidate++) {
+                long start = System.nanoTime();
+                Boolean acquired = redisTemplate.opsForValue().setIfAbsent(
+                        LEASE_KEY_PREFIX + candidate, leaseToken, leaseMillis, TimeUnit.MILLISECONDS);
+                if (Boolean.TRUE.equals(acquired)) {
+                    leaseValidUntilNanos = start + TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+                    leasedWorkerId = candidate;
+                    return candidate;
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("在 Redis 中租用节点号失败，请检查 Redis 连接或显式配置 zhk.id.worker-id", e);
+        }
+        throw new IllegalStateException("没有空闲的节点号（0~" + SnowflakeIdGenerator.MAX_WORKER_ID
+                + "），请稍后重启或显式配置 zhk.id.worker-id");
+    }
+}
@@ -1,5 +1,6 @@
 package com.zhk.order.controller;
 
+import com.zhk.order.service.AlipayNotifyInbox;
 import com.zhk.order.service.AlipayPaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,31 +22,22 @@ import java.util.Map;
 public class AlipayNotifyController {
 
     private final AlipayPaymentService alipayPaymentService;
+    private final AlipayNotifyInbox alipayNotifyInbox;
 
     /**
      * 支付宝异步通知
      * 注意：此接口需要配置在支付宝开放平台的应用网关中
+     * 验签并保存到通知收件箱后立即返回，支付状态由后台线程更新
      */
     @PostMapping("/notify")
     public String notify(HttpServletRequest request) {
         try {
-            Map<String, String> params = new HashMap<>();
-            Map<String, String[]> requestParams = request.getParameterMap();
-
-            for (String name : requestParams.keySet()) {
-                String[] values = requestParams.get(name);
-                String valueStr = "";
-                for (int i = 0; i < values.length; i++) {
-                    valueStr = (i == values.length - 1) ? valueStr + values[i] : valueStr + values[i] + ",";
-                }
-                params.put(name, valueStr);
-            }
+            Map<String, String> params = readParams(request);
 
             log.info("收到支付宝异步通知: {}", params);
-            alipayPaymentService.handleNotify(params);
 
             // 必须返回 "success"，否则支付宝会重复通知
-            return "success";
+            return alipayNotifyInbox.accept(params) ? "success" : "fail";
         } catch (Exception e) {
             log.error("处理支付宝回调失败", e);
             return "fail";
@@ -59,17 +51,7 @@ public class AlipayNotifyController {
     @GetMapping("/return")
     public String returnUrl(HttpServletRequest request) {
         try {
-            Map<String, String> params = new HashMap<>();
-            Map<String, String[]> requestParams = request.getParameterMap();
-
-            for (String name : requestParams.keySet()) {
-                String[] values = requestParams.get(name);
-                String valueStr = "";
-                for (int i = 0; i < values.length; i++) {
-                    valueStr = (i == values.length - 1) ? valueStr + values[i] : valueStr + values[i] + ",";
-                }
-                params.put(name, valueStr);
-            }
+            Map<String, String> params = readParams(request);
 
             log.info("收到支付宝同步跳转: {}", params);
             
@@ -83,5 +65,17 @@ public class AlipayNotifyController {
             return "redirect:http://localhost:3000/tenant/orders?error=payment_failed";
         }
     }
-}
 
+    /**
+     * 读取请求参数，同名参数的多个值以逗号连接（与支付宝 SDK 的验签规则一致）
+     */
+    private static Map<String, String> readParams(HttpServletRequest request) {
+        Map<String, String[]> requestParams = request.getParameterMap();
+        Map<String, String> params = new HashMap<>(requestParams.size() * 2);
+        for (Map.Entry<String, String[]> entry : requestParams.entrySet()) {
+            String[] values = entry.getValue();
+            params.put(entry.getKey(), values.length == 1 ? values[0] : String.join(",", values));
+        }
+        return params;
+    }
+}
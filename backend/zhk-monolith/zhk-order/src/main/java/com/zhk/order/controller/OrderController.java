@@ -1,8 +1,10 @@
 package com.zhk.order.controller;
 
+import com.zhk.common.core.page.CursorPage;
 import com.zhk.common.security.JwtUtil;
 import com.zhk.common.web.Result;
 import com.zhk.order.dto.CreateOrderDTO;
+import com.zhk.order.dto.OrderPageVO;
 import com.zhk.order.dto.OrderVO;
 import com.zhk.order.dto.RenewOrderDTO;
 import com.zhk.order.service.OrderService;
@@ -11,8 +13,6 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -45,7 +45,7 @@ public class OrderController {
      * 查询订单列表
      */
     @GetMapping
-    public Result<Map<String, Object>> getOrderList(
+    public Result<OrderPageVO> getOrderList(
             HttpServletRequest request,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
@@ -57,23 +57,15 @@ public class OrderController {
         // 转换前端状态为后端状态
         String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
 
-        List<OrderVO> list = orderService.getOrderList(userId, role, backendStatus, page, pageSize);
-        Long total = orderService.getOrderCount(userId, role, backendStatus);
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("list", list);
-        result.put("total", total);
-        result.put("page", page);
-        result.put("pageSize", pageSize);
-
-        return Result.success(result);
+        // 列表、总数和各状态订单数一次返回
+        return Result.success(orderService.getOrderPage(userId, role, backendStatus, page, pageSize));
     }
 
     /**
      * 获取我的订单列表（租客端）
      */
     @GetMapping("/my")
-    public Result<Map<String, Object>> getMyOrders(
+    public Result<OrderPageVO> getMyOrders(
             HttpServletRequest request,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
@@ -84,23 +76,15 @@ public class OrderController {
         // 转换前端状态为后端状态
         String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
 
-        List<OrderVO> list = orderService.getOrderList(userId, "TENANT", backendStatus, page, pageSize);
-        Long total = orderService.getOrderCount(userId, "TENANT", backendStatus);
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("list", list);
-        result.put("total", total);
-        result.put("page", page);
-        result.put("pageSize", pageSize);
-
-        return Result.success(result);
+        // 列表、总数和各状态订单数一次返回
+        return Result.success(orderService.getOrderPage(userId, "TENANT", backendStatus, page, pageSize));
     }
 
     /**
      * 获取商家订单列表（商家端）
      */
     @GetMapping("/owner")
-    public Result<Map<String, Object>> getOwnerOrders(
+    public Result<OrderPageVO> getOwnerOrders(
             HttpServletRequest request,
             @RequestParam(value = "status", required = false) String status,
             @RequestParam(value = "page", defaultValue = "1") Integer page,
@@ -111,16 +95,64 @@ public class OrderController {
         // 转换前端状态为后端状态
         String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
 
-        List<OrderVO> list = orderService.getOrderList(userId, "OWNER", backendStatus, page, pageSize);
-        Long total = orderService.getOrderCount(userId, "OWNER", backendStatus);
+        // 列表、总数和各状态订单数一次返回
+        return Result.success(orderService.getOrderPage(userId, "OWNER", backendStatus, page, pageSize));
+    }
 
-        Map<String, Object> result = new HashMap<>();
-        result.put("list", list);
-        result.put("total", total);
-        result.put("page", page);
-        result.put("pageSize", pageSize);
+    /**
+     * 查询订单列表（游标分页，请求携带 cursor 参数时生效，第一页传空字符串）
+     */
+    @GetMapping(params = "cursor")
+    public Result<CursorPage<OrderVO>> getOrderListByCursor(
+            HttpServletRequest request,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize
+    ) {
+        Long userId = getUserIdFromRequest(request);
+        String role = getRoleFromRequest(request);
+        String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
+        return Result.success(orderService.getOrderListByCursor(userId, role, backendStatus, cursor, pageSize));
+    }
 
-        return Result.success(result);
+    /**
+     * 获取我的订单列表（租客端，游标分页）
+     */
+    @GetMapping(value = "/my", params = "cursor")
+    public Result<CursorPage<OrderVO>> getMyOrdersByCursor(
+            HttpServletRequest request,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize
+    ) {
+        Long userId = getUserIdFromRequest(request);
+        String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
+        return Result.success(orderService.getOrderListByCursor(userId, "TENANT", backendStatus, cursor, pageSize));
+    }
+
+    /**
+     * 获取商家订单列表（商家端，游标分页）
+     */
+    @GetMapping(value = "/owner", params = "cursor")
+    public Result<CursorPage<OrderVO>> getOwnerOrdersByCursor(
+            HttpServletRequest request,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize
+    ) {
+        Long userId = getUserIdFromRequest(request);
+        String backendStatus = status != null ? com.zhk.order.util.OrderStatusConverter.toBackendStatus(status) : null;
+        return Result.success(orderService.getOrderListByCursor(userId, "OWNER", backendStatus, cursor, pageSize));
+    }
+
+    /**
+     * 获取各状态订单数（键为后端状态，按当前角色统计）
+     */
+    @GetMapping("/status-counts")
+    public Result<Map<String, Long>> getOrderStatusCounts(HttpServletRequest request) {
+        Long userId = getUserIdFromRequest(request);
+        String role = getRoleFromRequest(request);
+        return Result.success(orderService.getOrderStatusCounts(userId, role));
     }
 
     /**
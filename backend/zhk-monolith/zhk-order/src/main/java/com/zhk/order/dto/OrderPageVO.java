@@ -0,0 +1,20 @@
+package com.zhk.order.dto;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单列表分页结果（含各状态订单数）
+ *
+ * @author shigure
+ */
+@Data
+public class OrderPageVO {
+    private List<OrderVO> list;
+    private Long total; // 当前筛选条件下的订单总数
+    private Integer page;
+    private Integer pageSize;
+    private Map<String, Long> statusCounts; // 各状态订单数（不受状态筛选影响），键为后端状态：paying, leasing, closed, appeal, cancelled
+}
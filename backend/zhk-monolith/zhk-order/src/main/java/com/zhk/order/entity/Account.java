@@ -19,7 +19,7 @@ import java.time.LocalDateTime;
 @TableName("account")
 @Alias("OrderAccount")
 public class Account {
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
 
     @TableField("game_id")
@@ -20,7 +20,7 @@ public class LeaseOrder {
     /**
      * 订单ID
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
 
     /**
@@ -35,6 +35,12 @@ public class LeaseOrder {
     @TableField("tenant_uid")
     private Long tenantUid;
 
+    /**
+     * 号主用户ID（冗余自 account.owner_uid，存量订单回填前为空）
+     */
+    @TableField("owner_uid")
+    private Long ownerUid;
+
     /**
      * 租期开始时间
      */
@@ -0,0 +1,69 @@
+package com.zhk.order.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 支付宝异步通知实体类
+ *
+ * @author shigure
+ */
+@Data
+@TableName("payment_notify")
+public class PaymentNotify {
+    /**
+     * 通知ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 支付宝交易号
+     */
+    @TableField("trade_no")
+    private String tradeNo;
+
+    /**
+     * 交易状态
+     */
+    @TableField("trade_status")
+    private String tradeStatus;
+
+    /**
+     * 商户订单号（payment_record.transaction_id）
+     */
+    @TableField("out_trade_no")
+    private String outTradeNo;
+
+    /**
+     * 通知参数（JSON格式）
+     */
+    private String params;
+
+    /**
+     * 处理状态：0-待处理 1-已处理 2-处理失败
+     */
+    private Integer status;
+
+    /**
+     * 失败次数
+     */
+    private Integer attempts;
+
+    /**
+     * 接收时间
+     */
+    @TableField("created_at")
+    private LocalDateTime createdAt;
+
+    /**
+     * 处理完成时间
+     */
+    @TableField("processed_at")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,23 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 账号状态变更事件
+ * 由订单模块中修改账号状态的流程（支付成功租出、还号、取消、到期关闭、申诉处理）在更新账号后发布；
+ * 用户模块的 DashboardStats 在事务提交后据此调整各状态账号数
+ *
+ * @author shigure
+ */
+@Data
+public class AccountStatusChangedEvent {
+    private Long accountId;
+    private Integer fromStatus;
+    private Integer toStatus;
+
+    public AccountStatusChangedEvent(Long accountId, Integer fromStatus, Integer toStatus) {
+        this.accountId = accountId;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+}
@@ -0,0 +1,20 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 申诉创建事件
+ * 由创建申诉成功后发布（新申诉的裁决结果为空，即待处理），供后台统计维护待处理申诉数
+ *
+ * @author shigure
+ */
+@Data
+public class AppealCreatedEvent {
+    private Long appealId;
+    private Long orderId;
+
+    public AppealCreatedEvent(Long appealId, Long orderId) {
+        this.appealId = appealId;
+        this.orderId = orderId;
+    }
+}
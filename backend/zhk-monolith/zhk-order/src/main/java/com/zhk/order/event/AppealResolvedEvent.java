@@ -0,0 +1,20 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 申诉处理事件
+ * 由写入裁决结果成功后发布（每条申诉只发布一次），供后台统计维护待处理申诉数
+ *
+ * @author shigure
+ */
+@Data
+public class AppealResolvedEvent {
+    private Long appealId;
+    private Long orderId;
+
+    public AppealResolvedEvent(Long appealId, Long orderId) {
+        this.appealId = appealId;
+        this.orderId = orderId;
+    }
+}
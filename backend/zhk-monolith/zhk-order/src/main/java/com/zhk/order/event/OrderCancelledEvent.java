@@ -0,0 +1,22 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 订单取消事件
+ * 由取消订单成功后发布，供风控统计用户的取消频率（只统计用户主动取消，不统计超时未支付的自动取消）
+ *
+ * @author shigure
+ */
+@Data
+public class OrderCancelledEvent {
+    private Long orderId;
+    private Long userId;
+    private boolean userInitiated;
+
+    public OrderCancelledEvent(Long orderId, Long userId, boolean userInitiated) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.userInitiated = userInitiated;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 订单创建事件
+ * 由创建订单成功后发布，供后台统计按状态维护订单数、清除租客和号主的订单状态分布缓存
+ *
+ * @author shigure
+ */
+@Data
+public class OrderCreatedEvent {
+    private Long orderId;
+    private Long userId;
+    private Long ownerUid;
+    private String status;
+
+    public OrderCreatedEvent(Long orderId, Long userId, Long ownerUid, String status) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.ownerUid = ownerUid;
+        this.status = status;
+    }
+}
@@ -0,0 +1,27 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 订单状态变更事件
+ * 由 OrderStateMachine 在状态流转成功后发布；携带租客和号主ID，监听方无需回查订单
+ * （号主ID取自 lease_order.owner_uid，存量订单回填前可能为空）
+ *
+ * @author shigure
+ */
+@Data
+public class OrderStatusChangedEvent {
+    private Long orderId;
+    private Long tenantUid;
+    private Long ownerUid;
+    private String fromStatus;
+    private String toStatus;
+
+    public OrderStatusChangedEvent(Long orderId, Long tenantUid, Long ownerUid, String fromStatus, String toStatus) {
+        this.orderId = orderId;
+        this.tenantUid = tenantUid;
+        this.ownerUid = ownerUid;
+        this.fromStatus = fromStatus;
+        this.toStatus = toStatus;
+    }
+}
@@ -0,0 +1,24 @@
+package com.zhk.order.event;
+
+import lombok.Data;
+
+/**
+ * 支付结果事件
+ * 支付成功或支付关闭（失败）后发布，供风控统计用户的支付失败率
+ *
+ * @author shigure
+ */
+@Data
+public class PaymentResultEvent {
+    private Long paymentId;
+    private Long orderId;
+    private Long userId;
+    private boolean success;
+
+    public PaymentResultEvent(Long paymentId, Long orderId, Long userId, boolean success) {
+        this.paymentId = paymentId;
+        this.orderId = orderId;
+        this.userId = userId;
+        this.success = success;
+    }
+}
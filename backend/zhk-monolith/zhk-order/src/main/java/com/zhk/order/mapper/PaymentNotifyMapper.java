@@ -0,0 +1,14 @@
+package com.zhk.order.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.zhk.order.entity.PaymentNotify;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 支付宝异步通知 Mapper
+ *
+ * @author shigure
+ */
+@Mapper
+public interface PaymentNotifyMapper extends BaseMapper<PaymentNotify> {
+}
@@ -0,0 +1,266 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zhk.common.core.cache.ExpiringLruCache;
+import com.zhk.order.entity.PaymentNotify;
+import com.zhk.order.mapper.PaymentNotifyMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 支付宝异步通知收件箱
+ * 回调线程只做验签和落库，随即返回 success，支付状态更新交给后台线程：
+ * 1. 通知按 (trade_no, trade_status) 去重：先查本地有界缓存，缓存未命中时依赖 payment_notify 的唯一键，
+ *    支付宝的重复通知不再重复查询、更新支付记录和订单；
+ * 2. 落库后放入有界线程池处理，处理完成标记为已处理；线程池已满或处理失败的通知保持待处理，
+ *    由定时任务按 id 顺序重新投递，失败超过 zhk.payment.notify.max-attempts 次标记为处理失败；
+ * 3. 状态更新走 {@link AlipayPaymentService#applyTradeStatus}，以支付记录原状态为条件更新，
+ *    同一条通知被重复处理（例如重启后重新投递）也只会生效一次；
+ * 4. 存在 MeterRegistry 时注册接收、重复、处理、失败次数，队列长度，以及从接收到处理完成的延迟。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class AlipayNotifyInbox {
+
+    private static final int STATUS_PENDING = 0;
+    private static final int STATUS_DONE = 1;
+    private static final int STATUS_FAILED = 2;
+
+    /**
+     * 每次重新投递的最大条数
+     */
+    private static final int REDELIVER_BATCH_SIZE = 500;
+
+    private final PaymentNotifyMapper notifyMapper;
+    private final AlipayPaymentService alipayPaymentService;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${zhk.payment.notify.workers:2}")
+    private int workers;
+
+    @Value("${zhk.payment.notify.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${zhk.payment.notify.dedup-cache-size:10000}")
+    private int dedupCacheSize;
+
+    @Value("${zhk.payment.notify.max-attempts:5}")
+    private int maxAttempts;
+
+    private ThreadPoolExecutor executor;
+    private ExpiringLruCache<String, Boolean> seen;
+
+    /**
+     * 已投递到线程池、尚未处理的通知ID，避免定时任务重复投递
+     */
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private Counter receivedCounter;
+    private Counter duplicateCounter;
+    private Counter processedCounter;
+    private Counter failedCounter;
+    private Timer lagTimer;
+
+    public AlipayNotifyInbox(PaymentNotifyMapper notifyMapper,
+                             AlipayPaymentService alipayPaymentService,
+                             ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.notifyMapper = notifyMapper;
+        this.alipayPaymentService = alipayPaymentService;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, workers);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+            Thread thread = new Thread(r, "alipay-notify-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        // 支付宝重试间隔最长约 15 小时，缓存保留 1 天
+        seen = new ExpiringLruCache<>(Math.max(1, dedupCacheSize), Duration.ofDays(1).toMillis());
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            receivedCounter = Counter.builder("payment.notify.received").description("接收的支付宝通知数").register(registry);
+            duplicateCounter = Counter.builder("payment.notify.duplicate").description("重复的支付宝通知数").register(registry);
+            processedCounter = Counter.builder("payment.notify.processed").description("处理完成的支付宝通知数").register(registry);
+            failedCounter = Counter.builder("payment.notify.failed").description("处理失败的支付宝通知数").register(registry);
+            Gauge.builder("payment.notify.queue.depth", executor, e -> e.getQueue().size())
+                    .description("等待处理的支付宝通知数").register(registry);
+            lagTimer = Timer.builder("payment.notify.lag").description("支付宝通知从接收到处理完成的延迟").register(registry);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 接收一条支付宝异步通知
+     *
+     * @param params 通知参数
+     * @return 是否已接收（签名有效，且已保存或是重复通知）；返回 false 时应答 fail，支付宝会稍后重试
+     */
+    public boolean accept(Map<String, String> params) {
+        if (!alipayPaymentService.verifyNotify(params)) {
+            log.error("支付宝回调签名验证失败");
+            return false;
+        }
+        increment(receivedCounter);
+
+        String outTradeNo = params.get("out_trade_no");
+        String tradeStatus = params.get("trade_status");
+        String tradeNo = params.get("trade_no");
+        if (outTradeNo == null || tradeStatus == null) {
+            log.warn("支付宝通知缺少订单号或交易状态，忽略: params={}", params);
+            return true;
+        }
+        if (tradeNo == null) {
+            tradeNo = outTradeNo;
+        }
+
+        String dedupKey = tradeNo + ":" + tradeStatus;
+        if (seen.get(dedupKey) != null) {
+            increment(duplicateCounter);
+            log.info("重复的支付宝通知，已忽略: tradeNo={}, tradeStatus={}", tradeNo, tradeStatus);
+            return true;
+        }
+
+        PaymentNotify notify = new PaymentNotify();
+        notify.setTradeNo(tradeNo);
+        notify.setTradeStatus(tradeStatus);
+        notify.setOutTradeNo(outTradeNo);
+        notify.setStatus(STATUS_PENDING);
+        notify.setAttempts(0);
+        notify.setCreatedAt(LocalDateTime.now());
+        try {
+            notify.setParams(objectMapper.writeValueAsString(params));
+            notifyMapper.insert(notify);
+        } catch (DuplicateKeyException e) {
+            seen.put(dedupKey, Boolean.TRUE);
+            increment(duplicateCounter);
+            log.info("重复的支付宝通知，已忽略: tradeNo={}, tradeStatus={}", tradeNo, tradeStatus);
+            return true;
+        } catch (Exception e) {
+            log.error("保存支付宝通知失败: tradeNo={}, tradeStatus={}", tradeNo, tradeStatus, e);
+            return false;
+        }
+        seen.put(dedupKey, Boolean.TRUE);
+
+        enqueue(notify);
+        return true;
+    }
+
+    /**
+     * 重新投递待处理的通知（线程池已满、处理失败或重启前未处理完的通知）
+     */
+    @Scheduled(fixedDelayString = "${zhk.payment.notify.redeliver-interval-ms:30000}")
+    public void redeliverPending() {
+        try {
+            LambdaQueryWrapper<PaymentNotify> wrapper = new LambdaQueryWrapper<>();
+            wrapper.eq(PaymentNotify::getStatus, STATUS_PENDING)
+                   .orderByAsc(PaymentNotify::getId)
+                   .last("LIMIT " + REDELIVER_BATCH_SIZE);
+            List<PaymentNotify> pending = notifyMapper.selectList(wrapper);
+            int delivered = 0;
+            for (PaymentNotify notify : pending) {
+                if (enqueue(notify)) {
+                    delivered++;
+                }
+            }
+            if (delivered > 0) {
+                log.info("重新投递待处理的支付宝通知: count={}", delivered);
+            }
+        } catch (Exception e) {
+            log.error("重新投递支付宝通知失败: error={}", e.getMessage(), e);
+        }
+    }
+
+    private boolean enqueue(PaymentNotify notify) {
+        if (!queued.add(notify.getId())) {
+            return false;
+        }
+        try {
+            executor.execute(() -> process(notify));
+            return true;
+        } catch (RejectedExecutionException e) {
+            queued.remove(notify.getId());
+            log.warn("支付宝通知处理队列已满，稍后重新投递: notifyId={}", notify.getId());
+            return false;
+        }
+    }
+
+    private void process(PaymentNotify notify) {
+        try {
+            alipayPaymentService.applyTradeStatus(notify.getOutTradeNo(), notify.getTradeStatus(), notify.getTradeNo());
+
+            LambdaUpdateWrapper<PaymentNotify> wrapper = new LambdaUpdateWrapper<>();
+            wrapper.set(PaymentNotify::getStatus, STATUS_DONE)
+                   .set(PaymentNotify::getProcessedAt, LocalDateTime.now())
+                   .eq(PaymentNotify::getId, notify.getId())
+                   .eq(PaymentNotify::getStatus, STATUS_PENDING);
+            notifyMapper.update(null, wrapper);
+
+            increment(processedCounter);
+            if (lagTimer != null && notify.getCreatedAt() != null) {
+                lagTimer.record(Duration.between(notify.getCreatedAt(), LocalDateTime.now()));
+            }
+        } catch (Exception e) {
+            increment(failedCounter);
+            int attempts = (notify.getAttempts() == null ? 0 : notify.getAttempts()) + 1;
+            notify.setAttempts(attempts);
+            boolean giveUp = attempts >= maxAttempts;
+            log.error("处理支付宝通知失败: notifyId={}, outTradeNo={}, attempts={}, giveUp={}",
+                    notify.getId(), notify.getOutTradeNo(), attempts, giveUp, e);
+            try {
+                LambdaUpdateWrapper<PaymentNotify> wrapper = new LambdaUpdateWrapper<>();
+                wrapper.set(PaymentNotify::getAttempts, attempts)
+                       .set(giveUp, PaymentNotify::getStatus, STATUS_FAILED)
+                       .eq(PaymentNotify::getId, notify.getId())
+                       .eq(PaymentNotify::getStatus, STATUS_PENDING);
+                notifyMapper.update(null, wrapper);
+            } catch (Exception ex) {
+                log.error("更新支付宝通知状态失败: notifyId={}, error={}", notify.getId(), ex.getMessage());
+            }
+        } finally {
+            queued.remove(notify.getId());
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -27,6 +27,23 @@ public interface AlipayPaymentService {
      */
     void handleNotify(Map<String, String> params);
 
+    /**
+     * 验证支付宝通知签名
+     *
+     * @param params 回调参数
+     * @return 签名是否有效
+     */
+    boolean verifyNotify(Map<String, String> params);
+
+    /**
+     * 按交易状态更新支付记录（幂等：重复调用只会生效一次）
+     *
+     * @param outTradeNo  商户订单号
+     * @param tradeStatus 支付宝交易状态
+     * @param tradeNo     支付宝交易号
+     */
+    void applyTradeStatus(String outTradeNo, String tradeStatus, String tradeNo);
+
     /**
      * 查询支付状态
      *
@@ -0,0 +1,117 @@
+package com.zhk.order.service;
+
+import com.zhk.order.config.AlipayProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.Charset;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * 支付宝通知验签
+ * 与 AlipaySignature.rsaCheckV1 的规则一致（去掉 sign、sign_type，其余参数按键排序后以 key=value&... 拼接），
+ * 但支付宝公钥只在启动时解析一次，每个线程复用已初始化的 Signature 实例，验签不再重复解析 X.509 公钥，
+ * 也不会修改传入的参数。公钥未配置或格式错误时验签一律失败。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlipaySignatureVerifier {
+
+    private final AlipayProperties alipayProperties;
+
+    private volatile PublicKey publicKey;
+    private volatile String algorithm;
+    private volatile Charset charset;
+
+    private final ThreadLocal<Signature> signatures = new ThreadLocal<>();
+
+    @PostConstruct
+    public void init() {
+        String key = alipayProperties.getAlipayPublicKey();
+        if (key == null || key.isBlank()) {
+            log.warn("支付宝公钥未配置，通知验签将全部失败");
+            return;
+        }
+        try {
+            String base64 = key.replace("-----BEGIN PUBLIC KEY-----", "")
+                    .replace("-----END PUBLIC KEY-----", "")
+                    .replaceAll("\\s", "");
+            publicKey = KeyFactory.getInstance("RSA")
+                    .generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(base64)));
+            algorithm = "RSA".equalsIgnoreCase(alipayProperties.getSignType()) ? "SHA1WithRSA" : "SHA256WithRSA";
+            charset = Charset.forName(alipayProperties.getCharset() == null ? "UTF-8" : alipayProperties.getCharset());
+            log.info("支付宝公钥加载完成: algorithm={}", algorithm);
+        } catch (Exception e) {
+            publicKey = null;
+            log.error("支付宝公钥解析失败，通知验签将全部失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 验证通知签名
+     *
+     * @param params 通知参数（不会被修改）
+     * @return 签名是否有效
+     */
+    public boolean verify(Map<String, String> params) {
+        PublicKey key = publicKey;
+        String sign = params.get("sign");
+        if (key == null || sign == null || sign.isEmpty()) {
+            return false;
+        }
+        try {
+            Signature signature = signatures.get();
+            if (signature == null) {
+                signature = Signature.getInstance(algorithm);
+                signature.initVerify(key);
+                signatures.set(signature);
+            }
+            // verify() 之后 Signature 回到 initVerify 后的状态，可以直接复用
+            signature.update(content(params).getBytes(charset));
+            return signature.verify(Base64.getDecoder().decode(sign));
+        } catch (Exception e) {
+            // 异常时丢弃当前线程的实例，避免残留的中间状态影响下一次验签
+            signatures.remove();
+            log.warn("支付宝通知验签异常: error={}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 待验签内容：去掉 sign、sign_type 后按键排序，以 key=value 用 & 连接
+     */
+    static String content(Map<String, String> params) {
+        String[] keys = new String[params.size()];
+        int count = 0;
+        int length = 0;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            String key = entry.getKey();
+            if ("sign".equals(key) || "sign_type".equals(key)) {
+                continue;
+            }
+            keys[count++] = key;
+            String value = entry.getValue();
+            length += key.length() + (value == null ? 4 : value.length()) + 2;
+        }
+        Arrays.sort(keys, 0, count);
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                content.append('&');
+            }
+            content.append(keys[i]).append('=').append(params.get(keys[i]));
+        }
+        return content.toString();
+    }
+}
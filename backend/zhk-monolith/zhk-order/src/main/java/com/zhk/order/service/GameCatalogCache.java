@@ -0,0 +1,197 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zhk.order.entity.Game;
+import com.zhk.order.mapper.OrderGameMapper;
+import com.zhk.order.util.RedisBroadcaster;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 游戏目录本地缓存
+ * 游戏表数据量小且极少变更，列表页、订单页只需 id -> 名称 的映射，不必每次查库。
+ * 缓存以不可变快照的形式保存（按游戏ID排序的 int 数组 + 对应实体数组），刷新时整体替换；
+ * 多节点之间通过 Redis 版本号 + 发布/订阅通知重新加载；各节点还会定时轮询版本号，
+ * 运维直接执行 INCR cache:game:version 或订阅消息丢失时也能在几秒内生效，Redis 不可用时依靠定时全量刷新兜底。
+ * 注意：返回的实体为共享对象，调用方不得修改。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GameCatalogCache {
+
+    private static final String VERSION_KEY = "cache:game:version";
+    private static final String CHANNEL = "cache:game:invalidate";
+
+    private final OrderGameMapper gameMapper;
+    private final RedisBroadcaster redisBroadcaster;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload(0L);
+        } catch (Exception e) {
+            // 启动时数据库不可用不应阻止应用启动，后续定时刷新会重试
+            log.error("初始化游戏目录缓存失败: {}", e.getMessage(), e);
+        }
+        redisBroadcaster.subscribe(CHANNEL, message -> {
+            long version = parseVersion(message);
+            if (version == 0L || version > snapshot.version) {
+                reload(version);
+            }
+        });
+    }
+
+    /**
+     * 根据ID获取游戏
+     *
+     * @param gameId 游戏ID
+     * @return 游戏，不存在时返回 null
+     */
+    public Game getGame(Integer gameId) {
+        if (gameId == null) {
+            return null;
+        }
+        Snapshot current = snapshot;
+        int index = Arrays.binarySearch(current.ids, gameId);
+        return index >= 0 ? current.games[index] : null;
+    }
+
+    /**
+     * 根据ID查找游戏名称
+     *
+     * @param gameId 游戏ID
+     * @return 游戏名称，缓存中不存在时返回 null
+     */
+    public String findGameName(Integer gameId) {
+        Game game = getGame(gameId);
+        return game != null ? game.getName() : null;
+    }
+
+    /**
+     * 根据ID获取游戏名称（用于展示）
+     *
+     * @param gameId 游戏ID
+     * @return 游戏名称，不存在时返回空字符串
+     */
+    public String getGameName(Integer gameId) {
+        String name = findGameName(gameId);
+        return name != null ? name : "";
+    }
+
+    /**
+     * 获取所有启用的游戏（按ID升序）
+     */
+    public List<Game> getEnabledGames() {
+        return snapshot.enabledGames;
+    }
+
+    /**
+     * 游戏数据变更后调用：本节点立即重新加载，并通知其他节点
+     */
+    public void invalidate() {
+        Long version = redisBroadcaster.incrementVersion(VERSION_KEY);
+        reload(version != null ? version : snapshot.version);
+        redisBroadcaster.publish(CHANNEL, version != null ? String.valueOf(version) : "0");
+    }
+
+    /**
+     * 轮询 Redis 版本号，高于本地快照时重新加载
+     * 只读取一个键，开销很小；Redis 不可用时跳过
+     */
+    @Scheduled(fixedDelayString = "${zhk.game.version-poll-interval-ms:5000}",
+            initialDelayString = "${zhk.game.version-poll-interval-ms:5000}")
+    public void pollVersion() {
+        Long version = redisBroadcaster.getVersion(VERSION_KEY);
+        if (version == null || version <= snapshot.version) {
+            return;
+        }
+        try {
+            reload(version);
+        } catch (Exception e) {
+            log.error("按版本号刷新游戏目录缓存失败: version={}, error={}", version, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定时全量刷新（兜底丢失的失效通知和直接改库的情况）
+     * 每10分钟执行一次
+     */
+    @Scheduled(fixedRate = 600000, initialDelay = 600000)
+    public void scheduledRefresh() {
+        try {
+            reload(snapshot.version);
+        } catch (Exception e) {
+            log.error("刷新游戏目录缓存失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从数据库加载并原子替换快照
+     */
+    private synchronized void reload(long version) {
+        LambdaQueryWrapper<Game> wrapper = new LambdaQueryWrapper<>();
+        wrapper.orderByAsc(Game::getId);
+        List<Game> games = gameMapper.selectList(wrapper);
+
+        int[] ids = new int[games.size()];
+        Game[] gameArray = new Game[games.size()];
+        List<Game> enabled = new ArrayList<>();
+        int count = 0;
+        for (Game game : games) {
+            if (game.getId() == null) {
+                continue;
+            }
+            ids[count] = game.getId();
+            gameArray[count] = game;
+            count++;
+            if (game.getStatus() != null && game.getStatus() == 1) {
+                enabled.add(game);
+            }
+        }
+
+        snapshot = new Snapshot(Math.max(version, snapshot.version),
+                Arrays.copyOf(ids, count), Arrays.copyOf(gameArray, count),
+                Collections.unmodifiableList(enabled));
+        log.info("游戏目录缓存已刷新: version={}, size={}", snapshot.version, count);
+    }
+
+    private long parseVersion(String message) {
+        try {
+            return Long.parseLong(message.trim());
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * 不可变快照
+     */
+    private static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(0L, new int[0], new Game[0], Collections.emptyList());
+
+        final long version;
+        final int[] ids;
+        final Game[] games;
+        final List<Game> enabledGames;
+
+        Snapshot(long version, int[] ids, Game[] games, List<Game> enabledGames) {
+            this.version = version;
+            this.ids = ids;
+            this.games = games;
+            this.enabledGames = enabledGames;
+        }
+    }
+}
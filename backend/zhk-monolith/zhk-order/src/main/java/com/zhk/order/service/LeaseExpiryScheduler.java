@@ -0,0 +1,169 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.mapper.LeaseOrderMapper;
+import com.zhk.order.util.TimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 租期到期调度器
+ * 基于内存时间轮在订单到期后 1 秒内触发自动关闭，替代每分钟全表扫描。
+ * 启动时从 lease_order 加载所有租赁中的订单；支付成功、续租时排期，还号、取消时撤销。
+ * 到期时会重新读取订单确认状态和到期时间，因此旧排期（续租前的时间、已关闭的订单）触发时会被忽略。
+ * 多节点部署时各节点只感知本节点的变更，TimerService 的低频对账任务负责兜底。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LeaseExpiryScheduler {
+
+    /**
+     * 时间轮精度（毫秒）
+     */
+    private static final long TICK_MILLIS = 200L;
+
+    private final LeaseOrderMapper orderMapper;
+    private final ObjectProvider<TimerService> timerServiceProvider; // 延迟获取，避免与 TimerService 循环依赖
+
+    /**
+     * 订单ID -> 当前有效的到期时间（毫秒），时间轮中到期时间不一致的条目视为已失效
+     */
+    private final ConcurrentHashMap<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+    private TimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        wheel = new TimingWheel(TICK_MILLIS, System.currentTimeMillis());
+        try {
+            LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(LeaseOrder::getId, LeaseOrder::getEndTime)
+                   .eq(LeaseOrder::getStatus, "leasing");
+            List<LeaseOrder> orders = orderMapper.selectList(wrapper);
+            for (LeaseOrder order : orders) {
+                schedule(order.getId(), order.getEndTime());
+            }
+            log.info("租期时间轮初始化完成: leasingOrders={}", orders.size());
+        } catch (Exception e) {
+            // 加载失败不阻止启动，对账任务会补齐
+            log.error("加载租赁中订单失败: {}", e.getMessage(), e);
+        }
+
+        ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "lease-expiry-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    /**
+     * 排期（重复调用时以最后一次的到期时间为准）
+     *
+     * @param orderId 订单ID
+     * @param endTime 到期时间
+     */
+    public void schedule(Long orderId, LocalDateTime endTime) {
+        if (orderId == null || endTime == null) {
+            return;
+        }
+        long deadline = endTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Long previous = deadlines.put(orderId, deadline);
+        if (previous != null && previous == deadline) {
+            return;
+        }
+        synchronized (wheel) {
+            wheel.add(orderId, deadline);
+        }
+    }
+
+    /**
+     * 撤销排期（时间轮中的条目到期时会被忽略）
+     *
+     * @param orderId 订单ID
+     */
+    public void cancel(Long orderId) {
+        if (orderId != null) {
+            deadlines.remove(orderId);
+        }
+    }
+
+    /**
+     * 当前排期中的订单数
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    private void tick() {
+        try {
+            List<Long> expired = new ArrayList<>();
+            synchronized (wheel) {
+                wheel.advance(System.currentTimeMillis(), (orderId, deadline) -> {
+                    if (deadlines.remove(orderId, deadline)) {
+                        expired.add(orderId);
+                    }
+                });
+            }
+            if (expired.isEmpty()) {
+                return;
+            }
+            // 同一时刻大量到期（如包夜订单 08:00 集中结束）时走批量关闭
+            Set<Long> closed = timerServiceProvider.getObject().bulkCloseOrders(expired);
+            for (Long orderId : expired) {
+                if (!closed.contains(orderId)) {
+                    fire(orderId);
+                }
+            }
+        } catch (Exception e) {
+            // 吞掉异常，否则定时线程会停止调度
+            log.error("租期时间轮推进异常: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 关闭单个到期订单：已不在租赁中则忽略，已在其他节点续租则重新排期
+     */
+    private void fire(Long orderId) {
+        try {
+            LeaseOrder order = orderMapper.selectById(orderId);
+            if (order == null || !"leasing".equals(order.getStatus())) {
+                return;
+            }
+            if (order.getEndTime() != null && order.getEndTime().isAfter(LocalDateTime.now())) {
+                // 订单已在其他节点续租，按新的到期时间重新排期
+                schedule(orderId, order.getEndTime());
+                return;
+            }
+            timerServiceProvider.getObject().autoCloseOrder(order);
+        } catch (Exception e) {
+            log.error("到期自动关闭订单失败，等待对账任务重试: orderId={}, error={}", orderId, e.getMessage(), e);
+        }
+    }
+}
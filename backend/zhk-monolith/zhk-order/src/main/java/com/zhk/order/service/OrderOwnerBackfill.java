@@ -0,0 +1,137 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.zhk.order.entity.Account;
+import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.mapper.LeaseOrderMapper;
+import com.zhk.order.mapper.OrderAccountMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 订单号主ID回填任务
+ * 新订单创建时写入 lease_order.owner_uid，存量订单由这里按 id 顺序分批回填：
+ * 1. 每批查出 owner_uid 为空的订单，一次查询对应账号的号主，按号主分组后以 owner_uid IS NULL 为条件批量更新，
+ *    多个节点同时回填也不会相互覆盖；
+ * 2. 账号已不存在的订单跳过，保持为空；
+ * 3. 扫描到末尾后标记为已完成，商家订单查询从此只按 owner_uid 过滤；完成前兼容按账号ID查询。
+ * 启动时执行一次，之后每隔 zhk.order.owner-backfill.interval-ms 再检查一次（滚动发布期间旧版本节点创建的订单）。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class OrderOwnerBackfill {
+
+    private final LeaseOrderMapper orderMapper;
+    private final OrderAccountMapper accountMapper;
+
+    @Value("${zhk.order.owner-backfill.batch-size:500}")
+    private int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean completed;
+
+    public OrderOwnerBackfill(LeaseOrderMapper orderMapper, OrderAccountMapper accountMapper) {
+        this.orderMapper = orderMapper;
+        this.accountMapper = accountMapper;
+    }
+
+    /**
+     * 存量订单是否已全部回填
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * 定时回填
+     */
+    @Scheduled(fixedDelayString = "${zhk.order.owner-backfill.interval-ms:3600000}")
+    public void backfill() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            int[] result = backfillOnce();
+            completed = true;
+            if (result[0] > 0) {
+                log.info("订单号主ID回填完成: scanned={}, updated={}, costMs={}",
+                        result[0], result[1], System.currentTimeMillis() - start);
+            }
+        } catch (Exception e) {
+            log.error("订单号主ID回填失败: error={}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 执行一轮回填
+     *
+     * @return [扫描数, 更新数]
+     */
+    private int[] backfillOnce() {
+        int pageSize = Math.max(1, batchSize);
+        int scanned = 0;
+        int updated = 0;
+        Long afterId = null;
+        while (true) {
+            LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(LeaseOrder::getId, LeaseOrder::getAccountId)
+                   .isNull(LeaseOrder::getOwnerUid)
+                   .gt(afterId != null, LeaseOrder::getId, afterId)
+                   .orderByAsc(LeaseOrder::getId)
+                   .last("LIMIT " + pageSize);
+            List<LeaseOrder> orders = orderMapper.selectList(wrapper);
+            if (orders.isEmpty()) {
+                break;
+            }
+            scanned += orders.size();
+            updated += fill(orders);
+            if (orders.size() < pageSize) {
+                break;
+            }
+            afterId = orders.get(orders.size() - 1).getId();
+        }
+        return new int[]{scanned, updated};
+    }
+
+    private int fill(List<LeaseOrder> orders) {
+        List<Long> accountIds = orders.stream().map(LeaseOrder::getAccountId).distinct().toList();
+        Map<Long, Long> ownerByAccount = new HashMap<>();
+        for (Account account : accountMapper.selectList(new LambdaQueryWrapper<Account>()
+                .select(Account::getId, Account::getOwnerUid)
+                .in(Account::getId, accountIds))) {
+            ownerByAccount.put(account.getId(), account.getOwnerUid());
+        }
+
+        Map<Long, List<Long>> ordersByOwner = new HashMap<>();
+        for (LeaseOrder order : orders) {
+            Long ownerUid = ownerByAccount.get(order.getAccountId());
+            if (ownerUid != null) {
+                ordersByOwner.computeIfAbsent(ownerUid, k -> new ArrayList<>()).add(order.getId());
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<Long, List<Long>> entry : ordersByOwner.entrySet()) {
+            LambdaUpdateWrapper<LeaseOrder> wrapper = new LambdaUpdateWrapper<>();
+            wrapper.set(LeaseOrder::getOwnerUid, entry.getKey())
+                   .in(LeaseOrder::getId, entry.getValue())
+                   .isNull(LeaseOrder::getOwnerUid);
+            updated += orderMapper.update(null, wrapper);
+        }
+        return updated;
+    }
+}
@@ -1,10 +1,13 @@
 package com.zhk.order.service;
 
+import com.zhk.common.core.page.CursorPage;
 import com.zhk.order.dto.CreateOrderDTO;
+import com.zhk.order.dto.OrderPageVO;
 import com.zhk.order.dto.OrderVO;
 import com.zhk.order.dto.RenewOrderDTO;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 订单服务接口
@@ -22,11 +25,30 @@ public interface OrderService {
      */
     List<OrderVO> getOrderList(Long userId, String role, String status, Integer page, Integer pageSize);
 
+    /**
+     * 查询订单列表（游标分页，按创建时间倒序）
+     *
+     * @param cursor 上一页返回的游标，第一页传空字符串
+     */
+    CursorPage<OrderVO> getOrderListByCursor(Long userId, String role, String status, String cursor, Integer pageSize);
+
     /**
      * 获取订单总数
      */
     Long getOrderCount(Long userId, String role, String status);
 
+    /**
+     * 查询订单列表，同时返回总数和各状态订单数（各状态订单数按用户和角色缓存）
+     */
+    OrderPageVO getOrderPage(Long userId, String role, String status, Integer page, Integer pageSize);
+
+    /**
+     * 获取各状态订单数
+     *
+     * @return 后端状态 -> 订单数
+     */
+    Map<String, Long> getOrderStatusCounts(Long userId, String role);
+
     /**
      * 获取订单详情
      */
@@ -43,8 +65,15 @@ public interface OrderService {
     OrderVO returnAccount(Long orderId, Long userId);
 
     /**
-     * 取消订单
+     * 取消订单（用户主动取消）
      */
     OrderVO cancelOrder(Long orderId, Long userId);
+
+    /**
+     * 取消订单
+     *
+     * @param userInitiated 是否为用户主动取消；超时未支付的自动取消传 false，不计入风控的取消次数
+     */
+    OrderVO cancelOrder(Long orderId, Long userId, boolean userInitiated);
 }
 
@@ -0,0 +1,160 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.zhk.common.web.BusinessException;
+import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.event.OrderStatusChangedEvent;
+import com.zhk.order.mapper.LeaseOrderMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 订单状态机
+ * 所有订单状态变更统一走这里，以 CAS 方式更新：
+ * UPDATE lease_order SET status = ? WHERE id = ? AND status = ?
+ * 只更新变化的列，返回是否流转成功；并发场景下（支付回调、定时关闭、用户操作）只有一方会成功，无需加锁。
+ * 流转成功后发布 OrderStatusChangedEvent。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStateMachine {
+
+    /**
+     * 允许的状态流转：当前状态 -> 目标状态
+     */
+    private static final Map<String, Set<String>> TRANSITIONS = Map.of(
+            "paying", Set.of("leasing", "cancelled", "appeal"),
+            "leasing", Set.of("closed", "cancelled", "appeal"),
+            "closed", Set.of("appeal"),
+            "cancelled", Set.of("appeal"),
+            "appeal", Set.of("closed")
+    );
+
+    private final LeaseOrderMapper orderMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 是否允许从 fromStatus 流转到 toStatus
+     */
+    public boolean canTransition(String fromStatus, String toStatus) {
+        Set<String> targets = TRANSITIONS.get(fromStatus);
+        return targets != null && targets.contains(toStatus);
+    }
+
+    /**
+     * 状态流转
+     *
+     * @param order      订单（至少包含 id、tenantUid、ownerUid）
+     * @param fromStatus 期望的当前状态
+     * @param toStatus   目标状态
+     * @return 是否流转成功（false 表示状态已被其他操作修改）
+     */
+    public boolean transition(LeaseOrder order, String fromStatus, String toStatus) {
+        return transition(order, fromStatus, toStatus, null);
+    }
+
+    /**
+     * 状态流转，同时记录实际结束时间
+     *
+     * @param order         订单（至少包含 id、tenantUid、ownerUid）
+     * @param fromStatus    期望的当前状态
+     * @param toStatus      目标状态
+     * @param actualEndTime 实际结束时间，为 null 时不更新
+     * @return 是否流转成功（false 表示状态已被其他操作修改）
+     */
+    public boolean transition(LeaseOrder order, String fromStatus, String toStatus, LocalDateTime actualEndTime) {
+        Long orderId = order.getId();
+        if (!canTransition(fromStatus, toStatus)) {
+            throw new BusinessException(400, "订单状态不允许从 " + fromStatus + " 变更为 " + toStatus);
+        }
+
+        LambdaUpdateWrapper<LeaseOrder> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(LeaseOrder::getStatus, toStatus);
+        if (actualEndTime != null) {
+            wrapper.set(LeaseOrder::getActualEndTime, actualEndTime);
+        }
+        wrapper.eq(LeaseOrder::getId, orderId)
+               .eq(LeaseOrder::getStatus, fromStatus);
+
+        boolean success = orderMapper.update(null, wrapper) > 0;
+        if (success) {
+            log.info("订单状态流转: orderId={}, {} -> {}", orderId, fromStatus, toStatus);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    orderId, order.getTenantUid(), order.getOwnerUid(), fromStatus, toStatus));
+        } else {
+            log.info("订单状态流转失败，状态已被修改: orderId={}, expected={}, target={}", orderId, fromStatus, toStatus);
+        }
+        return success;
+    }
+
+    /**
+     * 批量状态流转（调用方需已锁定这些订单，例如 SELECT ... FOR UPDATE）
+     * 更新的行数与订单数不一致时说明有订单不处于 fromStatus，抛出异常由调用方回滚事务，不发布任何事件
+     *
+     * @param orders        订单（至少包含 id、tenantUid、ownerUid，不能重复）
+     * @param fromStatus    期望的当前状态
+     * @param toStatus      目标状态
+     * @param actualEndTime 实际结束时间，为 null 时不更新
+     * @return 更新的行数
+     */
+    public int transitionBatch(Collection<LeaseOrder> orders, String fromStatus, String toStatus, LocalDateTime actualEndTime) {
+        if (!canTransition(fromStatus, toStatus)) {
+            throw new BusinessException(400, "订单状态不允许从 " + fromStatus + " 变更为 " + toStatus);
+        }
+        if (orders == null || orders.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = orders.stream().map(LeaseOrder::getId).toList();
+
+        LambdaUpdateWrapper<LeaseOrder> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(LeaseOrder::getStatus, toStatus);
+        if (actualEndTime != null) {
+            wrapper.set(LeaseOrder::getActualEndTime, actualEndTime);
+        }
+        wrapper.in(LeaseOrder::getId, orderIds)
+               .eq(LeaseOrder::getStatus, fromStatus);
+
+        int rows = orderMapper.update(null, wrapper);
+        if (rows != orderIds.size()) {
+            log.warn("批量状态流转的订单状态不一致: expected={}, updated={}, {} -> {}",
+                    orderIds.size(), rows, fromStatus, toStatus);
+            throw new BusinessException(409, "订单状态已变更，请刷新后重试");
+        }
+        for (LeaseOrder order : orders) {
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(
+                    order.getId(), order.getTenantUid(), order.getOwnerUid(), fromStatus, toStatus));
+        }
+        return rows;
+    }
+
+    /**
+     * 续租：以原到期时间作为版本号更新到期时间和金额
+     *
+     * @param orderId         订单ID
+     * @param expectedEndTime 读取到的原到期时间
+     * @param newEndTime      新的到期时间
+     * @param newAmount       新的订单金额
+     * @return 是否更新成功（false 表示订单已不在租赁中或已被并发续租）
+     */
+    public boolean extend(Long orderId, LocalDateTime expectedEndTime, LocalDateTime newEndTime, BigDecimal newAmount) {
+        LambdaUpdateWrapper<LeaseOrder> wrapper = new LambdaUpdateWrapper<>();
+        wrapper.set(LeaseOrder::getEndTime, newEndTime)
+               .set(LeaseOrder::getAmount, newAmount)
+               .eq(LeaseOrder::getId, orderId)
+               .eq(LeaseOrder::getStatus, "leasing")
+               .eq(LeaseOrder::getEndTime, expectedEndTime);
+        return orderMapper.update(null, wrapper) > 0;
+    }
+}
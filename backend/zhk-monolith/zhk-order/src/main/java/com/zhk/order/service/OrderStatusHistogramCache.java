@@ -0,0 +1,138 @@
+package com.zhk.order.service;
+
+import com.zhk.common.core.cache.ExpiringLruCache;
+import com.zhk.order.event.OrderCreatedEvent;
+import com.zhk.order.event.OrderStatusChangedEvent;
+import com.zhk.order.util.RedisBroadcaster;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 订单状态分布缓存
+ * 按 (角色, 用户ID) 缓存订单列表页的各状态订单数，订单列表的总数也由它得出，翻页时不再重复 COUNT：
+ * 1. 只缓存租客（TENANT）和商家（OWNER）视角，其他角色每次查询；
+ * 2. 订单创建、状态流转在事务提交后按事件携带的租客和号主ID清除两条缓存，并通过 Redis 通知其他节点，不回查数据库；
+ *    存量订单回填号主ID前事件中号主ID为空，此时清空全部缓存；
+ * 3. 清除与加载并发时，加载结果不写入缓存，避免旧数据覆盖刚清除的条目；条目最长保留 5 分钟。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderStatusHistogramCache {
+
+    private static final int MAX_ENTRIES = 10000;
+    private static final long TTL_MILLIS = 5 * 60 * 1000L; // 5分钟
+    private static final String CHANNEL = "cache:order-status-histogram:invalidate";
+    private static final String ALL = "*";
+
+    private final RedisBroadcaster redisBroadcaster;
+
+    private final ExpiringLruCache<String, Map<String, Long>> cache = new ExpiringLruCache<>(MAX_ENTRIES, TTL_MILLIS);
+
+    /**
+     * 清除次数，加载前后不一致说明期间有清除
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisBroadcaster.subscribe(CHANNEL, message -> {
+            for (String key : message.split(",")) {
+                key = key.trim();
+                if (ALL.equals(key)) {
+                    invalidations.incrementAndGet();
+                    cache.clear();
+                } else {
+                    evictLocal(key);
+                }
+            }
+        });
+    }
+
+    /**
+     * 获取状态分布
+     *
+     * @param role   角色
+     * @param userId 用户ID
+     * @param loader 缓存未命中时的查询
+     * @return 后端状态 -> 订单数
+     */
+    public Map<String, Long> get(String role, Long userId, Supplier<Map<String, Long>> loader) {
+        if (!"TENANT".equals(role) && !"OWNER".equals(role)) {
+            return loader.get();
+        }
+        String key = key(role, userId);
+        Map<String, Long> histogram = cache.get(key);
+        if (histogram != null) {
+            return histogram;
+        }
+        long version = invalidations.get();
+        histogram = Map.copyOf(loader.get());
+        if (invalidations.get() == version) {
+            cache.put(key, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * 新订单：清除租客和号主的缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        invalidate(event.getUserId(), event.getOwnerUid());
+    }
+
+    /**
+     * 订单状态流转：清除租客和号主的缓存
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOwnerUid() == null) {
+            // 存量订单尚未回填号主ID，无法定位号主的缓存
+            invalidations.incrementAndGet();
+            cache.clear();
+            redisBroadcaster.publish(CHANNEL, ALL);
+            log.info("订单缺少号主ID，清空订单状态分布缓存: orderId={}", event.getOrderId());
+            return;
+        }
+        invalidate(event.getTenantUid(), event.getOwnerUid());
+    }
+
+    private void invalidate(Long tenantUid, Long ownerUid) {
+        StringBuilder message = new StringBuilder();
+        if (tenantUid != null) {
+            String key = key("TENANT", tenantUid);
+            evictLocal(key);
+            message.append(key);
+        }
+        if (ownerUid != null) {
+            String key = key("OWNER", ownerUid);
+            evictLocal(key);
+            if (message.length() > 0) {
+                message.append(',');
+            }
+            message.append(key);
+        }
+        if (message.length() > 0) {
+            redisBroadcaster.publish(CHANNEL, message.toString());
+        }
+    }
+
+    private void evictLocal(String key) {
+        invalidations.incrementAndGet();
+        cache.remove(key);
+    }
+
+    private static String key(String role, Long userId) {
+        return role + ":" + userId;
+    }
+}
@@ -0,0 +1,254 @@
+package com.zhk.order.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zhk.common.core.page.SeekPagination;
+import com.zhk.order.dto.PaymentVO;
+import com.zhk.order.entity.PaymentRecord;
+import com.zhk.order.mapper.PaymentRecordMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 支付对账任务
+ * 支付宝异步通知丢失时，订单会一直停留在待支付，直到超时被取消。这里定期主动查询支付宝：
+ * 1. 按 idx_status_time (status, created_at) 的顺序，以 (created_at, id) 游标分批扫描
+ *    创建时间在 [now - max-age, now - min-age] 之间、仍为 pending 的支付宝支付记录；
+ * 2. 查询并发数不超过 zhk.payment.reconcile.concurrency，每秒查询数不超过 zhk.payment.reconcile.rate-per-second；
+ * 3. 查询结果通过 {@link AlipayPaymentService#applyTradeStatus} 生效，与异步通知走同一条幂等路径，
+ *    通知和对账同时到达也只会处理一次；
+ * 4. 每轮结束输出扫描数、查询数、成功、关闭、未变化、异常数和吞吐量。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class PaymentReconciler {
+
+    private final PaymentRecordMapper paymentMapper;
+    private final AlipayPaymentService alipayPaymentService;
+
+    @Value("${zhk.payment.reconcile.enabled:true}")
+    private boolean enabled;
+
+    @Value("${zhk.payment.reconcile.min-age-seconds:120}")
+    private long minAgeSeconds;
+
+    @Value("${zhk.payment.reconcile.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    @Value("${zhk.payment.reconcile.batch-size:200}")
+    private int batchSize;
+
+    @Value("${zhk.payment.reconcile.concurrency:4}")
+    private int concurrency;
+
+    @Value("${zhk.payment.reconcile.rate-per-second:20}")
+    private int ratePerSecond;
+
+    private ExecutorService queryExecutor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PaymentReconciler(PaymentRecordMapper paymentMapper, AlipayPaymentService alipayPaymentService) {
+        this.paymentMapper = paymentMapper;
+        this.alipayPaymentService = alipayPaymentService;
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        queryExecutor = Executors.newFixedThreadPool(Math.max(1, concurrency), r -> {
+            Thread thread = new Thread(r, "payment-reconcile-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        queryExecutor.shutdownNow();
+    }
+
+    /**
+     * 定时对账
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${zhk.payment.reconcile.interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            RunStats stats = reconcileOnce();
+            if (stats.scanned > 0) {
+                log.info("支付对账完成: scanned={}, queried={}, succeeded={}, closed={}, unchanged={}, errors={}, costMs={}, qps={}",
+                        stats.scanned, stats.queried.get(), stats.succeeded.get(), stats.closed.get(),
+                        stats.unchanged.get(), stats.errors.get(), stats.elapsedMillis,
+                        String.format("%.1f", stats.queriesPerSecond()));
+            }
+        } catch (Exception e) {
+            log.error("支付对账失败: error={}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 执行一轮对账
+     *
+     * @return 本轮统计
+     */
+    public RunStats reconcileOnce() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minusMinutes(maxAgeMinutes);
+        LocalDateTime to = now.minusSeconds(minAgeSeconds);
+
+        RunStats stats = new RunStats();
+        Semaphore permits = new Semaphore(Math.max(1, concurrency));
+        long intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        long nextQueryAt = System.nanoTime();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        int pageSize = Math.max(1, batchSize);
+        while (true) {
+            List<PaymentRecord> rows = selectPending(from, to, afterCreatedAt, afterId, pageSize);
+            int count = Math.min(rows.size(), pageSize);
+
+            for (int i = 0; i < count; i++) {
+                PaymentRecord payment = rows.get(i);
+                stats.scanned++;
+
+                // 限速：两次查询的开始时间至少间隔 intervalNanos
+                long wait = nextQueryAt - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextQueryAt = Math.max(nextQueryAt, System.nanoTime()) + intervalNanos;
+
+                permits.acquireUninterruptibly();
+                futures.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        reconcilePayment(payment.getTransactionId(), stats);
+                    } finally {
+                        permits.release();
+                    }
+                }, queryExecutor));
+            }
+
+            if (rows.size() <= pageSize) {
+                break;
+            }
+            PaymentRecord last = rows.get(count - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+        }
+
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        stats.elapsedMillis = System.currentTimeMillis() - start;
+        return stats;
+    }
+
+    /**
+     * 按 (created_at, id) 游标查询一页待对账的支付记录
+     *
+     * @return 最多 pageSize + 1 条，多取的一条用于判断是否还有下一页
+     */
+    List<PaymentRecord> selectPending(LocalDateTime from, LocalDateTime to,
+                                      LocalDateTime afterCreatedAt, Long afterId, int pageSize) {
+        LambdaQueryWrapper<PaymentRecord> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(PaymentRecord::getId, PaymentRecord::getTransactionId, PaymentRecord::getCreatedAt)
+               .eq(PaymentRecord::getStatus, "pending")
+               .ge(PaymentRecord::getCreatedAt, from)
+               .le(PaymentRecord::getCreatedAt, to)
+               .eq(PaymentRecord::getPaymentType, "alipay");
+        SeekPagination.seek(wrapper, PaymentRecord::getCreatedAt, PaymentRecord::getId,
+                afterCreatedAt, afterId, false, pageSize);
+        return paymentMapper.selectList(wrapper);
+    }
+
+    private void reconcilePayment(String outTradeNo, RunStats stats) {
+        try {
+            stats.queried.incrementAndGet();
+            PaymentVO result = alipayPaymentService.queryPaymentStatus(outTradeNo);
+            String status = result == null ? null : result.getStatus();
+            if ("success".equals(status)) {
+                alipayPaymentService.applyTradeStatus(outTradeNo, "TRADE_SUCCESS", null);
+                stats.succeeded.incrementAndGet();
+                log.info("对账发现已支付的订单: outTradeNo={}", outTradeNo);
+            } else if ("failed".equals(status)) {
+                alipayPaymentService.applyTradeStatus(outTradeNo, "TRADE_CLOSED", null);
+                stats.closed.incrementAndGet();
+            } else {
+                stats.unchanged.incrementAndGet();
+            }
+        } catch (Exception e) {
+            stats.errors.incrementAndGet();
+            log.warn("支付对账查询失败: outTradeNo={}, error={}", outTradeNo, e.getMessage());
+        }
+    }
+
+    /**
+     * 单轮对账统计
+     */
+    public static final class RunStats {
+        private int scanned;
+        private final AtomicInteger queried = new AtomicInteger();
+        private final AtomicInteger succeeded = new AtomicInteger();
+        private final AtomicInteger closed = new AtomicInteger();
+        private final AtomicInteger unchanged = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private long elapsedMillis;
+
+        public int getScanned() {
+            return scanned;
+        }
+
+        public int getQueried() {
+            return queried.get();
+        }
+
+        public int getSucceeded() {
+            return succeeded.get();
+        }
+
+        public int getClosed() {
+            return closed.get();
+        }
+
+        public int getUnchanged() {
+            return unchanged.get();
+        }
+
+        public int getErrors() {
+            return errors.get();
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * 每秒查询数
+         */
+        public double queriesPerSecond() {
+            return elapsedMillis == 0 ? 0 : queried.get() * 1000.0 / elapsedMillis;
+        }
+    }
+}
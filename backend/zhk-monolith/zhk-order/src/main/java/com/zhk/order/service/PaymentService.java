@@ -2,6 +2,7 @@ package com.zhk.order.service;
 
 import com.zhk.order.dto.CreatePaymentDTO;
 import com.zhk.order.dto.PaymentVO;
+import com.zhk.order.entity.PaymentRecord;
 
 /**
  * 支付服务接口
@@ -21,7 +22,16 @@ public interface PaymentService {
 
     /**
      * 支付成功回调（更新订单状态）
+     *
+     * @return 是否由本次调用更新为成功（已经成功的支付返回 false，不重复处理）
      */
-    void onPaymentSuccess(Long paymentId);
+    boolean onPaymentSuccess(Long paymentId);
+
+    /**
+     * 支付成功回调（调用方已读取支付记录时使用，避免重复查询）
+     *
+     * @return 是否由本次调用更新为成功（已经成功的支付返回 false，不重复处理）
+     */
+    boolean onPaymentSuccess(PaymentRecord payment);
 }
 
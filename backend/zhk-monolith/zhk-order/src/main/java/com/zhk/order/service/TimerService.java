@@ -1,20 +1,29 @@
 package com.zhk.order.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.zhk.order.entity.LeaseOrder;
 import com.zhk.order.entity.Account;
 import com.zhk.order.entity.Appeal;
+import com.zhk.order.event.AccountStatusChangedEvent;
 import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.order.mapper.OrderAccountMapper;
 import com.zhk.order.mapper.AppealMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * 定时任务服务
@@ -31,44 +40,201 @@ public class TimerService {
     private final OrderAccountMapper accountMapper;
     private final AppealMapper appealMapper;
     private final OrderService orderService;
+    private final LeaseExpiryScheduler leaseExpiryScheduler;
+    private final OrderStateMachine orderStateMachine;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * 定时任务：检查并关闭到期的订单
-     * 每分钟执行一次
+     * 批量关闭时每块处理的订单数
+     */
+    @Value("${zhk.order.expire-batch-size:200}")
+    private int expireBatchSize;
+
+    /**
+     * 定时任务：到期订单对账
+     * 到期关闭由 LeaseExpiryScheduler 实时触发，这里只做低频兜底：
+     * 1. 关闭遗漏的到期订单（节点宕机、时间轮触发失败等）
+     * 2. 把下个周期内到期的订单补充排期到本节点时间轮（其他节点创建或续租的订单）
+     * 每10分钟执行一次
      */
-    @Scheduled(fixedRate = 60000) // 60秒 = 1分钟
+    @Scheduled(fixedRate = 600000, initialDelay = 600000) // 10分钟，启动时由时间轮加载
     public void checkExpiredOrders() {
         try {
-            log.debug("开始检查到期订单...");
-            
-            // 查询所有租赁中且已到期的订单
-            LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(LeaseOrder::getStatus, "leasing")
-                   .le(LeaseOrder::getEndTime, LocalDateTime.now());
-            
-            List<LeaseOrder> expiredOrders = orderMapper.selectList(wrapper);
-            
-            if (expiredOrders.isEmpty()) {
-                log.debug("没有到期的订单");
-                return;
-            }
-            
-            log.info("发现 {} 个到期订单，开始自动关闭", expiredOrders.size());
+            log.debug("开始到期订单对账...");
+            LocalDateTime now = LocalDateTime.now();
             
-            for (LeaseOrder order : expiredOrders) {
+            // 按ID分块关闭遗漏的到期订单
+            int closed = 0;
+            int chunks = 0;
+            long startNanos = System.nanoTime();
+            Long lastId = 0L;
+            while (true) {
+                LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
+                wrapper.select(LeaseOrder::getId)
+                       .eq(LeaseOrder::getStatus, "leasing")
+                       .le(LeaseOrder::getEndTime, now)
+                       .gt(LeaseOrder::getId, lastId)
+                       .orderByAsc(LeaseOrder::getId)
+                       .last("LIMIT " + expireBatchSize);
+                List<LeaseOrder> expiredOrders = orderMapper.selectList(wrapper);
+                if (expiredOrders.isEmpty()) {
+                    break;
+                }
+                List<Long> orderIds = new ArrayList<>(expiredOrders.size());
+                for (LeaseOrder order : expiredOrders) {
+                    orderIds.add(order.getId());
+                }
+                lastId = orderIds.get(orderIds.size() - 1);
                 try {
-                    autoCloseOrder(order);
+                    closed += closeChunk(orderIds, now).size();
                 } catch (Exception e) {
-                    log.error("自动关闭订单失败: orderId={}, error={}", order.getId(), e.getMessage(), e);
+                    log.error("批量关闭到期订单失败: fromId={}, toId={}, error={}",
+                            orderIds.get(0), lastId, e.getMessage(), e);
+                }
+                chunks++;
+                if (expiredOrders.size() < expireBatchSize) {
+                    break;
                 }
             }
+            if (closed > 0) {
+                logThroughput("对账关闭遗漏的到期订单", closed, chunks, startNanos);
+            }
+            
+            // 补充排期下个周期内到期的订单
+            LambdaQueryWrapper<LeaseOrder> upcomingWrapper = new LambdaQueryWrapper<>();
+            upcomingWrapper.select(LeaseOrder::getId, LeaseOrder::getEndTime)
+                           .eq(LeaseOrder::getStatus, "leasing")
+                           .gt(LeaseOrder::getEndTime, now)
+                           .le(LeaseOrder::getEndTime, now.plusMinutes(20));
+            List<LeaseOrder> upcomingOrders = orderMapper.selectList(upcomingWrapper);
+            for (LeaseOrder order : upcomingOrders) {
+                leaseExpiryScheduler.schedule(order.getId(), order.getEndTime());
+            }
             
-            log.info("订单到期检查完成，处理了 {} 个订单", expiredOrders.size());
+            log.info("到期订单对账完成: closed={}, scheduled={}, pending={}",
+                    closed, upcomingOrders.size(), leaseExpiryScheduler.size());
         } catch (Exception e) {
-            log.error("检查到期订单时发生异常: {}", e.getMessage(), e);
+            log.error("到期订单对账时发生异常: {}", e.getMessage(), e);
         }
     }
 
+    /**
+     * 批量关闭到期订单
+     * 按 expireBatchSize 分块，每块一个事务，只关闭仍处于租赁中且已到期的订单
+     *
+     * @param orderIds 候选订单ID
+     * @return 实际关闭的订单ID
+     */
+    public Set<Long> bulkCloseOrders(List<Long> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        Set<Long> closedIds = new HashSet<>();
+        int chunks = 0;
+        for (int from = 0; from < orderIds.size(); from += expireBatchSize) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + expireBatchSize, orderIds.size()));
+            try {
+                closedIds.addAll(closeChunk(chunk, now));
+            } catch (Exception e) {
+                log.error("批量关闭到期订单失败: size={}, error={}", chunk.size(), e.getMessage(), e);
+            }
+            chunks++;
+        }
+        logThroughput("批量关闭到期订单", closedIds.size(), chunks, startNanos);
+        return closedIds;
+    }
+
+    /**
+     * 在一个事务内关闭一块到期订单：
+     * 1. 锁定仍处于租赁中且已到期的订单
+     * 2. 一条带状态条件的 UPDATE 关闭这些订单
+     * 3. 一次查询找出存在申诉记录的订单
+     * 4. 锁定没有申诉的订单对应的账号，一条 UPDATE 上架其中未上架的账号，并逐个发布账号状态变更事件
+     *
+     * @return 本块实际关闭的订单ID
+     */
+    private Set<Long> closeChunk(List<Long> orderIds, LocalDateTime now) {
+        Set<Long> closedIds = transactionTemplate.execute(status -> {
+            LambdaQueryWrapper<LeaseOrder> lockWrapper = new LambdaQueryWrapper<>();
+            lockWrapper.select(LeaseOrder::getId, LeaseOrder::getAccountId,
+                               LeaseOrder::getTenantUid, LeaseOrder::getOwnerUid)
+                       .in(LeaseOrder::getId, orderIds)
+                       .eq(LeaseOrder::getStatus, "leasing")
+                       .le(LeaseOrder::getEndTime, now)
+                       .last("FOR UPDATE");
+            List<LeaseOrder> orders = orderMapper.selectList(lockWrapper);
+            if (orders.isEmpty()) {
+                return Collections.<Long>emptySet();
+            }
+            Set<Long> ids = new HashSet<>();
+            for (LeaseOrder order : orders) {
+                ids.add(order.getId());
+            }
+
+            // 关闭订单
+            orderStateMachine.transitionBatch(orders, "leasing", "closed", LocalDateTime.now());
+
+            // 有申诉记录的订单，账号状态等待申诉处理完成后再处理
+            LambdaQueryWrapper<Appeal> appealWrapper = new LambdaQueryWrapper<>();
+            appealWrapper.select(Appeal::getOrderId)
+                         .in(Appeal::getOrderId, ids);
+            Set<Long> appealedIds = new HashSet<>();
+            for (Appeal appeal : appealMapper.selectList(appealWrapper)) {
+                appealedIds.add(appeal.getOrderId());
+            }
+
+            // 上架没有申诉记录的账号
+            Set<Long> accountIds = new HashSet<>();
+            for (LeaseOrder order : orders) {
+                if (!appealedIds.contains(order.getId()) && order.getAccountId() != null) {
+                    accountIds.add(order.getAccountId());
+                }
+            }
+            if (!accountIds.isEmpty()) {
+                LambdaQueryWrapper<Account> accountWrapper = new LambdaQueryWrapper<>();
+                accountWrapper.select(Account::getId, Account::getStatus)
+                              .in(Account::getId, accountIds)
+                              .ne(Account::getStatus, 1)
+                              .last("FOR UPDATE");
+                List<Account> accounts = accountMapper.selectList(accountWrapper);
+                if (!accounts.isEmpty()) {
+                    List<Long> listedIds = new ArrayList<>(accounts.size());
+                    for (Account account : accounts) {
+                        listedIds.add(account.getId());
+                    }
+                    LambdaUpdateWrapper<Account> accountUpdate = new LambdaUpdateWrapper<>();
+                    accountUpdate.set(Account::getStatus, 1) // 1 = 上架
+                                 .in(Account::getId, listedIds);
+                    accountMapper.update(null, accountUpdate);
+                    for (Account account : accounts) {
+                        eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), account.getStatus(), 1));
+                    }
+                }
+            }
+            if (!appealedIds.isEmpty()) {
+                log.info("批量关闭订单中存在申诉记录，账号状态暂不更新: orderIds={}", appealedIds);
+            }
+            return ids;
+        });
+
+        if (closedIds == null) {
+            return Collections.emptySet();
+        }
+        for (Long orderId : closedIds) {
+            leaseExpiryScheduler.cancel(orderId);
+        }
+        return closedIds;
+    }
+
+    private void logThroughput(String action, int rows, int chunks, long startNanos) {
+        long elapsedMillis = Math.max(1L, (System.nanoTime() - startNanos) / 1_000_000L);
+        log.info("{}: rows={}, chunks={}, elapsed={}ms, rowsPerSecond={}",
+                action, rows, chunks, elapsedMillis, rows * 1000L / elapsedMillis);
+    }
+
     /**
      * 自动关闭订单
      * 1. 更新订单状态为 closed
@@ -83,10 +249,14 @@ public class TimerService {
     public void autoCloseOrder(LeaseOrder order) {
         log.info("自动关闭订单: orderId={}, accountId={}", order.getId(), order.getAccountId());
         
-        // 更新订单状态
+        // 更新订单状态（已被还号、取消或其他节点关闭时直接返回）
+        LocalDateTime actualEndTime = LocalDateTime.now();
+        leaseExpiryScheduler.cancel(order.getId());
+        if (!orderStateMachine.transition(order, "leasing", "closed", actualEndTime)) {
+            return;
+        }
         order.setStatus("closed");
-        order.setActualEndTime(LocalDateTime.now());
-        orderMapper.updateById(order);
+        order.setActualEndTime(actualEndTime);
         
         // 检查是否有申诉记录
         LambdaQueryWrapper<Appeal> appealWrapper = new LambdaQueryWrapper<>();
@@ -99,8 +269,10 @@ public class TimerService {
         if (account != null) {
             if (!hasAppeal) {
                 // 没有申诉记录，直接上架账号
+                Integer fromStatus = account.getStatus();
                 account.setStatus(1); // 1 = 上架
                 accountMapper.updateById(account);
+                eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), fromStatus, 1));
                 log.info("订单自动关闭，账号已自动上架: orderId={}, accountId={}", order.getId(), account.getId());
             } else {
                 // 有申诉记录，保持账号状态不变，等待申诉处理完成后再处理
@@ -169,7 +341,7 @@ public class TimerService {
             for (LeaseOrder order : unpaidOrders) {
                 try {
                     // 取消订单
-                    orderService.cancelOrder(order.getId(), order.getTenantUid());
+                    orderService.cancelOrder(order.getId(), order.getTenantUid(), false);
                     log.info("已自动取消超时未支付订单: orderId={}", order.getId());
                 } catch (Exception e) {
                     log.error("自动取消订单失败: orderId={}, error={}", order.getId(), e.getMessage(), e);
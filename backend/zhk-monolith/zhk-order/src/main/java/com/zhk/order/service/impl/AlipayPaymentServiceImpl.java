@@ -3,29 +3,31 @@ package com.zhk.order.service.impl;
 import com.alipay.api.AlipayApiException;
 import com.alipay.api.AlipayClient;
 import com.alipay.api.domain.AlipayTradePagePayModel;
-import com.alipay.api.internal.util.AlipaySignature;
 import com.alipay.api.request.AlipayTradePagePayRequest;
 import com.alipay.api.request.AlipayTradeQueryRequest;
 import com.alipay.api.response.AlipayTradePagePayResponse;
 import com.alipay.api.response.AlipayTradeQueryResponse;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.zhk.common.web.BusinessException;
 import com.zhk.order.config.AlipayProperties;
 import com.zhk.order.dto.CreatePaymentDTO;
 import com.zhk.order.dto.PaymentVO;
 import com.zhk.order.entity.LeaseOrder;
 import com.zhk.order.entity.PaymentRecord;
+import com.zhk.order.event.PaymentResultEvent;
 import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.order.mapper.PaymentRecordMapper;
 import com.zhk.order.service.AlipayPaymentService;
+import com.zhk.order.service.AlipaySignatureVerifier;
 import com.zhk.order.service.PaymentService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -46,14 +48,20 @@ public class AlipayPaymentServiceImpl implements AlipayPaymentService {
     private final PaymentRecordMapper paymentMapper;
     private final LeaseOrderMapper orderMapper;
     private final PaymentService paymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AlipaySignatureVerifier signatureVerifier;
 
     public AlipayPaymentServiceImpl(
             PaymentRecordMapper paymentMapper,
             LeaseOrderMapper orderMapper,
-            PaymentService paymentService) {
+            PaymentService paymentService,
+            ApplicationEventPublisher eventPublisher,
+            AlipaySignatureVerifier signatureVerifier) {
         this.paymentMapper = paymentMapper;
         this.orderMapper = orderMapper;
         this.paymentService = paymentService;
+        this.eventPublisher = eventPublisher;
+        this.signatureVerifier = signatureVerifier;
     }
 
     @Override
@@ -160,15 +168,22 @@ public class AlipayPaymentServiceImpl implements AlipayPaymentService {
         log.info("收到支付宝支付回调: {}", params);
 
         // 验证签名
-        if (!verifySign(params)) {
+        if (!verifyNotify(params)) {
             log.error("支付宝回调签名验证失败");
             throw new BusinessException(400, "签名验证失败");
         }
 
-        String tradeStatus = params.get("trade_status");
-        String outTradeNo = params.get("out_trade_no");
-        String tradeNo = params.get("trade_no");
+        applyTradeStatus(params.get("out_trade_no"), params.get("trade_status"), params.get("trade_no"));
+    }
 
+    @Override
+    public boolean verifyNotify(Map<String, String> params) {
+        return signatureVerifier.verify(params);
+    }
+
+    @Override
+    @Transactional
+    public void applyTradeStatus(String outTradeNo, String tradeStatus, String tradeNo) {
         // 查询支付记录
         PaymentRecord payment = paymentMapper.selectOne(
                 new LambdaQueryWrapper<PaymentRecord>()
@@ -180,27 +195,34 @@ public class AlipayPaymentServiceImpl implements AlipayPaymentService {
             return;
         }
 
-        // 处理支付结果
+        // 处理支付结果（状态更新均以原状态为条件，重复通知不会重复处理）
         if ("TRADE_SUCCESS".equals(tradeStatus) || "TRADE_FINISHED".equals(tradeStatus)) {
-            if ("pending".equals(payment.getStatus())) {
-                payment.setStatus("success");
-                payment.setPaidAt(LocalDateTime.now());
-                paymentMapper.updateById(payment);
-
-                // 更新订单状态
-                paymentService.onPaymentSuccess(payment.getId());
-                log.info("支付成功: orderId={}, paymentId={}, tradeNo={}", 
+            if ("pending".equals(payment.getStatus()) && paymentService.onPaymentSuccess(payment)) {
+                log.info("支付成功: orderId={}, paymentId={}, tradeNo={}",
                         payment.getOrderId(), payment.getId(), tradeNo);
             }
         } else if ("TRADE_CLOSED".equals(tradeStatus)) {
-            payment.setStatus("failed");
-            paymentMapper.updateById(payment);
-            log.info("支付关闭: orderId={}, paymentId={}", payment.getOrderId(), payment.getId());
+            LambdaUpdateWrapper<PaymentRecord> wrapper = new LambdaUpdateWrapper<>();
+            wrapper.set(PaymentRecord::getStatus, "failed")
+                   .eq(PaymentRecord::getId, payment.getId())
+                   .eq(PaymentRecord::getStatus, "pending");
+            if (paymentMapper.update(null, wrapper) > 0) {
+                LeaseOrder order = orderMapper.selectById(payment.getOrderId());
+                if (order != null) {
+                    eventPublisher.publishEvent(new PaymentResultEvent(
+                            payment.getId(), order.getId(), order.getTenantUid(), false));
+                }
+                log.info("支付关闭: orderId={}, paymentId={}", payment.getOrderId(), payment.getId());
+            }
         }
     }
 
     @Override
     public PaymentVO queryPaymentStatus(String outTradeNo) {
+        if (alipayClient == null) {
+            log.debug("支付宝客户端未配置，跳过支付状态查询: outTradeNo={}", outTradeNo);
+            return null;
+        }
         try {
             AlipayTradeQueryRequest request = new AlipayTradeQueryRequest();
             request.setBizContent("{\"out_trade_no\":\"" + outTradeNo + "\"}");
@@ -253,23 +275,6 @@ public class AlipayPaymentServiceImpl implements AlipayPaymentService {
         return payment;
     }
 
-    /**
-     * 验证签名
-     */
-    private boolean verifySign(Map<String, String> params) {
-        try {
-            return AlipaySignature.rsaCheckV1(
-                    params,
-                    alipayProperties.getAlipayPublicKey(),
-                    alipayProperties.getCharset(),
-                    alipayProperties.getSignType()
-            );
-        } catch (Exception e) {
-            log.error("签名验证异常", e);
-            return false;
-        }
-    }
-
     /**
      * 映射交易状态
      */
@@ -11,9 +11,13 @@ import com.zhk.order.dto.CreateAppealDTO;
 import com.zhk.order.dto.ResolveAppealDTO;
 import com.zhk.order.entity.Appeal;
 import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.event.AccountStatusChangedEvent;
+import com.zhk.order.event.AppealCreatedEvent;
+import com.zhk.order.event.AppealResolvedEvent;
 import com.zhk.order.mapper.AppealMapper;
 import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.order.service.AppealService;
+import com.zhk.order.service.OrderStateMachine;
 import com.zhk.order.entity.Account;
 import com.zhk.order.entity.User;
 import com.zhk.order.mapper.OrderAccountMapper;
@@ -21,6 +25,7 @@ import com.zhk.order.mapper.OrderUserMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,6 +47,8 @@ public class AppealServiceImpl implements AppealService {
     private final LeaseOrderMapper orderMapper;
     private final OrderAccountMapper accountMapper;
     private final OrderUserMapper userMapper;
+    private final OrderStateMachine orderStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -72,9 +79,16 @@ public class AppealServiceImpl implements AppealService {
             throw new BusinessException(400, "该订单已有待处理的申诉");
         }
 
-        // 更新订单状态为申诉中
-        order.setStatus("appeal");
-        orderMapper.updateById(order);
+        // 更新订单状态为申诉中（订单已处于申诉中时保持不变，与原先直接更新的行为一致）
+        if (!"appeal".equals(order.getStatus())) {
+            if (!orderStateMachine.canTransition(order.getStatus(), "appeal")) {
+                throw new BusinessException(400, "当前订单状态不允许申诉");
+            }
+            if (!orderStateMachine.transition(order, order.getStatus(), "appeal")) {
+                throw new BusinessException(409, "订单状态已变更，请刷新后重试");
+            }
+            order.setStatus("appeal");
+        }
 
         // 创建申诉
         Appeal appeal = new Appeal();
@@ -87,6 +101,7 @@ public class AppealServiceImpl implements AppealService {
         }
 
         appealMapper.insert(appeal);
+        eventPublisher.publishEvent(new AppealCreatedEvent(appeal.getId(), appeal.getOrderId()));
 
         return convertToVO(appeal);
     }
@@ -150,10 +165,11 @@ public class AppealServiceImpl implements AppealService {
             throw new BusinessException(400, "申诉已处理");
         }
 
-        // 更新申诉 - 使用 LambdaUpdateWrapper 确保字段正确更新
+        // 更新申诉 - 使用 LambdaUpdateWrapper 确保字段正确更新（以裁决结果为空为条件，并发处理时只有一次成功）
         LocalDateTime resolveTime = LocalDateTime.now();
         LambdaUpdateWrapper<Appeal> updateWrapper = new LambdaUpdateWrapper<>();
         updateWrapper.eq(Appeal::getId, appealId)
+                .isNull(Appeal::getVerdict)
                 .set(Appeal::getVerdict, dto.getVerdict())
                 .set(Appeal::getOperatorUid, operatorId)
                 .set(Appeal::getResolveTime, resolveTime);
@@ -166,22 +182,26 @@ public class AppealServiceImpl implements AppealService {
             log.error("更新申诉失败: appealId={}, verdict={}, updateCount=0", appealId, dto.getVerdict());
             throw new BusinessException(500, "更新申诉状态失败");
         }
+        eventPublisher.publishEvent(new AppealResolvedEvent(appealId, appeal.getOrderId()));
 
         // 更新订单状态
         LeaseOrder order = orderMapper.selectById(appeal.getOrderId());
         if (order != null) {
             // 根据裁决结果处理订单
             // TODO: 实现具体的退款、分账逻辑
-            order.setStatus("closed");
-            int orderUpdateCount = orderMapper.updateById(order);
-            log.info("更新订单状态: orderId={}, status=closed, updateCount={}", 
-                    appeal.getOrderId(), orderUpdateCount);
+            boolean orderClosed = orderStateMachine.transition(order, "appeal", "closed");
+            log.info("更新订单状态: orderId={}, status=closed, success={}", 
+                    appeal.getOrderId(), orderClosed);
             
             // 申诉处理完成后，下架账号
             Account account = accountMapper.selectById(order.getAccountId());
             if (account != null) {
+                Integer fromStatus = account.getStatus();
                 account.setStatus(2); // 2 = 下架
                 int accountUpdateCount = accountMapper.updateById(account);
+                if (accountUpdateCount > 0) {
+                    eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), fromStatus, 2));
+                }
                 log.info("申诉处理完成，账号已下架: orderId={}, accountId={}, updateCount={}", 
                         appeal.getOrderId(), account.getId(), accountUpdateCount);
             } else {
@@ -1,12 +1,20 @@
 package com.zhk.order.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhk.common.core.page.CursorPage;
+import com.zhk.common.core.page.SeekCursor;
+import com.zhk.common.core.page.SeekPagination;
 import com.zhk.common.web.BusinessException;
 import com.zhk.order.dto.CreateOrderDTO;
+import com.zhk.order.dto.OrderPageVO;
 import com.zhk.order.dto.OrderVO;
 import com.zhk.order.dto.RenewOrderDTO;
 import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.event.AccountStatusChangedEvent;
+import com.zhk.order.event.OrderCancelledEvent;
+import com.zhk.order.event.OrderCreatedEvent;
 import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.order.service.OrderService;
 import com.zhk.order.util.OrderStatusConverter;
@@ -14,18 +22,23 @@ import com.zhk.order.entity.Account;
 import com.zhk.order.entity.Game;
 import com.zhk.order.entity.User;
 import com.zhk.order.mapper.OrderAccountMapper;
-import com.zhk.order.mapper.OrderGameMapper;
 import com.zhk.order.mapper.OrderUserMapper;
 import com.zhk.order.mapper.PaymentRecordMapper;
 import com.zhk.order.mapper.AppealMapper;
 import com.zhk.order.entity.PaymentRecord;
 import com.zhk.order.entity.Appeal;
 import com.zhk.order.service.EncryptionService;
+import com.zhk.order.service.GameCatalogCache;
+import com.zhk.order.service.LeaseExpiryScheduler;
+import com.zhk.order.service.OrderStateMachine;
+import com.zhk.order.service.OrderOwnerBackfill;
+import com.zhk.order.service.OrderStatusHistogramCache;
 import com.zhk.order.util.DistributedLock;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,7 +46,11 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 订单服务实现类
@@ -47,11 +64,16 @@ public class OrderServiceImpl implements OrderService {
 
     private final LeaseOrderMapper orderMapper;
     private final OrderAccountMapper accountMapper;
-    private final OrderGameMapper gameMapper;
+    private final GameCatalogCache gameCatalogCache;
     private final OrderUserMapper userMapper;
     private final AppealMapper appealMapper;
     private final PaymentRecordMapper paymentRecordMapper;
     private final EncryptionService encryptionService;
+    private final LeaseExpiryScheduler leaseExpiryScheduler;
+    private final OrderStateMachine orderStateMachine;
+    private final OrderOwnerBackfill orderOwnerBackfill;
+    private final OrderStatusHistogramCache orderStatusHistogramCache;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Autowired(required = false)
     private DistributedLock distributedLock; // Redis 不可用时为 null
@@ -125,6 +147,7 @@ public class OrderServiceImpl implements OrderService {
             LeaseOrder order = new LeaseOrder();
             order.setAccountId(dto.getAccountId());
             order.setTenantUid(userId);
+            order.setOwnerUid(account.getOwnerUid());
             order.setStartTime(now);
             order.setEndTime(endTime);
             order.setAmount(amount);
@@ -132,6 +155,7 @@ public class OrderServiceImpl implements OrderService {
             order.setStatus("paying");
 
             orderMapper.insert(order);
+            eventPublisher.publishEvent(new OrderCreatedEvent(order.getId(), userId, order.getOwnerUid(), order.getStatus()));
 
             // 注意：创建订单时账号状态暂时不变，等支付完成后再改为租赁中
             // 这样可以避免未支付订单占用账号资源
@@ -142,27 +166,9 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<OrderVO> getOrderList(Long userId, String role, String status, Integer page, Integer pageSize) {
-        LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
-        
-        // 根据角色筛选
-        if ("TENANT".equals(role)) {
-            wrapper.eq(LeaseOrder::getTenantUid, userId);
-        } else if ("OWNER".equals(role)) {
-            // 需要关联账号表查询
-            List<Account> accounts = accountMapper.selectList(
-                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Account>()
-                    .eq(Account::getOwnerUid, userId)
-            );
-            if (accounts.isEmpty()) {
-                return new ArrayList<>();
-            }
-            List<Long> accountIds = accounts.stream().map(Account::getId).toList();
-            wrapper.in(LeaseOrder::getAccountId, accountIds);
-        }
-
-        // 状态筛选
-        if (status != null && !status.isEmpty()) {
-            wrapper.eq(LeaseOrder::getStatus, status);
+        LambdaQueryWrapper<LeaseOrder> wrapper = buildListWrapper(userId, role, status);
+        if (wrapper == null) {
+            return new ArrayList<>();
         }
 
         // 排序
@@ -172,38 +178,149 @@ public class OrderServiceImpl implements OrderService {
         Page<LeaseOrder> pageParam = new Page<>(page, pageSize);
         Page<LeaseOrder> orderPage = orderMapper.selectPage(pageParam, wrapper);
 
-        // 转换为 VO
-        List<OrderVO> voList = new ArrayList<>();
-        for (LeaseOrder order : orderPage.getRecords()) {
-            voList.add(convertToVO(order));
+        // 批量转换为 VO（账号、用户各一次 IN 查询）
+        return convertToVOList(orderPage.getRecords());
+    }
+
+    @Override
+    public CursorPage<OrderVO> getOrderListByCursor(Long userId, String role, String status, String cursor, Integer pageSize) {
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 10);
+        LambdaQueryWrapper<LeaseOrder> wrapper = buildListWrapper(userId, role, status);
+        if (wrapper == null) {
+            return new CursorPage<>(new ArrayList<>(), null, false, size);
         }
 
-        return voList;
+        // 按 (created_at, id) 倒序定位，不使用 OFFSET
+        SeekPagination.seek(wrapper, LeaseOrder::getCreatedAt, LeaseOrder::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<LeaseOrder> orders = orderMapper.selectList(wrapper);
+        return SeekPagination.page(orders, size,
+                order -> SeekCursor.ofTime(order.getCreatedAt(), order.getId()), this::convertToVOList);
     }
 
     @Override
     public Long getOrderCount(Long userId, String role, String status) {
+        LambdaQueryWrapper<LeaseOrder> wrapper = buildListWrapper(userId, role, status);
+        if (wrapper == null) {
+            return 0L;
+        }
+        return orderMapper.selectCount(wrapper);
+    }
+
+    @Override
+    public OrderPageVO getOrderPage(Long userId, String role, String status, Integer page, Integer pageSize) {
+        // 商家账号ID（仅存量订单回填完成前需要），状态分布和分页查询共用
+        List<Long> ownerAccountIds = ownerAccountIds(userId, role);
+        Map<String, Long> statusCounts = orderStatusHistogramCache.get(role, userId,
+                () -> queryStatusCounts(userId, role, ownerAccountIds));
+
+        // 总数由状态分布得出，分页查询不再 COUNT
+        long total = status != null && !status.isEmpty()
+                ? statusCounts.getOrDefault(status, 0L)
+                : statusCounts.values().stream().mapToLong(Long::longValue).sum();
+
+        List<OrderVO> list = new ArrayList<>();
+        if (total > (long) (page - 1) * pageSize) {
+            LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
+            if (applyListFilter(wrapper, userId, role, status, ownerAccountIds)) {
+                wrapper.orderByDesc(LeaseOrder::getCreatedAt);
+                Page<LeaseOrder> pageParam = new Page<>(page, pageSize, false);
+                list = convertToVOList(orderMapper.selectPage(pageParam, wrapper).getRecords());
+            }
+        }
+
+        OrderPageVO result = new OrderPageVO();
+        result.setList(list);
+        result.setTotal(total);
+        result.setPage(page);
+        result.setPageSize(pageSize);
+        result.setStatusCounts(statusCounts);
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getOrderStatusCounts(Long userId, String role) {
+        return orderStatusHistogramCache.get(role, userId,
+                () -> queryStatusCounts(userId, role, ownerAccountIds(userId, role)));
+    }
+
+    /**
+     * 一次 GROUP BY status 查询各状态订单数
+     */
+    private Map<String, Long> queryStatusCounts(Long userId, String role, List<Long> ownerAccountIds) {
+        Map<String, Long> counts = new HashMap<>();
+        QueryWrapper<LeaseOrder> query = new QueryWrapper<>();
+        query.select("status", "COUNT(*) AS cnt");
+        LambdaQueryWrapper<LeaseOrder> wrapper = query.lambda();
+        if (!applyListFilter(wrapper, userId, role, null, ownerAccountIds)) {
+            return counts;
+        }
+        wrapper.groupBy(LeaseOrder::getStatus);
+        for (Map<String, Object> row : orderMapper.selectMaps(wrapper)) {
+            Object orderStatus = row.get("status");
+            Object count = row.get("cnt");
+            if (orderStatus != null && count instanceof Number) {
+                counts.put(orderStatus.toString(), ((Number) count).longValue());
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 构建订单列表的筛选条件
+     *
+     * @return 查询条件，存量订单回填完成前商家名下没有账号时返回 null
+     */
+    private LambdaQueryWrapper<LeaseOrder> buildListWrapper(Long userId, String role, String status) {
         LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
-        
+        return applyListFilter(wrapper, userId, role, status, ownerAccountIds(userId, role)) ? wrapper : null;
+    }
+
+    /**
+     * 添加订单列表的筛选条件
+     *
+     * @param ownerAccountIds {@link #ownerAccountIds} 的结果
+     * @return 是否可能有结果（存量订单回填完成前商家名下没有账号时为 false）
+     */
+    private boolean applyListFilter(LambdaQueryWrapper<LeaseOrder> wrapper, Long userId, String role, String status,
+                                    List<Long> ownerAccountIds) {
+        // 根据角色筛选
         if ("TENANT".equals(role)) {
             wrapper.eq(LeaseOrder::getTenantUid, userId);
         } else if ("OWNER".equals(role)) {
-            List<Account> accounts = accountMapper.selectList(
-                new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Account>()
-                    .eq(Account::getOwnerUid, userId)
-            );
-            if (accounts.isEmpty()) {
-                return 0L;
+            if (ownerAccountIds == null) {
+                // 走 idx_owner_status_created，不再查询商家的全部账号
+                wrapper.eq(LeaseOrder::getOwnerUid, userId);
+            } else {
+                // 存量订单尚未回填完成，同时按账号ID匹配
+                if (ownerAccountIds.isEmpty()) {
+                    return false;
+                }
+                wrapper.and(w -> w.eq(LeaseOrder::getOwnerUid, userId).or().in(LeaseOrder::getAccountId, ownerAccountIds));
             }
-            List<Long> accountIds = accounts.stream().map(Account::getId).toList();
-            wrapper.in(LeaseOrder::getAccountId, accountIds);
         }
 
+        // 状态筛选
         if (status != null && !status.isEmpty()) {
             wrapper.eq(LeaseOrder::getStatus, status);
         }
+        return true;
+    }
 
-        return orderMapper.selectCount(wrapper);
+    /**
+     * 商家名下的账号ID，只在商家角色且存量订单回填完成前需要，其他情况返回 null
+     */
+    private List<Long> ownerAccountIds(Long userId, String role) {
+        if (!"OWNER".equals(role) || orderOwnerBackfill.isCompleted()) {
+            return null;
+        }
+        List<Account> accounts = accountMapper.selectList(
+            new com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper<Account>()
+                .select(Account::getId)
+                .eq(Account::getOwnerUid, userId)
+        );
+        return accounts.stream().map(Account::getId).toList();
     }
 
     @Override
@@ -222,7 +339,11 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(403, "无权限查看此订单");
         }
 
-        OrderVO vo = convertToVO(order);
+        // 复用已查询的账号，避免 convertToVO 再次查询
+        Game game = account != null ? gameCatalogCache.getGame(account.getGameId()) : null;
+        User owner = account != null ? userMapper.selectById(account.getOwnerUid()) : null;
+        User tenant = userMapper.selectById(order.getTenantUid());
+        OrderVO vo = convertToVO(order, account, game, owner, tenant);
 
         // 查询支付信息
         LambdaQueryWrapper<PaymentRecord> paymentWrapper = new LambdaQueryWrapper<>();
@@ -316,10 +437,14 @@ public class OrderServiceImpl implements OrderService {
             throw new BusinessException(400, "无效的租期类型");
         }
 
-        // 更新订单
+        // 更新订单（以原到期时间作为版本号，防止并发续租或到期关闭覆盖）
+        BigDecimal newAmount = order.getAmount().add(additionalAmount);
+        if (!orderStateMachine.extend(orderId, currentEndTime, newEndTime, newAmount)) {
+            throw new BusinessException(409, "订单状态已变更，请刷新后重试");
+        }
         order.setEndTime(newEndTime);
-        order.setAmount(order.getAmount().add(additionalAmount));
-        orderMapper.updateById(order);
+        order.setAmount(newAmount);
+        leaseExpiryScheduler.schedule(order.getId(), newEndTime);
 
         return convertToVO(order);
     }
@@ -343,9 +468,13 @@ public class OrderServiceImpl implements OrderService {
         }
 
         // 更新订单状态
+        LocalDateTime actualEndTime = LocalDateTime.now();
+        if (!orderStateMachine.transition(order, "leasing", "closed", actualEndTime)) {
+            throw new BusinessException(409, "订单状态已变更，请刷新后重试");
+        }
         order.setStatus("closed");
-        order.setActualEndTime(LocalDateTime.now());
-        orderMapper.updateById(order);
+        order.setActualEndTime(actualEndTime);
+        leaseExpiryScheduler.cancel(order.getId());
 
         // 检查是否有申诉记录
         LambdaQueryWrapper<Appeal> appealWrapper = new LambdaQueryWrapper<>();
@@ -358,8 +487,10 @@ public class OrderServiceImpl implements OrderService {
         if (account != null) {
             if (!hasAppeal) {
                 // 没有申诉记录，直接上架账号
+                Integer fromStatus = account.getStatus();
                 account.setStatus(1); // 1 = 上架
                 accountMapper.updateById(account);
+                eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), fromStatus, 1));
                 log.info("订单完成，账号已自动上架: orderId={}, accountId={}", order.getId(), account.getId());
             } else {
                 // 有申诉记录，保持账号状态不变，等待申诉处理完成后再处理
@@ -373,6 +504,12 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public OrderVO cancelOrder(Long orderId, Long userId) {
+        return cancelOrder(orderId, userId, true);
+    }
+
+    @Override
+    @Transactional
+    public OrderVO cancelOrder(Long orderId, Long userId, boolean userInitiated) {
         LeaseOrder order = orderMapper.selectById(orderId);
         if (order == null) {
             throw new BusinessException(404, "订单不存在");
@@ -392,15 +529,21 @@ public class OrderServiceImpl implements OrderService {
         String originalStatus = order.getStatus();
 
         // 更新订单状态
+        if (!orderStateMachine.transition(order, originalStatus, "cancelled")) {
+            throw new BusinessException(409, "订单状态已变更，请刷新后重试");
+        }
         order.setStatus("cancelled");
-        orderMapper.updateById(order);
+        leaseExpiryScheduler.cancel(order.getId());
+        eventPublisher.publishEvent(new OrderCancelledEvent(orderId, userId, userInitiated));
 
         // 如果订单是租赁中状态，需要恢复账号状态
         if ("leasing".equals(originalStatus)) {
             Account account = accountMapper.selectById(order.getAccountId());
             if (account != null) {
+                Integer fromStatus = account.getStatus();
                 account.setStatus(1); // 恢复为上架状态
                 accountMapper.updateById(account);
+                eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), fromStatus, 1));
             }
         } else if ("paying".equals(originalStatus)) {
             // 如果订单是待支付状态，也需要恢复账号状态（如果账号已被占用）
@@ -408,6 +551,7 @@ public class OrderServiceImpl implements OrderService {
             if (account != null && account.getStatus() == 3) {
                 account.setStatus(1); // 恢复为上架状态
                 accountMapper.updateById(account);
+                eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), 3, 1));
             }
         }
 
@@ -418,11 +562,81 @@ public class OrderServiceImpl implements OrderService {
      * 转换为 VO
      */
     private OrderVO convertToVO(LeaseOrder order) {
+        Account account = accountMapper.selectById(order.getAccountId());
+        Game game = null;
+        User owner = null;
+        if (account != null) {
+            game = gameCatalogCache.getGame(account.getGameId());
+            owner = userMapper.selectById(account.getOwnerUid());
+        }
+        User tenant = userMapper.selectById(order.getTenantUid());
+        return convertToVO(order, account, game, owner, tenant);
+    }
+
+    /**
+     * 批量转换为 VO
+     * 先收集整页订单涉及的账号、号主和租客ID，每类实体只查询一次，再在内存中组装，
+     * 避免逐条 convertToVO 带来的 N+1 查询
+     */
+    private List<OrderVO> convertToVOList(List<LeaseOrder> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 批量查询账号
+        Set<Long> accountIds = new HashSet<>();
+        for (LeaseOrder order : orders) {
+            if (order.getAccountId() != null) {
+                accountIds.add(order.getAccountId());
+            }
+        }
+        Map<Long, Account> accountMap = new HashMap<>();
+        if (!accountIds.isEmpty()) {
+            for (Account account : accountMapper.selectBatchIds(accountIds)) {
+                accountMap.put(account.getId(), account);
+            }
+        }
+
+        // 批量查询用户（号主 + 租客），游戏信息直接读取本地游戏目录缓存
+        Set<Long> userIds = new HashSet<>();
+        for (Account account : accountMap.values()) {
+            if (account.getOwnerUid() != null) {
+                userIds.add(account.getOwnerUid());
+            }
+        }
+        for (LeaseOrder order : orders) {
+            if (order.getTenantUid() != null) {
+                userIds.add(order.getTenantUid());
+            }
+        }
+        Map<Long, User> userMap = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (User user : userMapper.selectBatchIds(userIds)) {
+                userMap.put(user.getId(), user);
+            }
+        }
+
+        // 内存组装
+        List<OrderVO> voList = new ArrayList<>(orders.size());
+        for (LeaseOrder order : orders) {
+            Account account = accountMap.get(order.getAccountId());
+            Game game = account != null ? gameCatalogCache.getGame(account.getGameId()) : null;
+            User owner = account != null ? userMap.get(account.getOwnerUid()) : null;
+            User tenant = userMap.get(order.getTenantUid());
+            voList.add(convertToVO(order, account, game, owner, tenant));
+        }
+        return voList;
+    }
+
+    /**
+     * 使用已加载的关联实体组装 VO（不再访问数据库）
+     */
+    private OrderVO convertToVO(LeaseOrder order, Account account, Game game, User owner, User tenant) {
         OrderVO vo = new OrderVO();
         BeanUtils.copyProperties(order, vo);
 
         // 生成订单号
-        vo.setOrderNo("ORD" + String.format("%010d", order.getId()));
+        vo.setOrderNo("ORD" + order.getId());
 
         // 转换状态为前端状态
         vo.setStatus(OrderStatusConverter.toFrontendStatus(order.getStatus(), order.getEndTime()));
@@ -434,23 +648,19 @@ public class OrderServiceImpl implements OrderService {
             vo.setTotalAmount(order.getAmount());
         }
 
-        // 查询账号信息
-        Account account = accountMapper.selectById(order.getAccountId());
+        // 账号信息
         if (account != null) {
-            Game game = gameMapper.selectById(account.getGameId());
             vo.setGameName(game != null ? game.getName() : "");
             vo.setOwnerUid(account.getOwnerUid());
             vo.setOwnerId(account.getOwnerUid()); // 设置前端字段名
             vo.setAccountTitle(account.getTitle());
             vo.setAccountDescription(account.getDescription());
             
-            // 查询号主信息
-            User owner = userMapper.selectById(account.getOwnerUid());
+            // 号主信息
             vo.setOwnerNickname(owner != null ? owner.getNickname() : "");
         }
 
-        // 查询租客信息
-        User tenant = userMapper.selectById(order.getTenantUid());
+        // 租客信息
         vo.setTenantNickname(tenant != null ? tenant.getNickname() : "");
         vo.setTenantUid(order.getTenantUid());
         vo.setTenantId(order.getTenantUid()); // 设置前端字段名
@@ -464,4 +674,3 @@ public class OrderServiceImpl implements OrderService {
         return vo;
     }
 }
-
@@ -1,18 +1,24 @@
 package com.zhk.order.service.impl;
 
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.zhk.common.web.BusinessException;
 import com.zhk.order.dto.CreatePaymentDTO;
 import com.zhk.order.dto.PaymentVO;
 import com.zhk.order.entity.LeaseOrder;
 import com.zhk.order.entity.PaymentRecord;
+import com.zhk.order.event.AccountStatusChangedEvent;
+import com.zhk.order.event.PaymentResultEvent;
 import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.order.mapper.PaymentRecordMapper;
 import com.zhk.order.service.AlipayPaymentService;
+import com.zhk.order.service.LeaseExpiryScheduler;
+import com.zhk.order.service.OrderStateMachine;
 import com.zhk.order.service.PaymentService;
 import com.zhk.order.entity.Account;
 import com.zhk.order.mapper.OrderAccountMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -33,16 +39,25 @@ public class PaymentServiceImpl implements PaymentService {
     private final LeaseOrderMapper orderMapper;
     private final OrderAccountMapper accountMapper;
     private final AlipayPaymentService alipayPaymentService;
+    private final LeaseExpiryScheduler leaseExpiryScheduler;
+    private final OrderStateMachine orderStateMachine;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PaymentServiceImpl(
             PaymentRecordMapper paymentMapper,
             LeaseOrderMapper orderMapper,
             OrderAccountMapper accountMapper,
-            @Lazy AlipayPaymentService alipayPaymentService) {
+            @Lazy AlipayPaymentService alipayPaymentService,
+            LeaseExpiryScheduler leaseExpiryScheduler,
+            OrderStateMachine orderStateMachine,
+            ApplicationEventPublisher eventPublisher) {
         this.paymentMapper = paymentMapper;
         this.orderMapper = orderMapper;
         this.accountMapper = accountMapper;
         this.alipayPaymentService = alipayPaymentService;
+        this.leaseExpiryScheduler = leaseExpiryScheduler;
+        this.orderStateMachine = orderStateMachine;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -139,30 +154,51 @@ public class PaymentServiceImpl implements PaymentService {
 
     @Override
     @Transactional
-    public void onPaymentSuccess(Long paymentId) {
+    public boolean onPaymentSuccess(Long paymentId) {
         PaymentRecord payment = paymentMapper.selectById(paymentId);
         if (payment == null) {
             throw new BusinessException(404, "支付记录不存在");
         }
+        return onPaymentSuccess(payment);
+    }
 
-        // 更新支付状态
+    @Override
+    @Transactional
+    public boolean onPaymentSuccess(PaymentRecord payment) {
+        // 以状态为条件更新，支付宝重复通知、对账和测试支付并发时只有一方会继续处理订单
+        LocalDateTime paidAt = LocalDateTime.now();
+        LambdaUpdateWrapper<PaymentRecord> paymentWrapper = new LambdaUpdateWrapper<>();
+        paymentWrapper.set(PaymentRecord::getStatus, "success")
+                      .set(PaymentRecord::getPaidAt, paidAt)
+                      .eq(PaymentRecord::getId, payment.getId())
+                      .ne(PaymentRecord::getStatus, "success");
+        if (paymentMapper.update(null, paymentWrapper) == 0) {
+            log.info("支付已处理，忽略重复的支付成功回调: paymentId={}", payment.getId());
+            return false;
+        }
         payment.setStatus("success");
-        payment.setPaidAt(LocalDateTime.now());
-        paymentMapper.updateById(payment);
+        payment.setPaidAt(paidAt);
 
         // 更新订单状态
         LeaseOrder order = orderMapper.selectById(payment.getOrderId());
-        if (order != null && "paying".equals(order.getStatus())) {
+        if (order != null) {
+            eventPublisher.publishEvent(new PaymentResultEvent(payment.getId(), order.getId(), order.getTenantUid(), true));
+        }
+        if (order != null && "paying".equals(order.getStatus())
+                && orderStateMachine.transition(order, "paying", "leasing")) {
             order.setStatus("leasing");
-            orderMapper.updateById(order);
+            leaseExpiryScheduler.schedule(order.getId(), order.getEndTime());
 
             // 更新账号状态为租赁中
             Account account = accountMapper.selectById(order.getAccountId());
             if (account != null) {
+                Integer fromStatus = account.getStatus();
                 account.setStatus(3); // 租赁中
                 accountMapper.updateById(account);
+                eventPublisher.publishEvent(new AccountStatusChangedEvent(account.getId(), fromStatus, 3));
             }
         }
+        return true;
     }
 
     /**
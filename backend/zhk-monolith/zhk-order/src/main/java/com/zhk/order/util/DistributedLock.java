@@ -1,16 +1,27 @@
 package com.zhk.order.util;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * 分布式锁工具类
- * 基于 Redis 实现简单的分布式锁
+ * 基于 Redis 实现的分布式锁：
+ * 1. 加锁时写入持有者令牌（SET NX PX），释放时用 Lua 脚本比较令牌后删除，不会误删其他持有者的锁
+ * 2. 释放时通过 Redis 发布/订阅通知等待者立即重试，代替固定间隔的轮询
+ * 3. executeWithLock 先获取按锁键分配的本地锁，同一节点上竞争同一个键的线程在本地排队，只有一个线程访问 Redis；
+ *    不同的键互不阻塞，本地锁在没有线程使用时移除
+ * 4. 令牌由调用方持有，释放时传回，同一节点上的其他线程无法释放不属于自己的锁
  * 如果 Redis 不可用，则降级为本地锁（不保证分布式一致性）
  *
  * @author shigure
@@ -22,18 +33,48 @@ import java.util.concurrent.TimeUnit;
 public class DistributedLock {
 
     private final StringRedisTemplate redisTemplate;
-    
+    private final RedisBroadcaster redisBroadcaster;
+
     private static final String LOCK_PREFIX = "lock:";
+    private static final String RELEASE_CHANNEL = "lock:release";
     private static final long DEFAULT_TIMEOUT = 10; // 默认锁超时时间（秒）
     private static final long DEFAULT_WAIT_TIME = 3; // 默认等待时间（秒）
+    private static final long MAX_WAIT_SLICE_MILLIS = 500; // 释放通知丢失时的兜底重试间隔
+    private static final int STRIPES = 256; // 释放通知分段数（2 的幂）
+
+    /**
+     * 令牌一致时删除锁并发布释放通知
+     */
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "redis.call('del', KEYS[1]) "
+                    + "redis.call('publish', ARGV[2], KEYS[1]) "
+                    + "return 1 "
+                    + "end "
+                    + "return 0",
+            Long.class);
+
+    /**
+     * 本地锁：锁键 -> 正在使用的本地锁
+     */
+    private final ConcurrentHashMap<String, LocalLock> localLocks = new ConcurrentHashMap<>();
+    private final ReleaseSignal[] releaseSignals = new ReleaseSignal[STRIPES];
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < STRIPES; i++) {
+            releaseSignals[i] = new ReleaseSignal();
+        }
+        redisBroadcaster.subscribe(RELEASE_CHANNEL, lockKey -> releaseSignals[stripe(lockKey)].signal());
+    }
 
     /**
      * 尝试获取锁
      *
      * @param key 锁的键
-     * @return 是否获取成功
+     * @return 持有者令牌，获取失败时返回 null（释放时传给 {@link #unlock(String, String)}）
      */
-    public boolean tryLock(String key) {
+    public String tryLock(String key) {
         return tryLock(key, DEFAULT_TIMEOUT, TimeUnit.SECONDS);
     }
 
@@ -43,55 +84,79 @@ public class DistributedLock {
      * @param key      锁的键
      * @param timeout  超时时间
      * @param timeUnit 时间单位
-     * @return 是否获取成功
+     * @return 持有者令牌，获取失败时返回 null
      */
-    public boolean tryLock(String key, long timeout, TimeUnit timeUnit) {
+    public String tryLock(String key, long timeout, TimeUnit timeUnit) {
         String lockKey = LOCK_PREFIX + key;
+        String token = UUID.randomUUID().toString();
         try {
-            Boolean result = redisTemplate.opsForValue().setIfAbsent(lockKey, "1", timeout, timeUnit);
-            return Boolean.TRUE.equals(result);
+            Boolean result = redisTemplate.opsForValue().setIfAbsent(lockKey, token, timeout, timeUnit);
+            return Boolean.TRUE.equals(result) ? token : null;
         } catch (Exception e) {
             log.error("获取分布式锁失败: key={}, error={}", key, e.getMessage(), e);
-            return false;
+            return null;
         }
     }
 
     /**
      * 尝试获取锁（带等待时间）
+     * 获取失败时等待锁释放通知后重试，直到超过等待时间
      *
      * @param key      锁的键
      * @param waitTime 等待时间（秒）
      * @param timeout  锁超时时间（秒）
-     * @return 是否获取成功
+     * @return 持有者令牌，超过等待时间仍未获取时返回 null
      */
-    public boolean tryLockWithWait(String key, long waitTime, long timeout) {
-        long endTime = System.currentTimeMillis() + waitTime * 1000;
-        
-        while (System.currentTimeMillis() < endTime) {
-            if (tryLock(key, timeout, TimeUnit.SECONDS)) {
-                return true;
+    public String tryLockWithWait(String key, long waitTime, long timeout) {
+        return tryLockWithWait(key, System.nanoTime() + TimeUnit.SECONDS.toNanos(waitTime), timeout, TimeUnit.SECONDS);
+    }
+
+    private String tryLockWithWait(String key, long deadlineNanos, long timeout, TimeUnit timeUnit) {
+        String lockKey = LOCK_PREFIX + key;
+        ReleaseSignal signal = releaseSignals[stripe(lockKey)];
+        while (true) {
+            // 先记录通知代数，避免在 tryLock 与等待之间错过释放通知
+            long generation = signal.generation();
+            String token = tryLock(key, timeout, timeUnit);
+            if (token != null) {
+                return token;
+            }
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return null;
             }
+            long waitMillis = Math.min(TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1, MAX_WAIT_SLICE_MILLIS);
             try {
-                Thread.sleep(100); // 等待100ms后重试
+                signal.await(generation, waitMillis);
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                return false;
+                return null;
             }
         }
-        return false;
     }
 
     /**
-     * 释放锁
+     * 释放锁（令牌不一致时不释放，锁已过期并被其他持有者获取时不会误删）
      *
-     * @param key 锁的键
+     * @param key   锁的键
+     * @param token 加锁时返回的令牌
      */
-    public void unlock(String key) {
+    public void unlock(String key, String token) {
         String lockKey = LOCK_PREFIX + key;
+        if (token == null) {
+            log.warn("释放未持有的分布式锁: key={}", key);
+            return;
+        }
         try {
-            redisTemplate.delete(lockKey);
+            Long released = redisTemplate.execute(UNLOCK_SCRIPT, Collections.singletonList(lockKey), token, RELEASE_CHANNEL);
+            if (released == null || released == 0L) {
+                log.warn("分布式锁已过期，未释放: key={}", key);
+            }
         } catch (Exception e) {
             log.error("释放分布式锁失败: key={}, error={}", key, e.getMessage(), e);
+        } finally {
+            // 本节点的等待者不必等 Redis 通知往返
+            releaseSignals[stripe(lockKey)].signal();
         }
     }
 
@@ -120,18 +185,93 @@ public class DistributedLock {
      * @throws RuntimeException 如果获取锁失败或执行异常
      */
     public <T> T executeWithLock(String key, long waitTime, long timeout, LockCallback<T> callback) {
-        if (!tryLockWithWait(key, waitTime, timeout)) {
-            throw new RuntimeException("获取锁失败，请稍后重试");
-        }
-        
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(waitTime);
+        LocalLock localLock = acquireLocalLock(key);
         try {
-            return callback.execute();
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
-            throw new RuntimeException("执行带锁操作时发生异常", e);
+            try {
+                if (!localLock.lock.tryLock(waitTime, TimeUnit.SECONDS)) {
+                    throw new RuntimeException("获取锁失败，请稍后重试");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("获取锁失败，请稍后重试");
+            }
+
+            try {
+                String token = tryLockWithWait(key, deadlineNanos, timeout, TimeUnit.SECONDS);
+                if (token == null) {
+                    throw new RuntimeException("获取锁失败，请稍后重试");
+                }
+                try {
+                    return callback.execute();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new RuntimeException("执行带锁操作时发生异常", e);
+                } finally {
+                    unlock(key, token);
+                }
+            } finally {
+                localLock.lock.unlock();
+            }
         } finally {
-            unlock(key);
+            releaseLocalLock(key);
+        }
+    }
+
+    /**
+     * 获取键对应的本地锁并登记使用者
+     */
+    private LocalLock acquireLocalLock(String key) {
+        return localLocks.compute(key, (k, existing) -> {
+            LocalLock localLock = existing != null ? existing : new LocalLock();
+            localLock.users++;
+            return localLock;
+        });
+    }
+
+    /**
+     * 注销使用者，没有使用者时移除本地锁
+     */
+    private void releaseLocalLock(String key) {
+        localLocks.computeIfPresent(key, (k, localLock) -> --localLock.users == 0 ? null : localLock);
+    }
+
+    private static int stripe(String lockKey) {
+        int h = lockKey.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * 本地锁（使用者计数只在 ConcurrentHashMap.compute 中修改）
+     */
+    private static final class LocalLock {
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    /**
+     * 锁释放通知（按分段共享，收到通知的等待者重新尝试加锁）
+     */
+    private static final class ReleaseSignal {
+        private long generation;
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        synchronized void signal() {
+            generation++;
+            notifyAll();
+        }
+
+        synchronized void await(long expectedGeneration, long timeoutMillis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            long remaining = timeoutMillis;
+            while (generation == expectedGeneration && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
         }
     }
 
@@ -143,4 +283,3 @@ public class DistributedLock {
         T execute() throws Exception;
     }
 }
-
@@ -0,0 +1,160 @@
+package com.zhk.order.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Redis 发布/订阅工具类
+ * 用于多节点之间广播本地缓存失效等轻量消息
+ * 如果 Redis 不可用，则发布和订阅均静默降级为本地模式（不保证跨节点一致性）
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisBroadcaster implements DisposableBean {
+
+    private final ObjectProvider<RedisConnectionFactory> connectionFactoryProvider;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+
+    private volatile RedisMessageListenerContainer container;
+
+    /**
+     * Redis 是否可用
+     */
+    public boolean isAvailable() {
+        return redisTemplateProvider.getIfAvailable() != null;
+    }
+
+    /**
+     * 订阅频道
+     *
+     * @param channel 频道名
+     * @param handler 消息处理器（在 Redis 监听线程中执行，应尽快返回）
+     */
+    public void subscribe(String channel, Consumer<String> handler) {
+        RedisMessageListenerContainer listenerContainer = getOrCreateContainer();
+        if (listenerContainer == null) {
+            log.info("Redis 不可用，跳过频道订阅: channel={}", channel);
+            return;
+        }
+        try {
+            listenerContainer.addMessageListener((message, pattern) -> {
+                try {
+                    handler.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+                } catch (Exception e) {
+                    log.error("处理广播消息失败: channel={}, error={}", channel, e.getMessage(), e);
+                }
+            }, new ChannelTopic(channel));
+            log.info("已订阅 Redis 频道: channel={}", channel);
+        } catch (Exception e) {
+            log.warn("订阅 Redis 频道失败，降级为本地模式: channel={}, error={}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道名
+     * @param message 消息内容
+     */
+    public void publish(String channel, String message) {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.warn("发布广播消息失败: channel={}, error={}", channel, e.getMessage());
+        }
+    }
+
+    /**
+     * 自增版本号
+     *
+     * @param key 版本号键
+     * @return 新版本号，Redis 不可用时返回 null
+     */
+    public Long incrementVersion(String key) {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().increment(key);
+        } catch (Exception e) {
+            log.warn("自增版本号失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取版本号
+     *
+     * @param key 版本号键
+     * @return 当前版本号，键不存在时返回 0，Redis 不可用时返回 null
+     */
+    public Long getVersion(String key) {
+        StringRedisTemplate redisTemplate = redisTemplateProvider.getIfAvailable();
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            return value != null ? Long.parseLong(value.trim()) : 0L;
+        } catch (Exception e) {
+            log.warn("读取版本号失败: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 延迟创建监听容器（只有存在订阅者时才建立 Redis 订阅连接）
+     */
+    private RedisMessageListenerContainer getOrCreateContainer() {
+        RedisMessageListenerContainer current = container;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (container != null) {
+                return container;
+            }
+            RedisConnectionFactory connectionFactory = connectionFactoryProvider.getIfAvailable();
+            if (connectionFactory == null) {
+                return null;
+            }
+            try {
+                RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+                listenerContainer.setConnectionFactory(connectionFactory);
+                listenerContainer.afterPropertiesSet();
+                listenerContainer.start();
+                container = listenerContainer;
+            } catch (Exception e) {
+                log.warn("创建 Redis 监听容器失败，降级为本地模式: {}", e.getMessage());
+                return null;
+            }
+            return container;
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        RedisMessageListenerContainer current = container;
+        if (current != null) {
+            current.destroy();
+        }
+    }
+}
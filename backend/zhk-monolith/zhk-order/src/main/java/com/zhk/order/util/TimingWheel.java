@@ -0,0 +1,165 @@
+package com.zhk.order.util;
+
+/**
+ * 分层时间轮
+ * 共 5 层，每层 64 个槽位，第 0 层每个槽位代表一个 tick，上一层每个槽位覆盖下一层一整圈。
+ * 添加任务和推进时间的均摊复杂度均为 O(1)，与在途任务数量无关；超出时间轮范围的任务暂存在最高层，级联时重新放置。
+ * 不支持直接删除任务，调用方在到期回调中根据 deadline 自行过滤已失效的任务（惰性删除）。
+ * 注意：非线程安全，调用方需自行加锁。
+ *
+ * @author shigure
+ */
+public class TimingWheel {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+    private final Entry[][] slots = new Entry[LEVELS][WHEEL_SIZE];
+
+    /**
+     * 已到期、等待下一次 advance 取走的任务
+     */
+    private Entry due;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis  每个 tick 的时长（毫秒）
+     * @param startMillis 起始时间（毫秒时间戳）
+     */
+    public TimingWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 添加任务
+     *
+     * @param id             任务ID
+     * @param deadlineMillis 到期时间（毫秒时间戳），早于当前时间的任务在下一次 advance 时立即到期
+     */
+    public void add(long id, long deadlineMillis) {
+        // 向上取整，保证任务不会早于 deadline 触发
+        long tick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        place(new Entry(id, deadlineMillis, tick));
+        size++;
+    }
+
+    /**
+     * 推进时间轮到指定时间，并回调所有已到期的任务
+     *
+     * @param nowMillis 当前时间（毫秒时间戳）
+     * @param handler   到期回调
+     * @return 本次到期的任务数
+     */
+    public int advance(long nowMillis, ExpiryHandler handler) {
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            int index = (int) (currentTick & WHEEL_MASK);
+            Entry entry = slots[0][index];
+            slots[0][index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = due;
+                due = entry;
+                entry = next;
+            }
+        }
+
+        int fired = 0;
+        Entry entry = due;
+        due = null;
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.next = null;
+            size--;
+            fired++;
+            handler.onExpire(entry.id, entry.deadline);
+            entry = next;
+        }
+        return fired;
+    }
+
+    /**
+     * 时间轮中的任务数（包含已被调用方判定为失效、但尚未到期的任务）
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 低层转完一圈时，把高层对应槽位的任务下放到低层
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> shift) & WHEEL_MASK);
+            Entry entry = slots[level][index];
+            slots[level][index] = null;
+            while (entry != null) {
+                Entry next = entry.next;
+                place(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        if (entry.tick <= currentTick) {
+            entry.next = due;
+            due = entry;
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = WHEEL_BITS * level;
+            if ((entry.tick >>> shift) - (currentTick >>> shift) < WHEEL_SIZE) {
+                int index = (int) ((entry.tick >>> shift) & WHEEL_MASK);
+                entry.next = slots[level][index];
+                slots[level][index] = entry;
+                return;
+            }
+        }
+        // 超出时间轮范围：放到最高层最远的槽位，级联时重新计算位置
+        int shift = WHEEL_BITS * (LEVELS - 1);
+        int index = (int) (((currentTick >>> shift) + WHEEL_MASK) & WHEEL_MASK);
+        entry.next = slots[LEVELS - 1][index];
+        slots[LEVELS - 1][index] = entry;
+    }
+
+    /**
+     * 到期回调
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+
+        /**
+         * @param id             任务ID
+         * @param deadlineMillis 添加任务时指定的到期时间
+         */
+        void onExpire(long id, long deadlineMillis);
+    }
+
+    private static final class Entry {
+        final long id;
+        final long deadline;
+        final long tick;
+        Entry next;
+
+        Entry(long id, long deadline, long tick) {
+            this.id = id;
+            this.deadline = deadline;
+            this.tick = tick;
+        }
+    }
+}
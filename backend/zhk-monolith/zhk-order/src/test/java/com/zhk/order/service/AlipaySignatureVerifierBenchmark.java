@@ -0,0 +1,130 @@
+package com.zhk.order.service;
+
+import com.alipay.api.AlipayApiException;
+import com.alipay.api.internal.util.AlipaySignature;
+import com.zhk.order.config.AlipayProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AlipaySignatureVerifier 基准测试（每秒验签次数）
+ * 使用临时生成的 RSA2048 密钥和字段数与真实支付宝异步通知相当的参数，
+ * verify 为本项目的验签实现，sdkRsaCheckV1 为支付宝 SDK 的 AlipaySignature.rsaCheckV1，作为对照。
+ * 默认单线程，结果即单核吞吐量；-t 指定线程数可观察多核扩展性。
+ * 运行方式（不随 mvn test 执行）：
+ * <pre>
+ * mvn -pl zhk-monolith/zhk-order -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp zhk-monolith/zhk-order/target/test-classes:zhk-monolith/zhk-order/target/classes:$(cat zhk-monolith/zhk-order/target/cp.txt) \
+ *     org.openjdk.jmh.Main AlipaySignatureVerifierBenchmark -t 1
+ * </pre>
+ *
+ * @author shigure
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AlipaySignatureVerifierBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Notification {
+        AlipaySignatureVerifier verifier;
+        String publicKey;
+        Map<String, String> params;
+
+        @Setup(Level.Trial)
+        public void setUp() throws GeneralSecurityException {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            KeyPair keyPair = generator.generateKeyPair();
+            publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+
+            AlipayProperties properties = new AlipayProperties();
+            properties.setAlipayPublicKey(publicKey);
+            properties.setSignType("RSA2");
+            verifier = new AlipaySignatureVerifier(properties);
+            verifier.init();
+
+            params = notification();
+            Signature signature = Signature.getInstance("SHA256WithRSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update(AlipaySignatureVerifier.content(params).getBytes(StandardCharsets.UTF_8));
+            params.put("sign", Base64.getEncoder().encodeToString(signature.sign()));
+            params.put("sign_type", "RSA2");
+            if (!verifier.verify(params)) {
+                throw new IllegalStateException("benchmark notification does not verify");
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean verify(Notification state) {
+        return state.verifier.verify(state.params);
+    }
+
+    @Benchmark
+    public boolean sdkRsaCheckV1(Notification state) throws AlipayApiException {
+        // SDK 可能修改传入的参数，每次传入副本（复制的开销相对 RSA 验签可以忽略）
+        return AlipaySignature.rsaCheckV1(new HashMap<>(state.params), state.publicKey, "UTF-8", "RSA2");
+    }
+
+    /**
+     * 与支付宝 TRADE_SUCCESS 异步通知字段相当的参数
+     */
+    static Map<String, String> notification() {
+        Map<String, String> params = new HashMap<>();
+        params.put("gmt_create", "2024-01-01 12:00:00");
+        params.put("charset", "UTF-8");
+        params.put("seller_email", "merchant@example.com");
+        params.put("subject", "王者荣耀账号租赁");
+        params.put("buyer_id", "2088102177846880");
+        params.put("invoice_amount", "88.00");
+        params.put("notify_id", "2024010100222120001000000000000000");
+        params.put("fund_bill_list", "[{\"amount\":\"88.00\",\"fundChannel\":\"ALIPAYACCOUNT\"}]");
+        params.put("notify_type", "trade_status_sync");
+        params.put("trade_status", "TRADE_SUCCESS");
+        params.put("receipt_amount", "88.00");
+        params.put("app_id", "2021000000000000");
+        params.put("buyer_pay_amount", "88.00");
+        params.put("seller_id", "2088102177649450");
+        params.put("gmt_payment", "2024-01-01 12:00:05");
+        params.put("notify_time", "2024-01-01 12:00:06");
+        params.put("version", "1.0");
+        params.put("out_trade_no", "PAY202401010001");
+        params.put("total_amount", "88.00");
+        params.put("trade_no", "2024010122001400000000000001");
+        params.put("auth_app_id", "2021000000000000");
+        params.put("buyer_logon_id", "tes***@example.com");
+        params.put("point_amount", "0.00");
+        return params;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AlipaySignatureVerifierBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,129 @@
+package com.zhk.order.service;
+
+import com.alipay.api.internal.util.AlipaySignature;
+import com.zhk.order.config.AlipayProperties;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AlipaySignatureVerifier 单元测试
+ * 用临时生成的 RSA 密钥签名，结果与支付宝 SDK 的 AlipaySignature.rsaCheckV1 对照
+ *
+ * @author shigure
+ */
+class AlipaySignatureVerifierTest {
+
+    private static KeyPair keyPair;
+    private static String publicKey;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        publicKey = Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    @Test
+    void contentSkipsSignFieldsAndSortsKeys() {
+        Map<String, String> params = new HashMap<>();
+        params.put("trade_no", "2024");
+        params.put("app_id", "100");
+        params.put("sign", "x");
+        params.put("sign_type", "RSA2");
+        params.put("out_trade_no", "A1");
+        assertEquals("app_id=100&out_trade_no=A1&trade_no=2024", AlipaySignatureVerifier.content(params));
+    }
+
+    @Test
+    void acceptsValidSignatureAndAgreesWithSdk() throws Exception {
+        AlipaySignatureVerifier verifier = verifier(publicKey, "RSA2");
+        Map<String, String> params = notification();
+        params.put("sign", sign("SHA256WithRSA", AlipaySignatureVerifier.content(params)));
+        params.put("sign_type", "RSA2");
+        Map<String, String> original = new HashMap<>(params);
+
+        assertTrue(verifier.verify(params));
+        assertEquals(original, params);
+        assertTrue(AlipaySignature.rsaCheckV1(new HashMap<>(params), publicKey, "UTF-8", "RSA2"));
+        // 复用同一线程的 Signature 实例
+        assertTrue(verifier.verify(params));
+    }
+
+    @Test
+    void supportsSha1WhenSignTypeIsRsa() throws Exception {
+        AlipaySignatureVerifier verifier = verifier(publicKey, "RSA");
+        Map<String, String> params = notification();
+        params.put("sign", sign("SHA1WithRSA", AlipaySignatureVerifier.content(params)));
+
+        assertTrue(verifier.verify(params));
+        assertTrue(AlipaySignature.rsaCheckV1(new HashMap<>(params), publicKey, "UTF-8", "RSA"));
+    }
+
+    @Test
+    void rejectsTamperedParameters() throws Exception {
+        AlipaySignatureVerifier verifier = verifier(publicKey, "RSA2");
+        Map<String, String> params = notification();
+        params.put("sign", sign("SHA256WithRSA", AlipaySignatureVerifier.content(params)));
+        params.put("total_amount", "0.01");
+
+        assertFalse(verifier.verify(params));
+        assertFalse(AlipaySignature.rsaCheckV1(new HashMap<>(params), publicKey, "UTF-8", "RSA2"));
+        // 失败后同一线程仍能正常验签
+        params.put("total_amount", "88.00");
+        assertTrue(verifier.verify(params));
+    }
+
+    @Test
+    void rejectsMissingSignatureGarbageAndMissingKey() throws Exception {
+        AlipaySignatureVerifier verifier = verifier(publicKey, "RSA2");
+        Map<String, String> params = notification();
+        assertFalse(verifier.verify(params));
+
+        params.put("sign", "not base64!");
+        assertFalse(verifier.verify(params));
+
+        params.put("sign", sign("SHA256WithRSA", AlipaySignatureVerifier.content(params)));
+        assertFalse(verifier(null, "RSA2").verify(params));
+        assertFalse(verifier("invalid key", "RSA2").verify(params));
+    }
+
+    private static AlipaySignatureVerifier verifier(String key, String signType) {
+        AlipayProperties properties = new AlipayProperties();
+        properties.setAlipayPublicKey(key);
+        properties.setSignType(signType);
+        AlipaySignatureVerifier verifier = new AlipaySignatureVerifier(properties);
+        verifier.init();
+        return verifier;
+    }
+
+    private static Map<String, String> notification() {
+        Map<String, String> params = new HashMap<>();
+        params.put("app_id", "2021000000000000");
+        params.put("out_trade_no", "PAY202401010001");
+        params.put("trade_no", "2024010122001400000000000001");
+        params.put("trade_status", "TRADE_SUCCESS");
+        params.put("total_amount", "88.00");
+        params.put("subject", "王者荣耀账号租赁");
+        return params;
+    }
+
+    private static String sign(String algorithm, String content) throws Exception {
+        Signature signature = Signature.getInstance(algorithm);
+        signature.initSign(keyPair.getPrivate());
+        signature.update(content.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signature.sign());
+    }
+}
@@ -0,0 +1,168 @@
+package com.zhk.order.service;
+
+import com.zhk.order.util.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LeaseExpiryScheduler 基准测试：10 万个在途租约
+ * 结果为单个租约的平均耗时：
+ * scheduleAll 为启动加载（向空调度器排期 10 万个订单），renewAll 为在 10 万个在途租约上逐个续租，
+ * cancelAll 为逐个撤销，expireAll 为时间轮按 200ms 一个 tick 推进 24 小时、依次到期全部 10 万个租约。
+ * 调度器不连接数据库，也不启动推进线程，只测量内存中的排期开销。
+ * 运行方式（不随 mvn test 执行）：
+ * <pre>
+ * mvn -pl zhk-monolith/zhk-order -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp zhk-monolith/zhk-order/target/test-classes:zhk-monolith/zhk-order/target/classes:$(cat zhk-monolith/zhk-order/target/cp.txt) \
+ *     com.zhk.order.service.LeaseExpirySchedulerBenchmark
+ * </pre>
+ *
+ * @author shigure
+ */
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LeaseExpirySchedulerBenchmark {
+
+    static final int LEASES = 100_000;
+    static final long TICK_MILLIS = 200L;
+    static final long HORIZON_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * 固定的订单ID和到期时间（从现在起 24 小时内均匀分布）
+     */
+    @State(Scope.Benchmark)
+    public static class Leases {
+        long startMillis;
+        long[] orderIds;
+        long[] deadlines;
+        LocalDateTime[] endTimes;
+        LocalDateTime[] renewedEndTimes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(20240101L);
+            startMillis = System.currentTimeMillis();
+            orderIds = new long[LEASES];
+            deadlines = new long[LEASES];
+            endTimes = new LocalDateTime[LEASES];
+            renewedEndTimes = new LocalDateTime[LEASES];
+            for (int i = 0; i < LEASES; i++) {
+                orderIds[i] = 1_000_000_000L + i;
+                deadlines[i] = startMillis + 60_000L + (long) (random.nextDouble() * HORIZON_MILLIS);
+                endTimes[i] = LocalDateTime.ofInstant(Instant.ofEpochMilli(deadlines[i]), ZoneId.systemDefault());
+                renewedEndTimes[i] = endTimes[i].plusHours(1);
+            }
+        }
+    }
+
+    /**
+     * 每次调用前重新创建调度器；loaded 为 true 时预先排期全部租约
+     */
+    public abstract static class SchedulerState {
+        LeaseExpiryScheduler scheduler;
+
+        void create(Leases leases, boolean loaded) {
+            scheduler = new LeaseExpiryScheduler(null, null);
+            ReflectionTestUtils.setField(scheduler, "wheel", new TimingWheel(TICK_MILLIS, leases.startMillis));
+            if (loaded) {
+                for (int i = 0; i < LEASES; i++) {
+                    scheduler.schedule(leases.orderIds[i], leases.endTimes[i]);
+                }
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class EmptyScheduler extends SchedulerState {
+        @Setup(Level.Invocation)
+        public void setUp(Leases leases) {
+            create(leases, false);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LoadedScheduler extends SchedulerState {
+        @Setup(Level.Invocation)
+        public void setUp(Leases leases) {
+            create(leases, true);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class LoadedWheel {
+        TimingWheel wheel;
+
+        @Setup(Level.Invocation)
+        public void setUp(Leases leases) {
+            wheel = new TimingWheel(TICK_MILLIS, leases.startMillis);
+            for (int i = 0; i < LEASES; i++) {
+                wheel.add(leases.orderIds[i], leases.deadlines[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEASES)
+    public int scheduleAll(Leases leases, EmptyScheduler state) {
+        for (int i = 0; i < LEASES; i++) {
+            state.scheduler.schedule(leases.orderIds[i], leases.endTimes[i]);
+        }
+        return state.scheduler.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEASES)
+    public int renewAll(Leases leases, LoadedScheduler state) {
+        for (int i = 0; i < LEASES; i++) {
+            state.scheduler.schedule(leases.orderIds[i], leases.renewedEndTimes[i]);
+        }
+        return state.scheduler.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEASES)
+    public int cancelAll(Leases leases, LoadedScheduler state) {
+        for (int i = 0; i < LEASES; i++) {
+            state.scheduler.cancel(leases.orderIds[i]);
+        }
+        return state.scheduler.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LEASES)
+    public long expireAll(Leases leases, LoadedWheel state) {
+        long[] expired = new long[1];
+        long end = leases.startMillis + 60_000L + HORIZON_MILLIS + TICK_MILLIS;
+        for (long now = leases.startMillis; now <= end; now += TICK_MILLIS) {
+            state.wheel.advance(now, (orderId, deadline) -> expired[0]++);
+        }
+        return expired[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LeaseExpirySchedulerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
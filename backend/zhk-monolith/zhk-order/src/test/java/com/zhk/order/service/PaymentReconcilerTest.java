@@ -0,0 +1,238 @@
+package com.zhk.order.service;
+
+import com.zhk.order.dto.CreatePaymentDTO;
+import com.zhk.order.dto.PaymentVO;
+import com.zhk.order.entity.PaymentRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PaymentReconciler 单元测试
+ * 支付记录查询换成内存中的分页实现，支付宝查询换成桩实现
+ *
+ * @author shigure
+ */
+class PaymentReconcilerTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void appliesSuccessAndClosedAndLeavesUnknownUnchanged() {
+        StubAlipay alipay = new StubAlipay();
+        alipay.statuses.put("PAY1", "success");
+        alipay.statuses.put("PAY2", "failed");
+        alipay.statuses.put("PAY3", "pending");
+        alipay.statuses.put("PAY4", "unknown");
+        alipay.failing.add("PAY5");
+        InMemoryReconciler reconciler = reconciler(alipay, records(6), 200, 4, 0);
+        try {
+            PaymentReconciler.RunStats stats = reconciler.reconcileOnce();
+
+            assertEquals(6, stats.getScanned());
+            assertEquals(6, stats.getQueried());
+            assertEquals(1, stats.getSucceeded());
+            assertEquals(1, stats.getClosed());
+            // pending、未知状态以及查询结果为 null（PAY6）都不改变记录
+            assertEquals(3, stats.getUnchanged());
+            assertEquals(1, stats.getErrors());
+            assertEquals("TRADE_SUCCESS", alipay.applied.get("PAY1"));
+            assertEquals("TRADE_CLOSED", alipay.applied.get("PAY2"));
+            assertEquals(2, alipay.applied.size());
+        } finally {
+            reconciler.destroy();
+        }
+    }
+
+    @Test
+    void pagesPastBatchSizeWithCreatedAtAndIdCursor() {
+        StubAlipay alipay = new StubAlipay();
+        // 每 4 条记录共用同一个创建时间，分页边界会落在相同 created_at 的记录中间
+        List<PaymentRecord> records = records(10);
+        InMemoryReconciler reconciler = reconciler(alipay, records, 3, 2, 0);
+        try {
+            PaymentReconciler.RunStats stats = reconciler.reconcileOnce();
+
+            assertEquals(10, stats.getScanned());
+            assertEquals(10, alipay.queried.size());
+            assertEquals(10, alipay.queried.stream().distinct().count());
+            assertEquals(4, reconciler.cursors.size());
+            assertNull(reconciler.cursors.get(0)[1]);
+            for (int page = 1; page < 4; page++) {
+                PaymentRecord last = records.get(page * 3 - 1);
+                assertEquals(last.getCreatedAt(), reconciler.cursors.get(page)[0]);
+                assertEquals(last.getId(), reconciler.cursors.get(page)[1]);
+            }
+        } finally {
+            reconciler.destroy();
+        }
+    }
+
+    @Test
+    void concurrentQueriesNeverExceedCap() {
+        StubAlipay alipay = new StubAlipay();
+        alipay.latencyMillis = 20;
+        InMemoryReconciler reconciler = reconciler(alipay, records(20), 200, 3, 0);
+        try {
+            PaymentReconciler.RunStats stats = reconciler.reconcileOnce();
+
+            assertEquals(20, stats.getQueried());
+            assertTrue(alipay.maxInFlight.get() <= 3, "maxInFlight=" + alipay.maxInFlight.get());
+            assertTrue(alipay.maxInFlight.get() >= 2, "maxInFlight=" + alipay.maxInFlight.get());
+        } finally {
+            reconciler.destroy();
+        }
+    }
+
+    @Test
+    void queriesArePacedAtRatePerSecond() {
+        StubAlipay alipay = new StubAlipay();
+        // 每秒 50 次，即两次查询至少间隔 20ms；11 次查询至少需要 200ms
+        InMemoryReconciler reconciler = reconciler(alipay, records(11), 200, 4, 50);
+        try {
+            PaymentReconciler.RunStats stats = reconciler.reconcileOnce();
+
+            assertEquals(11, stats.getQueried());
+            assertTrue(stats.getElapsedMillis() >= 195, "elapsedMillis=" + stats.getElapsedMillis());
+            List<Long> starts = new ArrayList<>(alipay.startNanos);
+            starts.sort(Comparator.naturalOrder());
+            long spanMillis = (starts.get(starts.size() - 1) - starts.get(0)) / 1_000_000;
+            assertTrue(spanMillis >= 195, "spanMillis=" + spanMillis);
+        } finally {
+            reconciler.destroy();
+        }
+    }
+
+    private static InMemoryReconciler reconciler(StubAlipay alipay, List<PaymentRecord> records,
+                                                 int batchSize, int concurrency, int ratePerSecond) {
+        InMemoryReconciler reconciler = new InMemoryReconciler(alipay, records);
+        ReflectionTestUtils.setField(reconciler, "enabled", true);
+        ReflectionTestUtils.setField(reconciler, "minAgeSeconds", 120L);
+        ReflectionTestUtils.setField(reconciler, "maxAgeMinutes", 30L);
+        ReflectionTestUtils.setField(reconciler, "batchSize", batchSize);
+        ReflectionTestUtils.setField(reconciler, "concurrency", concurrency);
+        ReflectionTestUtils.setField(reconciler, "ratePerSecond", ratePerSecond);
+        reconciler.init();
+        return reconciler;
+    }
+
+    private static List<PaymentRecord> records(int count) {
+        List<PaymentRecord> records = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            PaymentRecord record = new PaymentRecord();
+            record.setId((long) i);
+            record.setTransactionId("PAY" + i);
+            record.setCreatedAt(BASE.plusSeconds((i - 1) / 4));
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * 按 (created_at, id) 升序在内存中分页，记录每次查询的游标
+     */
+    private static final class InMemoryReconciler extends PaymentReconciler {
+        private final List<PaymentRecord> records;
+        private final List<Object[]> cursors = new ArrayList<>();
+
+        InMemoryReconciler(AlipayPaymentService alipayPaymentService, List<PaymentRecord> records) {
+            super(null, alipayPaymentService);
+            this.records = records;
+        }
+
+        @Override
+        List<PaymentRecord> selectPending(LocalDateTime from, LocalDateTime to,
+                                          LocalDateTime afterCreatedAt, Long afterId, int pageSize) {
+            cursors.add(new Object[]{afterCreatedAt, afterId});
+            List<PaymentRecord> page = new ArrayList<>();
+            for (PaymentRecord record : records) {
+                if (afterCreatedAt != null && afterId != null) {
+                    int compare = record.getCreatedAt().compareTo(afterCreatedAt);
+                    if (compare < 0 || (compare == 0 && record.getId() <= afterId)) {
+                        continue;
+                    }
+                }
+                page.add(record);
+                if (page.size() == pageSize + 1) {
+                    break;
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * 支付宝查询桩：按订单号返回预设状态，并统计并发数和查询开始时间
+     */
+    private static final class StubAlipay implements AlipayPaymentService {
+        private final Map<String, String> statuses = new ConcurrentHashMap<>();
+        private final List<String> failing = new CopyOnWriteArrayList<>();
+        private final Map<String, String> applied = new ConcurrentHashMap<>();
+        private final List<String> queried = new CopyOnWriteArrayList<>();
+        private final List<Long> startNanos = new CopyOnWriteArrayList<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private volatile long latencyMillis;
+
+        @Override
+        public PaymentVO queryPaymentStatus(String outTradeNo) {
+            startNanos.add(System.nanoTime());
+            queried.add(outTradeNo);
+            int current = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(current, Math::max);
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+                if (failing.contains(outTradeNo)) {
+                    throw new IllegalStateException("gateway timeout");
+                }
+                String status = statuses.get(outTradeNo);
+                if (status == null) {
+                    return null;
+                }
+                PaymentVO vo = new PaymentVO();
+                vo.setTransactionId(outTradeNo);
+                vo.setStatus(status);
+                return vo;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void applyTradeStatus(String outTradeNo, String tradeStatus, String tradeNo) {
+            applied.put(outTradeNo, tradeStatus);
+        }
+
+        @Override
+        public PaymentVO createPayment(Long userId, CreatePaymentDTO dto) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void handleNotify(Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean verifyNotify(Map<String, String> params) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
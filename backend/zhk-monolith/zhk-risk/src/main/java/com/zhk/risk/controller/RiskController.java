@@ -2,6 +2,9 @@ package com.zhk.risk.controller;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhk.common.core.page.CursorPage;
+import com.zhk.common.core.page.SeekCursor;
+import com.zhk.common.core.page.SeekPagination;
 import com.zhk.common.security.SecurityUtils;
 import com.zhk.common.web.BusinessException;
 import com.zhk.common.web.Result;
@@ -23,6 +26,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * 风控控制器
@@ -63,16 +67,7 @@ public class RiskController {
         }
 
         try {
-            LambdaQueryWrapper<UserLoginRecord> wrapper = new LambdaQueryWrapper<>();
-            if (userId != null) {
-                wrapper.eq(UserLoginRecord::getUserId, userId);
-            }
-            if (ipAddress != null && !ipAddress.isEmpty()) {
-                wrapper.eq(UserLoginRecord::getIpAddress, ipAddress);
-            }
-            if (riskLevel != null) {
-                wrapper.eq(UserLoginRecord::getRiskLevel, riskLevel);
-            }
+            LambdaQueryWrapper<UserLoginRecord> wrapper = loginRecordWrapper(userId, ipAddress, riskLevel);
             wrapper.orderByDesc(UserLoginRecord::getLoginTime);
 
             Page<UserLoginRecord> pageParam = new Page<>(page, pageSize);
@@ -103,16 +98,7 @@ public class RiskController {
             throw new BusinessException(401, "未授权，请先登录");
         }
 
-        LambdaQueryWrapper<AbnormalBehavior> wrapper = new LambdaQueryWrapper<>();
-        if (userId != null) {
-            wrapper.eq(AbnormalBehavior::getUserId, userId);
-        }
-        if (behaviorType != null && !behaviorType.isEmpty()) {
-            wrapper.eq(AbnormalBehavior::getBehaviorType, behaviorType);
-        }
-        if (status != null) {
-            wrapper.eq(AbnormalBehavior::getStatus, status);
-        }
+        LambdaQueryWrapper<AbnormalBehavior> wrapper = abnormalBehaviorWrapper(userId, behaviorType, status);
         wrapper.orderByDesc(AbnormalBehavior::getCreatedAt);
 
         Page<AbnormalBehavior> pageParam = new Page<>(page, pageSize);
@@ -141,13 +127,7 @@ public class RiskController {
             throw new BusinessException(401, "未授权，请先登录");
         }
 
-        LambdaQueryWrapper<Blacklist> wrapper = new LambdaQueryWrapper<>();
-        if (type != null && !type.isEmpty()) {
-            wrapper.eq(Blacklist::getType, type);
-        }
-        if (status != null) {
-            wrapper.eq(Blacklist::getStatus, status);
-        }
+        LambdaQueryWrapper<Blacklist> wrapper = blacklistWrapper(type, status);
         wrapper.orderByDesc(Blacklist::getCreatedAt);
 
         Page<Blacklist> pageParam = new Page<>(page, pageSize);
@@ -160,6 +140,86 @@ public class RiskController {
         }
     }
 
+    /**
+     * 获取登录记录列表（游标分页，请求携带 cursor 参数时生效，第一页传空字符串，不返回总数）
+     */
+    @GetMapping(value = "/login-records", params = "cursor")
+    @PreAuthorize("hasRole('OPERATOR')")
+    public Result<CursorPage<UserLoginRecord>> getLoginRecordsByCursor(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String ipAddress,
+            @RequestParam(required = false) Integer riskLevel,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize
+    ) {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new BusinessException(401, "未授权，请先登录");
+        }
+
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 20);
+        LambdaQueryWrapper<UserLoginRecord> wrapper = loginRecordWrapper(userId, ipAddress, riskLevel);
+        SeekPagination.seek(wrapper, UserLoginRecord::getLoginTime, UserLoginRecord::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<UserLoginRecord> records = loginRecordMapper.selectList(wrapper);
+        return Result.success("查询成功", SeekPagination.page(records, size,
+                record -> SeekCursor.ofTime(record.getLoginTime(), record.getId()), Function.identity()));
+    }
+
+    /**
+     * 获取异常行为列表（游标分页）
+     */
+    @GetMapping(value = "/abnormal-behaviors", params = "cursor")
+    @PreAuthorize("hasRole('OPERATOR')")
+    public Result<CursorPage<AbnormalBehavior>> getAbnormalBehaviorsByCursor(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String behaviorType,
+            @RequestParam(required = false) Integer status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize
+    ) {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new BusinessException(401, "未授权，请先登录");
+        }
+
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 20);
+        LambdaQueryWrapper<AbnormalBehavior> wrapper = abnormalBehaviorWrapper(userId, behaviorType, status);
+        SeekPagination.seek(wrapper, AbnormalBehavior::getCreatedAt, AbnormalBehavior::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<AbnormalBehavior> behaviors = behaviorMapper.selectList(wrapper);
+        return Result.success("查询成功", SeekPagination.page(behaviors, size,
+                behavior -> SeekCursor.ofTime(behavior.getCreatedAt(), behavior.getId()), Function.identity()));
+    }
+
+    /**
+     * 获取黑名单列表（游标分页）
+     */
+    @GetMapping(value = "/blacklist", params = "cursor")
+    @PreAuthorize("hasRole('OPERATOR')")
+    public Result<CursorPage<Blacklist>> getBlacklistByCursor(
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) Integer status,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize
+    ) {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new BusinessException(401, "未授权，请先登录");
+        }
+
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 20);
+        LambdaQueryWrapper<Blacklist> wrapper = blacklistWrapper(type, status);
+        SeekPagination.seek(wrapper, Blacklist::getCreatedAt, Blacklist::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<Blacklist> blacklists = blacklistMapper.selectList(wrapper);
+        return Result.success("查询成功", SeekPagination.page(blacklists, size,
+                blacklist -> SeekCursor.ofTime(blacklist.getCreatedAt(), blacklist.getId()), Function.identity()));
+    }
+
     /**
      * 添加黑名单
      */
@@ -264,5 +324,43 @@ public class RiskController {
 
         return Result.success("查询成功", stats);
     }
-}
 
+    private LambdaQueryWrapper<UserLoginRecord> loginRecordWrapper(Long userId, String ipAddress, Integer riskLevel) {
+        LambdaQueryWrapper<UserLoginRecord> wrapper = new LambdaQueryWrapper<>();
+        if (userId != null) {
+            wrapper.eq(UserLoginRecord::getUserId, userId);
+        }
+        if (ipAddress != null && !ipAddress.isEmpty()) {
+            wrapper.eq(UserLoginRecord::getIpAddress, ipAddress);
+        }
+        if (riskLevel != null) {
+            wrapper.eq(UserLoginRecord::getRiskLevel, riskLevel);
+        }
+        return wrapper;
+    }
+
+    private LambdaQueryWrapper<AbnormalBehavior> abnormalBehaviorWrapper(Long userId, String behaviorType, Integer status) {
+        LambdaQueryWrapper<AbnormalBehavior> wrapper = new LambdaQueryWrapper<>();
+        if (userId != null) {
+            wrapper.eq(AbnormalBehavior::getUserId, userId);
+        }
+        if (behaviorType != null && !behaviorType.isEmpty()) {
+            wrapper.eq(AbnormalBehavior::getBehaviorType, behaviorType);
+        }
+        if (status != null) {
+            wrapper.eq(AbnormalBehavior::getStatus, status);
+        }
+        return wrapper;
+    }
+
+    private LambdaQueryWrapper<Blacklist> blacklistWrapper(String type, Integer status) {
+        LambdaQueryWrapper<Blacklist> wrapper = new LambdaQueryWrapper<>();
+        if (type != null && !type.isEmpty()) {
+            wrapper.eq(Blacklist::getType, type);
+        }
+        if (status != null) {
+            wrapper.eq(Blacklist::getStatus, status);
+        }
+        return wrapper;
+    }
+}
@@ -0,0 +1,56 @@
+package com.zhk.risk.dto;
+
+import com.zhk.risk.entity.UserCommonLocation;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 单次登录风控检查的上下文
+ * 各阶段的查询结果保存在这里供后续阶段复用，每次登录的地理位置、常用登录地和多地登录窗口只查询一次。
+ *
+ * @author shigure
+ */
+@Data
+public class LoginRiskContext {
+    /**
+     * 用户ID
+     */
+    private final Long userId;
+
+    /**
+     * IP地址
+     */
+    private final String ipAddress;
+
+    /**
+     * 用户代理
+     */
+    private final String userAgent;
+
+    /**
+     * 设备指纹
+     */
+    private final String deviceFingerprint;
+
+    /**
+     * 登录时间
+     */
+    private final LocalDateTime loginTime = LocalDateTime.now();
+
+    /**
+     * 当前登录位置
+     */
+    private LocationInfo location;
+
+    /**
+     * 用户的全部常用登录地
+     */
+    private List<UserCommonLocation> commonLocations;
+
+    /**
+     * 多地登录时间窗口内登录过的不同 IP 数（不含本次）
+     */
+    private int recentDistinctIps;
+}
@@ -0,0 +1,251 @@
+package com.zhk.risk.service;
+
+import com.zhk.common.core.cache.ExpiringLruCache;
+import com.zhk.order.event.OrderCancelledEvent;
+import com.zhk.order.event.PaymentResultEvent;
+import com.zhk.risk.util.SlidingWindowCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用户行为计数
+ * 订阅订单模块的取消订单、支付结果事件（事务提交后），按用户维护分桶计数，
+ * 风控检查直接读取最近 1 小时的取消次数和最近 zhk.risk.behavior.payment-window-hours 小时的支付次数、失败次数，
+ * 不再查询 lease_order 和 payment_record。
+ * 1. 本地每个用户一个 {@link SlidingWindowCounter}（取消：12 个 5 分钟桶；支付：每小时一个桶，次数和失败数共用）；
+ * 2. Redis 可用时同时写入 Redis 哈希（字段为 "通道:桶编号"），多节点读取 Redis 中的合计，
+ *    读取时顺便删除窗口外的字段，键在窗口结束后自动过期；Redis 调用失败时读取本地计数。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+public class BehaviorCounters {
+
+    private static final String CANCEL_KEY_PREFIX = "risk:behavior:cancel:";
+    private static final String PAYMENT_KEY_PREFIX = "risk:behavior:payment:";
+    private static final int LOCAL_MAX_USERS = 100000;
+
+    private static final int CANCEL_BUCKETS = 12;
+    private static final long CANCEL_BUCKET_MILLIS = 5 * 60_000L;
+    private static final long PAYMENT_BUCKET_MILLIS = 60 * 60_000L;
+
+    private static final int CANCELS = 0;
+    private static final int PAYMENT_ATTEMPTS = 0;
+    private static final int PAYMENT_FAILURES = 1;
+
+    /**
+     * 删除窗口外的字段，按通道返回窗口内的合计
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SUM_SCRIPT = new DefaultRedisScript<>(
+            "local fields = redis.call('hgetall', KEYS[1]) "
+                    + "local sums = {} "
+                    + "for i = 1, tonumber(ARGV[2]) do sums[i] = 0 end "
+                    + "for i = 1, #fields, 2 do "
+                    + "  local sep = string.find(fields[i], ':', 1, true) "
+                    + "  local channel = tonumber(string.sub(fields[i], 1, sep - 1)) "
+                    + "  local bucket = tonumber(string.sub(fields[i], sep + 1)) "
+                    + "  if bucket < tonumber(ARGV[1]) then redis.call('hdel', KEYS[1], fields[i]) "
+                    + "  elseif sums[channel + 1] then sums[channel + 1] = sums[channel + 1] + tonumber(fields[i + 1]) end "
+                    + "end "
+                    + "return sums",
+            List.class);
+
+    /**
+     * 每个字段加 1 并刷新过期时间
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do redis.call('hincrby', KEYS[1], ARGV[i], 1) end "
+                    + "redis.call('pexpire', KEYS[1], ARGV[1]) "
+                    + "return 1",
+            Long.class);
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate; // Redis 不可用时为 null
+
+    private final int paymentBuckets;
+    private final ExpiringLruCache<Long, SlidingWindowCounter> localCancels;
+    private final ExpiringLruCache<Long, SlidingWindowCounter> localPayments;
+
+    public BehaviorCounters(@Value("${zhk.risk.behavior.payment-window-hours:24}") int paymentWindowHours) {
+        this.paymentBuckets = Math.max(1, paymentWindowHours);
+        this.localCancels = new ExpiringLruCache<>(LOCAL_MAX_USERS, CANCEL_BUCKETS * CANCEL_BUCKET_MILLIS);
+        this.localPayments = new ExpiringLruCache<>(LOCAL_MAX_USERS, paymentBuckets * PAYMENT_BUCKET_MILLIS);
+    }
+
+    /**
+     * 取消订单计数（超时未支付的自动取消不计）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCancelled(OrderCancelledEvent event) {
+        if (event.getUserId() == null || !event.isUserInitiated()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long bucket = now / CANCEL_BUCKET_MILLIS;
+        localCounter(localCancels, event.getUserId(), CANCEL_BUCKETS, CANCEL_BUCKET_MILLIS, 1).add(now, CANCELS, 1);
+        increment(CANCEL_KEY_PREFIX + event.getUserId(), CANCEL_BUCKETS * CANCEL_BUCKET_MILLIS,
+                CANCELS + ":" + bucket);
+    }
+
+    /**
+     * 支付结果计数：每个结果计一次支付，失败时同时计一次失败
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPaymentResult(PaymentResultEvent event) {
+        if (event.getUserId() == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long bucket = now / PAYMENT_BUCKET_MILLIS;
+        SlidingWindowCounter counter = localCounter(localPayments, event.getUserId(),
+                paymentBuckets, PAYMENT_BUCKET_MILLIS, 2);
+        counter.add(now, PAYMENT_ATTEMPTS, 1);
+        String key = PAYMENT_KEY_PREFIX + event.getUserId();
+        long ttl = paymentBuckets * PAYMENT_BUCKET_MILLIS;
+        if (event.isSuccess()) {
+            increment(key, ttl, PAYMENT_ATTEMPTS + ":" + bucket);
+        } else {
+            counter.add(now, PAYMENT_FAILURES, 1);
+            increment(key, ttl, PAYMENT_ATTEMPTS + ":" + bucket, PAYMENT_FAILURES + ":" + bucket);
+        }
+    }
+
+    /**
+     * 最近 1 小时内取消订单的次数
+     *
+     * @param userId 用户ID
+     * @return 取消次数
+     */
+    public int recentCancels(long userId) {
+        long now = System.currentTimeMillis();
+        long[] sums = sumFromRedis(CANCEL_KEY_PREFIX + userId, now / CANCEL_BUCKET_MILLIS - CANCEL_BUCKETS + 1, 1);
+        if (sums != null) {
+            return (int) sums[CANCELS];
+        }
+        SlidingWindowCounter counter = localCancels.get(userId);
+        return counter == null ? 0 : counter.sum(now, CANCELS);
+    }
+
+    /**
+     * 支付窗口内的支付次数和失败次数
+     *
+     * @param userId 用户ID
+     * @return 支付统计
+     */
+    public PaymentCounts recentPayments(long userId) {
+        long now = System.currentTimeMillis();
+        long[] sums = sumFromRedis(PAYMENT_KEY_PREFIX + userId, now / PAYMENT_BUCKET_MILLIS - paymentBuckets + 1, 2);
+        if (sums != null) {
+            return new PaymentCounts((int) sums[PAYMENT_ATTEMPTS], (int) sums[PAYMENT_FAILURES]);
+        }
+        SlidingWindowCounter counter = localPayments.get(userId);
+        return counter == null ? new PaymentCounts(0, 0)
+                : new PaymentCounts(counter.sum(now, PAYMENT_ATTEMPTS), counter.sum(now, PAYMENT_FAILURES));
+    }
+
+    /**
+     * 支付窗口长度（小时）
+     */
+    public int paymentWindowHours() {
+        return paymentBuckets;
+    }
+
+    private SlidingWindowCounter localCounter(ExpiringLruCache<Long, SlidingWindowCounter> cache, long userId,
+                                              int bucketCount, long bucketMillis, int channels) {
+        SlidingWindowCounter counter = cache.get(userId);
+        if (counter == null) {
+            synchronized (cache) {
+                counter = cache.get(userId);
+                if (counter == null) {
+                    counter = new SlidingWindowCounter(bucketCount, bucketMillis, channels);
+                }
+                // 每次计数都重新放入，以刷新过期时间
+                cache.put(userId, counter);
+            }
+        } else {
+            cache.put(userId, counter);
+        }
+        return counter;
+    }
+
+    private void increment(String key, long ttlMillis, String... fields) {
+        if (redisTemplate == null) {
+            return;
+        }
+        Object[] args = new Object[fields.length + 1];
+        args[0] = String.valueOf(ttlMillis);
+        System.arraycopy(fields, 0, args, 1, fields.length);
+        try {
+            redisTemplate.execute(INCREMENT_SCRIPT, Collections.singletonList(key), args);
+        } catch (Exception e) {
+            log.warn("写入行为计数失败，仅保留本地计数: key={}, error={}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * 从 Redis 读取各通道合计，Redis 不可用或调用失败时返回 null
+     */
+    private long[] sumFromRedis(String key, long minBucket, int channels) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            List<?> result = redisTemplate.execute(SUM_SCRIPT, Collections.singletonList(key),
+                    String.valueOf(minBucket), String.valueOf(channels));
+            long[] sums = new long[channels];
+            if (result != null) {
+                for (int i = 0; i < channels && i < result.size(); i++) {
+                    sums[i] = ((Number) result.get(i)).longValue();
+                }
+            }
+            return sums;
+        } catch (Exception e) {
+            log.warn("读取行为计数失败，使用本地计数: key={}, error={}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 支付统计
+     */
+    public static final class PaymentCounts {
+        private final int attempts;
+        private final int failures;
+
+        PaymentCounts(int attempts, int failures) {
+            this.attempts = attempts;
+            this.failures = failures;
+        }
+
+        /**
+         * 支付次数（有结果的支付，成功或失败）
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * 失败次数
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * 失败率，没有支付时为 0
+         */
+        public double getFailureRate() {
+            return attempts == 0 ? 0.0 : (double) failures / attempts;
+        }
+    }
+}
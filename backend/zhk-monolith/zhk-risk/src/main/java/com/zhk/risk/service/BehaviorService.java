@@ -25,11 +25,15 @@ public class BehaviorService {
 
     private final AbnormalBehaviorMapper behaviorMapper;
     private final BlacklistMapper blacklistMapper;
+    private final BlacklistIndex blacklistIndex;
+    private final BehaviorCounters behaviorCounters;
 
     // 频繁取消订单阈值（1小时内）
     private static final int FREQUENT_CANCEL_THRESHOLD = 3;
     // 支付失败率阈值
     private static final double PAYMENT_FAILURE_RATE_THRESHOLD = 0.5;
+    // 计算支付失败率所需的最少支付次数（样本太少时失败率没有意义）
+    private static final int PAYMENT_FAILURE_MIN_ATTEMPTS = 3;
 
     /**
      * 检查是否在黑名单中
@@ -39,15 +43,7 @@ public class BehaviorService {
      * @return 是否在黑名单中
      */
     public boolean isInBlacklist(String type, String value) {
-        LambdaQueryWrapper<Blacklist> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Blacklist::getType, type);
-        wrapper.eq(Blacklist::getValue, value);
-        wrapper.eq(Blacklist::getStatus, 1); // 生效状态
-        wrapper.and(w -> w.isNull(Blacklist::getExpiresAt)
-                .or(w2 -> w2.ge(Blacklist::getExpiresAt, LocalDateTime.now())));
-        
-        Blacklist blacklist = blacklistMapper.selectOne(wrapper);
-        return blacklist != null;
+        return blacklistIndex.contains(type, value);
     }
 
     /**
@@ -57,11 +53,8 @@ public class BehaviorService {
      * @return 是否异常
      */
     public boolean checkFrequentCancel(Long userId) {
-        LocalDateTime oneHourAgo = LocalDateTime.now().minusHours(1);
-        
-        // 查询1小时内的取消订单数（这里简化实现，实际应从订单服务查询）
-        // TODO: 从OrderService查询取消订单数
-        int cancelCount = 0; // 占位符
+        // 1小时内的取消订单数，由 BehaviorCounters 根据取消订单事件累计
+        int cancelCount = behaviorCounters.recentCancels(userId);
         
         if (cancelCount > FREQUENT_CANCEL_THRESHOLD) {
             recordAbnormalBehavior(userId, "FREQUENT_CANCEL",
@@ -80,13 +73,14 @@ public class BehaviorService {
      * @return 是否异常
      */
     public boolean checkPaymentFailureRate(Long userId) {
-        // TODO: 从PaymentService查询支付失败率
-        // 这里简化实现
-        double failureRate = 0.0; // 占位符
+        // 支付窗口内的支付次数和失败次数，由 BehaviorCounters 根据支付结果事件累计
+        BehaviorCounters.PaymentCounts counts = behaviorCounters.recentPayments(userId);
+        double failureRate = counts.getFailureRate();
         
-        if (failureRate > PAYMENT_FAILURE_RATE_THRESHOLD) {
+        if (counts.getAttempts() >= PAYMENT_FAILURE_MIN_ATTEMPTS && failureRate > PAYMENT_FAILURE_RATE_THRESHOLD) {
             recordAbnormalBehavior(userId, "PAYMENT_FAILURE",
-                    String.format("支付失败率%.2f%%，超过阈值%.2f%%", failureRate * 100, PAYMENT_FAILURE_RATE_THRESHOLD * 100),
+                    String.format("%d小时内支付%d次，失败率%.2f%%，超过阈值%.2f%%", behaviorCounters.paymentWindowHours(),
+                            counts.getAttempts(), failureRate * 100, PAYMENT_FAILURE_RATE_THRESHOLD * 100),
                     70, "PAYMENT", null);
             return true;
         }
@@ -163,6 +157,7 @@ public class BehaviorService {
         blacklist.setExpiresAt(expiresAt);
         
         blacklistMapper.insert(blacklist);
+        blacklistIndex.onChanged(blacklist);
         
         log.info("添加黑名单: type={}, value={}, reason={}", type, value, reason);
     }
@@ -177,6 +172,7 @@ public class BehaviorService {
         if (blacklist != null) {
             blacklist.setStatus(0); // 失效
             blacklistMapper.updateById(blacklist);
+            blacklistIndex.onChanged(blacklist);
             log.info("移除黑名单: id={}, type={}, value={}", id, blacklist.getType(), blacklist.getValue());
         }
     }
@@ -0,0 +1,321 @@
+package com.zhk.risk.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zhk.common.core.cache.BloomFilter;
+import com.zhk.order.util.RedisBroadcaster;
+import com.zhk.risk.entity.Blacklist;
+import com.zhk.risk.mapper.BlacklistMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 黑名单内存索引
+ * 按类型（IP/DEVICE/PHONE/USER）保存所有生效的黑名单：布隆过滤器在前，精确的哈希表在后，
+ * 不在黑名单中的值绝大多数由布隆过滤器直接排除，登录检查不再查询数据库。
+ * 1. 启动后及每隔 zhk.risk.blacklist.reload-interval-ms 全量加载一次，同时清理已过期的条目；
+ * 2. 添加、移除黑名单时在事务提交后更新本地索引，并通过 Redis 广播黑名单ID，其他节点按ID重新读取该条记录；
+ * 3. 条目按 expiresAt 在读取时判断是否过期。
+ * 首次加载完成前回退到数据库查询。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlacklistIndex {
+
+    private static final String CHANNEL = "risk:blacklist:changed";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final BlacklistMapper blacklistMapper;
+    private final RedisBroadcaster redisBroadcaster;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // 以下两个字段由 lock 保护
+    private Map<String, TypeIndex> types = new HashMap<>();
+    private Map<Long, Entry> entriesById = new HashMap<>();
+
+    private volatile boolean loaded;
+    private volatile boolean reloading;
+
+    /**
+     * 全量加载期间发生变更的黑名单ID，加载完成后重新应用
+     */
+    private final Set<Long> changedDuringReload = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        redisBroadcaster.subscribe(CHANNEL, message -> {
+            try {
+                refresh(Long.parseLong(message.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无效的黑名单变更消息: message={}", message);
+            }
+        });
+    }
+
+    /**
+     * 是否在黑名单中
+     *
+     * @param type  类型：IP/DEVICE/PHONE/USER
+     * @param value 值
+     * @return 是否在黑名单中
+     */
+    public boolean contains(String type, String value) {
+        if (type == null || value == null) {
+            return false;
+        }
+        if (!loaded) {
+            return queryDatabase(type, value);
+        }
+        long now = System.currentTimeMillis();
+        lock.readLock().lock();
+        try {
+            TypeIndex index = types.get(type);
+            return index != null && index.contains(value, now);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 黑名单记录已新增或修改（在事务提交后生效并广播到其他节点）
+     *
+     * @param blacklist 最新的黑名单记录
+     */
+    public void onChanged(Blacklist blacklist) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyAndPublish(blacklist);
+                }
+            });
+        } else {
+            applyAndPublish(blacklist);
+        }
+    }
+
+    /**
+     * 全量加载生效的黑名单
+     */
+    @Scheduled(fixedDelayString = "${zhk.risk.blacklist.reload-interval-ms:600000}")
+    public void reload() {
+        changedDuringReload.clear();
+        reloading = true;
+        try {
+            LambdaQueryWrapper<Blacklist> wrapper = new LambdaQueryWrapper<>();
+            wrapper.select(Blacklist::getId, Blacklist::getType, Blacklist::getValue,
+                    Blacklist::getStatus, Blacklist::getExpiresAt);
+            wrapper.eq(Blacklist::getStatus, 1);
+            wrapper.and(w -> w.isNull(Blacklist::getExpiresAt)
+                    .or(w2 -> w2.ge(Blacklist::getExpiresAt, LocalDateTime.now())));
+            List<Blacklist> rows = blacklistMapper.selectList(wrapper);
+
+            Map<String, List<Entry>> grouped = new HashMap<>();
+            Map<Long, Entry> byId = new HashMap<>(rows.size() * 2);
+            for (Blacklist row : rows) {
+                Entry entry = toEntry(row);
+                grouped.computeIfAbsent(entry.type, k -> new ArrayList<>()).add(entry);
+                byId.put(entry.id, entry);
+            }
+            Map<String, TypeIndex> built = new HashMap<>();
+            grouped.forEach((type, entries) -> built.put(type, new TypeIndex(entries)));
+
+            lock.writeLock().lock();
+            try {
+                types = built;
+                entriesById = byId;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("黑名单索引加载完成: entries={}, types={}", byId.size(), built.keySet());
+        } catch (Exception e) {
+            log.error("黑名单索引加载失败: error={}", e.getMessage(), e);
+        } finally {
+            reloading = false;
+        }
+        for (Long id : changedDuringReload) {
+            refresh(id);
+        }
+        changedDuringReload.clear();
+    }
+
+    /**
+     * 按ID重新读取一条黑名单记录并更新本地索引（处理其他节点的变更）
+     */
+    private void refresh(long id) {
+        try {
+            Blacklist blacklist = blacklistMapper.selectById(id);
+            if (blacklist == null) {
+                remove(id);
+            } else {
+                apply(blacklist);
+            }
+        } catch (Exception e) {
+            log.warn("刷新黑名单索引失败: id={}, error={}", id, e.getMessage());
+        }
+    }
+
+    private void applyAndPublish(Blacklist blacklist) {
+        apply(blacklist);
+        redisBroadcaster.publish(CHANNEL, String.valueOf(blacklist.getId()));
+    }
+
+    private void apply(Blacklist blacklist) {
+        if (reloading) {
+            changedDuringReload.add(blacklist.getId());
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(blacklist.getId());
+            Entry entry = toEntry(blacklist);
+            if (Integer.valueOf(1).equals(blacklist.getStatus()) && entry.expiresAt >= System.currentTimeMillis()) {
+                types.computeIfAbsent(entry.type, k -> new TypeIndex(new ArrayList<>())).add(entry);
+                entriesById.put(entry.id, entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(long id) {
+        if (reloading) {
+            changedDuringReload.add(id);
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(long id) {
+        Entry old = entriesById.remove(id);
+        if (old != null) {
+            TypeIndex index = types.get(old.type);
+            if (index != null) {
+                index.remove(old);
+            }
+        }
+    }
+
+    private boolean queryDatabase(String type, String value) {
+        LambdaQueryWrapper<Blacklist> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Blacklist::getType, type);
+        wrapper.eq(Blacklist::getValue, value);
+        wrapper.eq(Blacklist::getStatus, 1); // 生效状态
+        wrapper.and(w -> w.isNull(Blacklist::getExpiresAt)
+                .or(w2 -> w2.ge(Blacklist::getExpiresAt, LocalDateTime.now())));
+        wrapper.last("LIMIT 1");
+        return blacklistMapper.selectOne(wrapper) != null;
+    }
+
+    private static Entry toEntry(Blacklist blacklist) {
+        long expiresAt = blacklist.getExpiresAt() == null ? Long.MAX_VALUE
+                : blacklist.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new Entry(blacklist.getId(), blacklist.getType(), blacklist.getValue(), expiresAt);
+    }
+
+    /**
+     * 黑名单条目
+     */
+    private static final class Entry {
+        final long id;
+        final String type;
+        final String value;
+        final long expiresAt; // 永久为 Long.MAX_VALUE
+
+        Entry(long id, String type, String value, long expiresAt) {
+            this.id = id;
+            this.type = type;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * 单个类型的索引：布隆过滤器 + 值到条目的哈希表
+     * 布隆过滤器不支持删除，移除的条目超过容量一半或新增超出容量时按哈希表重新构建。
+     */
+    private static final class TypeIndex {
+        final Map<String, List<Entry>> values = new HashMap<>();
+        BloomFilter bloom;
+        int capacity;
+        int removed;
+
+        TypeIndex(List<Entry> entries) {
+            for (Entry entry : entries) {
+                values.computeIfAbsent(entry.value, k -> new ArrayList<>(1)).add(entry);
+            }
+            rebuildBloom();
+        }
+
+        boolean contains(String value, long now) {
+            if (!bloom.mightContain(value)) {
+                return false;
+            }
+            List<Entry> entries = values.get(value);
+            if (entries == null) {
+                return false;
+            }
+            for (Entry entry : entries) {
+                if (entry.expiresAt >= now) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void add(Entry entry) {
+            values.computeIfAbsent(entry.value, k -> new ArrayList<>(1)).add(entry);
+            if (values.size() > capacity) {
+                rebuildBloom();
+            } else {
+                bloom.put(entry.value);
+            }
+        }
+
+        void remove(Entry entry) {
+            List<Entry> entries = values.get(entry.value);
+            if (entries == null) {
+                return;
+            }
+            entries.removeIf(e -> e.id == entry.id);
+            if (entries.isEmpty()) {
+                values.remove(entry.value);
+                if (++removed > capacity / 2) {
+                    rebuildBloom();
+                }
+            }
+        }
+
+        void rebuildBloom() {
+            capacity = Math.max(MIN_CAPACITY, values.size() * 2);
+            bloom = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+            for (String value : values.keySet()) {
+                bloom.put(value);
+            }
+            removed = 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.zhk.risk.service;
+
+import com.zhk.risk.util.GeoIpDatabase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 离线 IP 地理位置查询服务
+ * 从 zhk.risk.geoip.file 指定的 CSV 文件加载 {@link GeoIpDatabase}，
+ * 定期检查文件修改时间，变化后在后台线程加载新库并整体替换，查询不受加载影响。
+ * 未配置文件或加载失败时 {@link #isAvailable()} 返回 false。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class GeoIpService {
+
+    @Value("${zhk.risk.geoip.file:}")
+    private String file;
+
+    private volatile GeoIpDatabase database;
+
+    private volatile FileTime loadedModifiedTime;
+    private volatile long loadedSize = -1;
+    private final AtomicBoolean loading = new AtomicBoolean();
+    private ExecutorService loadExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.hasText(file)) {
+            log.warn("未配置 IP 地理位置库（zhk.risk.geoip.file），异地登录检测使用默认位置");
+            return;
+        }
+        loadExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "geoip-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloadIfChanged();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (loadExecutor != null) {
+            loadExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 地理位置库是否可用
+     */
+    public boolean isAvailable() {
+        return database != null;
+    }
+
+    /**
+     * 查询 IP 所在地区
+     *
+     * @param ip IP地址
+     * @return 查询结果，库不可用、地址无效或不在库中返回 null
+     */
+    public GeoIpDatabase.Location lookup(String ip) {
+        GeoIpDatabase current = database;
+        return current == null ? null : current.lookup(ip);
+    }
+
+    /**
+     * 检查文件是否变化，变化时在后台重新加载
+     */
+    @Scheduled(fixedDelayString = "${zhk.risk.geoip.check-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (loadExecutor == null) {
+            return;
+        }
+        Path path = Paths.get(file);
+        try {
+            FileTime modifiedTime = Files.getLastModifiedTime(path);
+            long size = Files.size(path);
+            if (modifiedTime.equals(loadedModifiedTime) && size == loadedSize) {
+                return;
+            }
+            if (loading.compareAndSet(false, true)) {
+                loadExecutor.execute(() -> load(path, modifiedTime, size));
+            }
+        } catch (Exception e) {
+            log.warn("检查 IP 地理位置库失败: file={}, error={}", file, e.getMessage());
+        }
+    }
+
+    private void load(Path path, FileTime modifiedTime, long size) {
+        try {
+            long start = System.currentTimeMillis();
+            GeoIpDatabase loaded = GeoIpDatabase.load(path);
+            database = loaded;
+            loadedModifiedTime = modifiedTime;
+            loadedSize = size;
+            log.info("IP 地理位置库加载完成: file={}, ranges={}, costMs={}",
+                    path, loaded.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            // 保留旧库继续服务；记录本次文件状态，避免对同一个损坏文件反复加载
+            loadedModifiedTime = modifiedTime;
+            loadedSize = size;
+            log.error("IP 地理位置库加载失败: file={}, error={}", path, e.getMessage(), e);
+        } finally {
+            loading.set(false);
+        }
+    }
+}
@@ -1,20 +1,36 @@
 package com.zhk.risk.service;
 
 import com.zhk.risk.dto.LocationInfo;
+import com.zhk.risk.dto.LoginRiskContext;
 import com.zhk.risk.dto.RiskCheckResult;
 import com.zhk.risk.entity.UserCommonLocation;
 import com.zhk.risk.entity.UserLoginRecord;
 import com.zhk.risk.mapper.UserCommonLocationMapper;
 import com.zhk.risk.mapper.UserLoginRecordMapper;
+import com.zhk.risk.util.GeoIpDatabase;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 地理位置服务
@@ -29,56 +45,74 @@ public class LocationService {
 
     private final UserLoginRecordMapper loginRecordMapper;
     private final UserCommonLocationMapper commonLocationMapper;
+    private final GeoIpService geoIpService;
+    private final LoginWindowTracker loginWindowTracker;
 
     // 异地登录距离阈值（公里）
     private static final double REMOTE_LOGIN_THRESHOLD = 200.0;
-    // 多地登录时间窗口（分钟）
-    private static final int MULTI_LOCATION_WINDOW = 5;
+    // 判断同一登录地的经纬度误差
+    private static final BigDecimal COORDINATE_TOLERANCE = new BigDecimal("0.01");
+
+    /**
+     * 多地登录窗口查询线程池（只访问 Redis，不占用数据库连接；队列满时由调用线程执行）
+     */
+    private ExecutorService queryExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        queryExecutor = new ThreadPoolExecutor(4, 4, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), r -> {
+            Thread thread = new Thread(r, "login-risk-query-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        queryExecutor.shutdown();
+    }
 
     /**
      * 根据IP地址获取地理位置信息
-     * 注意：这里使用简化实现，实际应使用GeoIP2数据库或第三方API
+     * 优先查询离线 IP 地理位置库；内网地址返回"本地"；
+     * 未配置地理位置库时公网地址返回默认位置，已配置但库中查不到时不返回经纬度（不参与异地登录距离判断）
      *
      * @param ipAddress IP地址
      * @return 地理位置信息
      */
     public LocationInfo getLocationByIp(String ipAddress) {
-        // TODO: 集成GeoIP2数据库或第三方API（如高德地图、百度地图API）
-        // 这里返回模拟数据
         LocationInfo location = new LocationInfo();
         
-        // 处理IPv6本地回环地址，转换为IPv4格式
         if (ipAddress == null || ipAddress.isEmpty()) {
             ipAddress = "127.0.0.1";
         }
-        if ("0:0:0:0:0:0:0:1".equals(ipAddress) || "::1".equals(ipAddress)) {
-            ipAddress = "127.0.0.1";
-        }
         
-        // 简化实现：根据IP段判断（实际应使用GeoIP2）
-        if (ipAddress.startsWith("127.") || ipAddress.startsWith("192.168.") || 
-            ipAddress.startsWith("10.") || ipAddress.startsWith("172.16.") ||
-            ipAddress.startsWith("172.17.") || ipAddress.startsWith("172.18.") ||
-            ipAddress.startsWith("172.19.") || ipAddress.startsWith("172.20.") ||
-            ipAddress.startsWith("172.21.") || ipAddress.startsWith("172.22.") ||
-            ipAddress.startsWith("172.23.") || ipAddress.startsWith("172.24.") ||
-            ipAddress.startsWith("172.25.") || ipAddress.startsWith("172.26.") ||
-            ipAddress.startsWith("172.27.") || ipAddress.startsWith("172.28.") ||
-            ipAddress.startsWith("172.29.") || ipAddress.startsWith("172.30.") ||
-            ipAddress.startsWith("172.31.") || ipAddress.startsWith("169.254.")) {
+        GeoIpDatabase.Location hit = geoIpService.lookup(ipAddress);
+        if (hit != null) {
+            location.setCountry(hit.getRegion().getCountry());
+            location.setProvince(hit.getRegion().getProvince());
+            location.setCity(hit.getRegion().getCity());
+            location.setLatitude(BigDecimal.valueOf(hit.getLatitude()).setScale(4, RoundingMode.HALF_UP));
+            location.setLongitude(BigDecimal.valueOf(hit.getLongitude()).setScale(4, RoundingMode.HALF_UP));
+        } else if (isPrivateAddress(ipAddress)) {
             // 内网IP，默认返回本地
             location.setCountry("中国");
             location.setProvince("未知");
             location.setCity("本地");
             location.setLatitude(new BigDecimal("39.9042")); // 北京
             location.setLongitude(new BigDecimal("116.4074"));
-        } else {
-            // 外网IP，这里简化处理，实际应查询GeoIP2数据库
+        } else if (!geoIpService.isAvailable()) {
+            // 未配置地理位置库，使用默认位置
             location.setCountry("中国");
             location.setProvince("未知");
             location.setCity("未知");
             location.setLatitude(new BigDecimal("39.9042")); // 默认北京
             location.setLongitude(new BigDecimal("116.4074"));
+        } else {
+            location.setCountry("未知");
+            location.setProvince("未知");
+            location.setCity("未知");
         }
         
         log.debug("IP地理位置查询: ip={}, location={}", ipAddress, location);
@@ -86,69 +120,76 @@ public class LocationService {
     }
 
     /**
-     * 记录用户登录
-     *
-     * @param userId 用户ID
-     * @param ipAddress IP地址
-     * @param userAgent 用户代理
-     * @param deviceFingerprint 设备指纹
-     * @return 登录记录
+     * 是否为内网、回环或链路本地地址
      */
-    public UserLoginRecord recordLogin(Long userId, String ipAddress, String userAgent, String deviceFingerprint) {
-        // 获取IP地理位置
-        LocationInfo location = getLocationByIp(ipAddress);
-
-        // 创建登录记录
-        UserLoginRecord record = new UserLoginRecord();
-        record.setUserId(userId);
-        record.setIpAddress(ipAddress);
-        record.setCountry(location.getCountry());
-        record.setProvince(location.getProvince());
-        record.setCity(location.getCity());
-        record.setLatitude(location.getLatitude());
-        record.setLongitude(location.getLongitude());
-        record.setUserAgent(userAgent);
-        record.setDeviceFingerprint(deviceFingerprint);
-        record.setLoginTime(LocalDateTime.now());
-        record.setIsSuspicious(0);
-        record.setRiskLevel(0);
-
-        // 检查异地登录
-        RiskCheckResult riskCheck = checkRemoteLogin(userId, location);
-        if (!riskCheck.getPassed()) {
-            record.setIsSuspicious(1);
-            record.setRiskLevel(riskCheck.getRiskLevel());
+    private boolean isPrivateAddress(String ipAddress) {
+        long v4 = GeoIpDatabase.parseIpv4(ipAddress);
+        long[] v6 = new long[2];
+        if (v4 < 0 && GeoIpDatabase.parseIpv6(ipAddress, v6)) {
+            if (v6[0] == 0 && (v6[1] >>> 32) == 0xFFFFL) {
+                v4 = v6[1] & 0xFFFFFFFFL; // IPv4 映射地址
+            } else {
+                int firstGroup = (int) (v6[0] >>> 48);
+                return (v6[0] == 0 && v6[1] == 1)          // ::1
+                        || (firstGroup & 0xFE00) == 0xFC00  // fc00::/7
+                        || (firstGroup & 0xFFC0) == 0xFE80; // fe80::/10
+            }
+        }
+        if (v4 < 0) {
+            return false;
         }
+        return (v4 >>> 24) == 127                  // 127.0.0.0/8
+                || (v4 >>> 24) == 10               // 10.0.0.0/8
+                || (v4 >>> 20) == 0xAC1            // 172.16.0.0/12
+                || (v4 >>> 16) == 0xC0A8           // 192.168.0.0/16
+                || (v4 >>> 16) == 0xA9FE;          // 169.254.0.0/16
+    }
 
-        // 保存登录记录
-        loginRecordMapper.insert(record);
+    /**
+     * 阶段一：加载登录上下文
+     * 地理位置查询在内存中完成；多地登录窗口查询（Redis）在后台执行，
+     * 常用登录地在调用线程上查询，与调用方的事务共用同一个数据库连接
+     *
+     * @param context 登录上下文
+     */
+    public void loadLoginContext(LoginRiskContext context) {
+        Long userId = context.getUserId();
+        long now = toEpochMilli(context.getLoginTime());
 
-        // 更新常用登录地
-        updateCommonLocation(userId, location);
+        CompletableFuture<Integer> recentDistinctIps = CompletableFuture.supplyAsync(
+                () -> loginWindowTracker.distinctIps(userId, now), queryExecutor);
 
-        return record;
+        context.setLocation(getLocationByIp(context.getIpAddress()));
+        LambdaQueryWrapper<UserCommonLocation> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(UserCommonLocation::getUserId, userId);
+        context.setCommonLocations(commonLocationMapper.selectList(wrapper));
+        try {
+            context.setRecentDistinctIps(recentDistinctIps.join());
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
     }
 
     /**
-     * 检查异地登录
+     * 阶段二：异地登录和多地登录判断（只使用上下文中的数据，不查询数据库）
      *
-     * @param userId 用户ID
-     * @param currentLocation 当前登录位置
+     * @param context 登录上下文
      * @return 风控检查结果
      */
-    public RiskCheckResult checkRemoteLogin(Long userId, LocationInfo currentLocation) {
+    public RiskCheckResult evaluateLocation(LoginRiskContext context) {
+        Long userId = context.getUserId();
+        LocationInfo currentLocation = context.getLocation();
+
         RiskCheckResult result = new RiskCheckResult();
         result.setPassed(true);
         result.setRiskLevel(0);
         result.setNeedFaceVerification(false);
         result.setNeedFreezeAccount(false);
 
-        // 查询用户常用登录地
-        LambdaQueryWrapper<UserCommonLocation> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(UserCommonLocation::getUserId, userId);
-        wrapper.orderByDesc(UserCommonLocation::getLoginCount);
-        wrapper.last("LIMIT 1");
-        UserCommonLocation commonLocation = commonLocationMapper.selectOne(wrapper);
+        // 登录次数最多的常用登录地
+        UserCommonLocation commonLocation = context.getCommonLocations().stream()
+                .max(Comparator.comparing(l -> l.getLoginCount() == null ? 0 : l.getLoginCount()))
+                .orElse(null);
 
         if (commonLocation == null) {
             // 首次登录，记录为常用登录地
@@ -156,16 +197,19 @@ public class LocationService {
             return result;
         }
 
-        // 计算距离
-        double distance = calculateDistance(
-                commonLocation.getLatitude().doubleValue(),
-                commonLocation.getLongitude().doubleValue(),
-                currentLocation.getLatitude().doubleValue(),
-                currentLocation.getLongitude().doubleValue()
-        );
-        result.setDistance(distance);
-
-        log.info("异地登录检测: userId={}, distance={}km, threshold={}km", userId, distance, REMOTE_LOGIN_THRESHOLD);
+        // 任一方位置未知时不做距离判断
+        double distance = -1;
+        if (commonLocation.getLatitude() != null && commonLocation.getLongitude() != null
+                && currentLocation.getLatitude() != null && currentLocation.getLongitude() != null) {
+            distance = calculateDistance(
+                    commonLocation.getLatitude().doubleValue(),
+                    commonLocation.getLongitude().doubleValue(),
+                    currentLocation.getLatitude().doubleValue(),
+                    currentLocation.getLongitude().doubleValue()
+            );
+            result.setDistance(distance);
+            log.info("异地登录检测: userId={}, distance={}km, threshold={}km", userId, distance, REMOTE_LOGIN_THRESHOLD);
+        }
 
         // 检查是否超过阈值
         if (distance > REMOTE_LOGIN_THRESHOLD) {
@@ -176,9 +220,8 @@ public class LocationService {
             log.warn("检测到异地登录: userId={}, distance={}km", userId, distance);
         }
 
-        // 检查多地登录（5分钟内不同IP登录）
-        boolean multiLocation = checkMultiLocationLogin(userId);
-        if (multiLocation) {
+        // 检查多地登录（时间窗口内不同IP登录）
+        if (context.getRecentDistinctIps() > 1) {
             result.setPassed(false);
             result.setRiskLevel(3); // 高风险
             result.setNeedFreezeAccount(true);
@@ -190,68 +233,105 @@ public class LocationService {
     }
 
     /**
-     * 检查多地登录
+     * 阶段三：写入登录记录并更新常用登录地
+     * 两次写入连续执行，中间不再查询（常用登录地的匹配在上下文中完成）
      *
-     * @param userId 用户ID
-     * @return 是否多地登录
+     * @param context 登录上下文
+     * @param result  风控检查结果
+     * @return 登录记录
      */
-    private boolean checkMultiLocationLogin(Long userId) {
-        LocalDateTime fiveMinutesAgo = LocalDateTime.now().minusMinutes(MULTI_LOCATION_WINDOW);
-        
-        LambdaQueryWrapper<UserLoginRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(UserLoginRecord::getUserId, userId);
-        wrapper.ge(UserLoginRecord::getLoginTime, fiveMinutesAgo);
-        wrapper.select(UserLoginRecord::getIpAddress);
-        
-        List<UserLoginRecord> recentLogins = loginRecordMapper.selectList(wrapper);
-        
-        // 统计不同IP数量
-        long distinctIpCount = recentLogins.stream()
-                .map(UserLoginRecord::getIpAddress)
-                .distinct()
-                .count();
-        
-        return distinctIpCount > 1;
+    public UserLoginRecord saveLogin(LoginRiskContext context, RiskCheckResult result) {
+        LocationInfo location = context.getLocation();
+
+        UserLoginRecord record = new UserLoginRecord();
+        record.setUserId(context.getUserId());
+        record.setIpAddress(context.getIpAddress());
+        record.setCountry(location.getCountry());
+        record.setProvince(location.getProvince());
+        record.setCity(location.getCity());
+        record.setLatitude(location.getLatitude());
+        record.setLongitude(location.getLongitude());
+        record.setUserAgent(context.getUserAgent());
+        record.setDeviceFingerprint(context.getDeviceFingerprint());
+        record.setLoginTime(context.getLoginTime());
+        record.setIsSuspicious(result.getPassed() ? 0 : 1);
+        record.setRiskLevel(result.getPassed() ? 0 : result.getRiskLevel());
+
+        loginRecordMapper.insert(record);
+        upsertCommonLocation(context);
+        loginWindowTracker.record(context.getUserId(), context.getIpAddress(), toEpochMilli(context.getLoginTime()));
+
+        return record;
     }
 
     /**
-     * 更新用户常用登录地
+     * 更新用户常用登录地：命中已有记录时原子地增加登录次数，否则新增
      *
-     * @param userId 用户ID
-     * @param location 登录位置
+     * @param context 登录上下文
      */
-    private void updateCommonLocation(Long userId, LocationInfo location) {
-        // 查询是否已存在该位置的记录
-        LambdaQueryWrapper<UserCommonLocation> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(UserCommonLocation::getUserId, userId);
-        wrapper.eq(UserCommonLocation::getCity, location.getCity());
-        if (location.getLatitude() != null && location.getLongitude() != null) {
-            // 使用经纬度精确匹配（允许小范围误差）
-            wrapper.apply("ABS(latitude - {0}) < 0.01 AND ABS(longitude - {1}) < 0.01",
-                    location.getLatitude(), location.getLongitude());
+    private void upsertCommonLocation(LoginRiskContext context) {
+        LocationInfo location = context.getLocation();
+        LocalDateTime now = context.getLoginTime();
+
+        UserCommonLocation matched = context.getCommonLocations().stream()
+                .filter(l -> isSameLocation(l, location))
+                .findFirst()
+                .orElse(null);
+
+        if (matched != null) {
+            incrementLoginCount(new LambdaUpdateWrapper<UserCommonLocation>()
+                    .eq(UserCommonLocation::getId, matched.getId()), now);
+            return;
         }
-        
-        UserCommonLocation commonLocation = commonLocationMapper.selectOne(wrapper);
-        
-        if (commonLocation != null) {
-            // 更新登录次数和时间
-            commonLocation.setLoginCount(commonLocation.getLoginCount() + 1);
-            commonLocation.setLastLoginTime(LocalDateTime.now());
-            commonLocationMapper.updateById(commonLocation);
-        } else {
-            // 创建新记录
-            commonLocation = new UserCommonLocation();
-            commonLocation.setUserId(userId);
-            commonLocation.setCountry(location.getCountry());
-            commonLocation.setProvince(location.getProvince());
-            commonLocation.setCity(location.getCity());
-            commonLocation.setLatitude(location.getLatitude());
-            commonLocation.setLongitude(location.getLongitude());
-            commonLocation.setLoginCount(1);
-            commonLocation.setFirstLoginTime(LocalDateTime.now());
-            commonLocation.setLastLoginTime(LocalDateTime.now());
+
+        UserCommonLocation commonLocation = new UserCommonLocation();
+        commonLocation.setUserId(context.getUserId());
+        commonLocation.setCountry(location.getCountry());
+        commonLocation.setProvince(location.getProvince());
+        commonLocation.setCity(location.getCity());
+        commonLocation.setLatitude(location.getLatitude());
+        commonLocation.setLongitude(location.getLongitude());
+        commonLocation.setLoginCount(1);
+        commonLocation.setFirstLoginTime(now);
+        commonLocation.setLastLoginTime(now);
+        try {
             commonLocationMapper.insert(commonLocation);
+        } catch (DuplicateKeyException e) {
+            // 并发登录已插入同一位置（uk_user_location），改为增加登录次数
+            LambdaUpdateWrapper<UserCommonLocation> wrapper = new LambdaUpdateWrapper<>();
+            wrapper.eq(UserCommonLocation::getUserId, context.getUserId());
+            wrapper.eq(UserCommonLocation::getCity, location.getCity());
+            wrapper.eq(UserCommonLocation::getLatitude, location.getLatitude());
+            wrapper.eq(UserCommonLocation::getLongitude, location.getLongitude());
+            incrementLoginCount(wrapper, now);
+        }
+    }
+
+    private void incrementLoginCount(LambdaUpdateWrapper<UserCommonLocation> wrapper, LocalDateTime now) {
+        wrapper.setSql("login_count = login_count + 1");
+        wrapper.set(UserCommonLocation::getLastLoginTime, now);
+        commonLocationMapper.update(null, wrapper);
+    }
+
+    /**
+     * 是否为同一登录地（城市相同，经纬度误差小于 0.01）
+     */
+    private boolean isSameLocation(UserCommonLocation commonLocation, LocationInfo location) {
+        if (!Objects.equals(commonLocation.getCity(), location.getCity())) {
+            return false;
         }
+        if (location.getLatitude() == null || location.getLongitude() == null) {
+            return true;
+        }
+        if (commonLocation.getLatitude() == null || commonLocation.getLongitude() == null) {
+            return false;
+        }
+        return commonLocation.getLatitude().subtract(location.getLatitude()).abs().compareTo(COORDINATE_TOLERANCE) < 0
+                && commonLocation.getLongitude().subtract(location.getLongitude()).abs().compareTo(COORDINATE_TOLERANCE) < 0;
+    }
+
+    private static long toEpochMilli(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     /**
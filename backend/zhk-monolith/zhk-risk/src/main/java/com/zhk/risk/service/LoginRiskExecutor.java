@@ -0,0 +1,234 @@
+package com.zhk.risk.service;
+
+import com.zhk.risk.dto.RiskCheckResult;
+import com.zhk.risk.event.LoginSuccessEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 登录风控检查执行器
+ * 登录成功后的完整风控检查（地理位置、常用登录地、登录记录、异常行为）放到独立的有界线程池中执行，
+ * 不再使用 Spring 默认的异步执行器，登录高峰时积压的检查数量有上限：
+ * 1. 并发数由 zhk.risk.executor.threads 控制；zhk.risk.executor.virtual-threads=true 且运行在 JDK 21+ 时使用虚拟线程；
+ * 2. 等待队列长度由 zhk.risk.executor.queue-capacity 控制；同一用户、同一 IP 和设备的检查还在排队时，重复的登录直接合并；
+ * 3. 队列已满时不再排队，在调用线程上只做黑名单检查（内存索引，不查询数据库），跳过其余检查；
+ * 4. 存在 MeterRegistry 时注册队列长度、排队中的检查数等指标，以及排队耗时和检查耗时。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class LoginRiskExecutor {
+
+    private final RiskService riskService;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${zhk.risk.executor.threads:4}")
+    private int threads;
+
+    @Value("${zhk.risk.executor.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Value("${zhk.risk.executor.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 已提交、尚未开始执行的检查，用于合并重复登录
+     */
+    private final Map<CheckKey, Boolean> pending = new ConcurrentHashMap<>();
+
+    private Timer queueTimer;
+    private Timer checkTimer;
+    private Counter coalescedCounter;
+    private Counter degradedCounter;
+
+    public LoginRiskExecutor(RiskService riskService, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.riskService = riskService;
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @PostConstruct
+    public void init() {
+        int poolSize = Math.max(1, threads);
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("risk.login.queue.depth", executor, e -> e.getQueue().size())
+                    .description("排队中的登录风控检查数").register(registry);
+            Gauge.builder("risk.login.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("执行中的登录风控检查数").register(registry);
+            queueTimer = Timer.builder("risk.login.queue.wait").description("登录风控检查排队耗时").register(registry);
+            checkTimer = Timer.builder("risk.login.check.latency").description("登录风控检查耗时").register(registry);
+            coalescedCounter = Counter.builder("risk.login.coalesced").description("合并的重复登录检查数").register(registry);
+            degradedCounter = Counter.builder("risk.login.degraded").description("降级为只检查黑名单的登录数").register(registry);
+        }
+        log.info("登录风控执行器已启动: threads={}, queueCapacity={}, virtualThreads={}",
+                poolSize, queueCapacity, virtualThreads);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * 提交一次登录风控检查
+     *
+     * @param event 登录成功事件
+     */
+    public void submit(LoginSuccessEvent event) {
+        if (event.getIpAddress() == null) {
+            return;
+        }
+        CheckKey key = new CheckKey(event.getUserId(), event.getIpAddress(), event.getDeviceFingerprint());
+        if (pending.putIfAbsent(key, Boolean.TRUE) != null) {
+            // 相同的检查还在排队，本次登录不会带来新的信息
+            increment(coalescedCounter);
+            log.debug("合并重复的登录风控检查: userId={}, ip={}", event.getUserId(), event.getIpAddress());
+            return;
+        }
+        long submittedAt = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                pending.remove(key);
+                if (queueTimer != null) {
+                    queueTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                }
+                runFullCheck(event);
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            runDegradedCheck(event);
+        }
+    }
+
+    private void runFullCheck(LoginSuccessEvent event) {
+        long start = System.nanoTime();
+        try {
+            RiskCheckResult riskCheck = riskService.checkLoginRisk(
+                    event.getUserId(),
+                    event.getIpAddress(),
+                    event.getUserAgent(),
+                    event.getDeviceFingerprint()
+            );
+            log.info("风控检查完成: userId={}, passed={}, riskLevel={}, needFaceVerification={}",
+                    event.getUserId(), riskCheck.getPassed(), riskCheck.getRiskLevel(),
+                    riskCheck.getNeedFaceVerification());
+        } catch (Exception e) {
+            log.error("风控检查失败: userId={}", event.getUserId(), e);
+            // 不抛出异常，避免影响登录流程
+        } finally {
+            if (checkTimer != null) {
+                checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * 队列已满：只检查黑名单
+     */
+    private void runDegradedCheck(LoginSuccessEvent event) {
+        increment(degradedCounter);
+        try {
+            RiskCheckResult riskCheck = riskService.checkBlacklist(
+                    event.getUserId(), event.getIpAddress(), event.getDeviceFingerprint());
+            log.warn("登录风控队列已满，仅检查黑名单: userId={}, ip={}, hit={}",
+                    event.getUserId(), event.getIpAddress(), riskCheck != null);
+        } catch (Exception e) {
+            log.error("黑名单检查失败: userId={}", event.getUserId(), e);
+        }
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    private ThreadFactory threadFactory() {
+        if (virtualThreads) {
+            ThreadFactory factory = virtualThreadFactory();
+            if (factory != null) {
+                return factory;
+            }
+            log.warn("当前 JDK 不支持虚拟线程，登录风控执行器使用平台线程");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, "login-risk-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * JDK 21+ 的虚拟线程工厂（项目按 JDK 17 编译，通过反射调用 Thread.ofVirtual()），不支持时返回 null
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "login-risk-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 合并重复检查的键：同一用户、同一 IP、同一设备
+     */
+    private static final class CheckKey {
+        private final Long userId;
+        private final String ipAddress;
+        private final String deviceFingerprint;
+
+        CheckKey(Long userId, String ipAddress, String deviceFingerprint) {
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+            this.deviceFingerprint = deviceFingerprint;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CheckKey)) {
+                return false;
+            }
+            CheckKey other = (CheckKey) o;
+            return Objects.equals(userId, other.userId)
+                    && Objects.equals(ipAddress, other.ipAddress)
+                    && Objects.equals(deviceFingerprint, other.deviceFingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, ipAddress, deviceFingerprint);
+        }
+    }
+}
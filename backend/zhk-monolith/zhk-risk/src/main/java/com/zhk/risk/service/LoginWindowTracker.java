@@ -0,0 +1,163 @@
+package com.zhk.risk.service;
+
+import com.zhk.common.core.cache.ExpiringLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+
+/**
+ * 多地登录滑动窗口
+ * 记录每个用户最近一段时间内登录过的 IP，回答"最近 N 分钟内有几个不同 IP"，不再查询 user_login_record。
+ * 1. Redis 可用时每个用户一个有序集合：成员为 IP，分值为最后登录时间，
+ *    查询时先删除窗口外的成员再取 ZCARD，键在窗口结束后自动过期；
+ * 2. Redis 不可用（或调用失败）时降级为本地环形缓冲区：每个用户保存最近若干次登录的 (时间, IP 哈希)，
+ *    只保证单节点内的判断（与 DistributedLock 的降级方式一致）。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+public class LoginWindowTracker {
+
+    private static final String KEY_PREFIX = "risk:login-ips:";
+    private static final int LOCAL_RING_SIZE = 16;
+    private static final int LOCAL_MAX_USERS = 100000;
+
+    /**
+     * 删除窗口外的成员后返回成员数
+     */
+    private static final DefaultRedisScript<Long> COUNT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('zremrangebyscore', KEYS[1], '-inf', '(' .. ARGV[1]) "
+                    + "return redis.call('zcard', KEYS[1])",
+            Long.class);
+
+    /**
+     * 写入本次登录 IP 并刷新过期时间
+     */
+    private static final DefaultRedisScript<Long> RECORD_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('zadd', KEYS[1], ARGV[1], ARGV[2]) "
+                    + "redis.call('pexpire', KEYS[1], ARGV[3]) "
+                    + "return 1",
+            Long.class);
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate; // Redis 不可用时为 null
+
+    private final long windowMillis;
+    private final ExpiringLruCache<Long, LoginRing> localRings;
+
+    public LoginWindowTracker(@Value("${zhk.risk.multi-login-window-minutes:5}") int windowMinutes) {
+        this.windowMillis = windowMinutes * 60_000L;
+        this.localRings = new ExpiringLruCache<>(LOCAL_MAX_USERS, windowMillis);
+    }
+
+    /**
+     * 窗口内登录过的不同 IP 数（不含尚未记录的本次登录）
+     *
+     * @param userId 用户ID
+     * @param now    当前时间（毫秒）
+     * @return 不同 IP 数
+     */
+    public int distinctIps(long userId, long now) {
+        if (redisTemplate != null) {
+            try {
+                Long count = redisTemplate.execute(COUNT_SCRIPT, Collections.singletonList(KEY_PREFIX + userId),
+                        String.valueOf(now - windowMillis));
+                return count == null ? 0 : count.intValue();
+            } catch (Exception e) {
+                log.warn("查询登录窗口失败，使用本地窗口: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        LoginRing ring = localRings.get(userId);
+        return ring == null ? 0 : ring.distinct(now - windowMillis);
+    }
+
+    /**
+     * 记录一次登录
+     *
+     * @param userId    用户ID
+     * @param ipAddress IP地址
+     * @param now       登录时间（毫秒）
+     */
+    public void record(long userId, String ipAddress, long now) {
+        if (ipAddress == null) {
+            return;
+        }
+        if (redisTemplate != null) {
+            try {
+                redisTemplate.execute(RECORD_SCRIPT, Collections.singletonList(KEY_PREFIX + userId),
+                        String.valueOf(now), ipAddress, String.valueOf(windowMillis));
+                return;
+            } catch (Exception e) {
+                log.warn("记录登录窗口失败，使用本地窗口: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        LoginRing ring = localRings.get(userId);
+        if (ring == null) {
+            synchronized (localRings) {
+                ring = localRings.get(userId);
+                if (ring == null) {
+                    ring = new LoginRing();
+                }
+                // 每次登录都重新放入，以刷新过期时间
+                localRings.put(userId, ring);
+            }
+        } else {
+            localRings.put(userId, ring);
+        }
+        ring.add(now, ipHash(ipAddress));
+    }
+
+    private static long ipHash(String ipAddress) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < ipAddress.length(); i++) {
+            h ^= ipAddress.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * 单个用户最近若干次登录的环形缓冲区
+     */
+    private static final class LoginRing {
+        private final long[] times = new long[LOCAL_RING_SIZE];
+        private final long[] ipHashes = new long[LOCAL_RING_SIZE];
+        private int next;
+        private int size;
+
+        synchronized void add(long time, long ipHash) {
+            times[next] = time;
+            ipHashes[next] = ipHash;
+            next = (next + 1) % LOCAL_RING_SIZE;
+            if (size < LOCAL_RING_SIZE) {
+                size++;
+            }
+        }
+
+        synchronized int distinct(long since) {
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] < since) {
+                    continue;
+                }
+                boolean seen = false;
+                for (int j = 0; j < i; j++) {
+                    if (times[j] >= since && ipHashes[j] == ipHashes[i]) {
+                        seen = true;
+                        break;
+                    }
+                }
+                if (!seen) {
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+    }
+}
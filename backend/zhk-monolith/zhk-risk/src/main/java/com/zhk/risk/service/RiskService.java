@@ -1,5 +1,6 @@
 package com.zhk.risk.service;
 
+import com.zhk.risk.dto.LoginRiskContext;
 import com.zhk.risk.dto.RiskCheckResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +41,49 @@ public class RiskService {
         log.info("开始登录风控检查: userId={}, ip={}", userId, ipAddress);
 
         // 检查黑名单
+        RiskCheckResult blacklistCheck = checkBlacklist(userId, ipAddress, deviceFingerprint);
+        if (blacklistCheck != null) {
+            return blacklistCheck;
+        }
+
+        // 加载登录上下文（地理位置、常用登录地、多地登录窗口各查询一次），判断异地/多地登录，再写入登录记录
+        LoginRiskContext context = new LoginRiskContext(userId, ipAddress, userAgent, deviceFingerprint);
+        locationService.loadLoginContext(context);
+        RiskCheckResult locationCheck = locationService.evaluateLocation(context);
+        locationService.saveLogin(context, locationCheck);
+
+        // 如果检测到多地登录，冻结账号
+        if (locationCheck.getNeedFreezeAccount() != null && locationCheck.getNeedFreezeAccount()) {
+            freezeUserAccount(userId, "检测到多地同时登录");
+        }
+
+        // 检查异常行为
+        boolean hasFrequentCancel = behaviorService.checkFrequentCancel(userId);
+        boolean hasPaymentFailure = behaviorService.checkPaymentFailureRate(userId);
+
+        if (hasFrequentCancel || hasPaymentFailure) {
+            locationCheck.setPassed(false);
+            if (locationCheck.getRiskLevel() < 2) {
+                locationCheck.setRiskLevel(2);
+            }
+            locationCheck.setReason("检测到异常行为：" + 
+                    (hasFrequentCancel ? "频繁取消订单" : "") +
+                    (hasPaymentFailure ? "支付失败率异常" : ""));
+        }
+
+        return locationCheck;
+    }
+
+    /**
+     * 黑名单检查（IP、设备、用户）
+     * 只读内存中的黑名单索引，不查询数据库；登录量过大、完整检查被降级时也会单独执行
+     *
+     * @param userId 用户ID
+     * @param ipAddress IP地址
+     * @param deviceFingerprint 设备指纹
+     * @return 命中黑名单时返回不通过的检查结果，未命中返回 null
+     */
+    public RiskCheckResult checkBlacklist(Long userId, String ipAddress, String deviceFingerprint) {
         if (behaviorService.isInBlacklist("IP", ipAddress)) {
             RiskCheckResult result = new RiskCheckResult();
             result.setPassed(false);
@@ -70,33 +114,7 @@ public class RiskService {
             return result;
         }
 
-        // 记录登录并检查异地登录
-        var locationInfo = locationService.getLocationByIp(ipAddress);
-        RiskCheckResult locationCheck = locationService.checkRemoteLogin(userId, locationInfo);
-        
-        // 记录登录
-        locationService.recordLogin(userId, ipAddress, userAgent, deviceFingerprint);
-
-        // 如果检测到多地登录，冻结账号
-        if (locationCheck.getNeedFreezeAccount() != null && locationCheck.getNeedFreezeAccount()) {
-            freezeUserAccount(userId, "检测到多地同时登录");
-        }
-
-        // 检查异常行为
-        boolean hasFrequentCancel = behaviorService.checkFrequentCancel(userId);
-        boolean hasPaymentFailure = behaviorService.checkPaymentFailureRate(userId);
-
-        if (hasFrequentCancel || hasPaymentFailure) {
-            locationCheck.setPassed(false);
-            if (locationCheck.getRiskLevel() < 2) {
-                locationCheck.setRiskLevel(2);
-            }
-            locationCheck.setReason("检测到异常行为：" + 
-                    (hasFrequentCancel ? "频繁取消订单" : "") +
-                    (hasPaymentFailure ? "支付失败率异常" : ""));
-        }
-
-        return locationCheck;
+        return null;
     }
 
     /**
@@ -131,7 +149,14 @@ public class RiskService {
                             java.lang.reflect.Method updateById = userMapper.getClass()
                                     .getMethod("updateById", Object.class);
                             updateById.invoke(userMapper, user);
-                            
+
+                            // 失效用户概要缓存（zhk-user 中的 UserProfileCache，事务提交后执行）
+                            if (applicationContext.containsBean("userProfileCache")) {
+                                Object profileCache = applicationContext.getBean("userProfileCache");
+                                profileCache.getClass().getMethod("invalidate", long.class)
+                                        .invoke(profileCache, userId.longValue());
+                            }
+
                             log.warn("冻结用户账号: userId={}, reason={}", userId, reason);
                         }
                     }
@@ -0,0 +1,464 @@
+package com.zhk.risk.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 离线 IP 地理位置库
+ * 从 CSV 文件加载 IP 段，每行格式：
+ * <pre>
+ * 起始IP,结束IP,国家,省份,城市,纬度,经度
+ * </pre>
+ * 起始/结束 IP 可以是 IPv4 或 IPv6（同一行必须相同），'#' 开头的行为注释。
+ * IPv4 段保存为按起始地址排序的 long[]，IPv6 段按高/低 64 位拆成两组 long[]，
+ * 经纬度和地区编号为并行的 float[]/int[]，地区名称去重后共享，查询为一次二分查找
+ * （IPv4 先按高 16 位定位到区间，二分只在该区间内进行）。
+ * 加载完成后不可变，线程安全；重新加载时构建新实例再整体替换。
+ *
+ * @author shigure
+ */
+public final class GeoIpDatabase {
+
+    private final long[] v4Start;
+    private final long[] v4End;
+    private final int[] v4Region;
+    private final float[] v4Latitude;
+    private final float[] v4Longitude;
+
+    /**
+     * v4PrefixIndex[p] 为起始地址小于 (p << 16) 的段数，共 65537 项
+     */
+    private final int[] v4PrefixIndex;
+
+    private final long[] v6StartHigh;
+    private final long[] v6StartLow;
+    private final long[] v6EndHigh;
+    private final long[] v6EndLow;
+    private final int[] v6Region;
+    private final float[] v6Latitude;
+    private final float[] v6Longitude;
+
+    private final Region[] regions;
+
+    private GeoIpDatabase(List<Row> v4Rows, List<Row> v6Rows, List<Region> regions) {
+        int n4 = v4Rows.size();
+        v4Start = new long[n4];
+        v4End = new long[n4];
+        v4Region = new int[n4];
+        v4Latitude = new float[n4];
+        v4Longitude = new float[n4];
+        for (int i = 0; i < n4; i++) {
+            Row row = v4Rows.get(i);
+            v4Start[i] = row.startLow;
+            v4End[i] = row.endLow;
+            v4Region[i] = row.region;
+            v4Latitude[i] = row.latitude;
+            v4Longitude[i] = row.longitude;
+        }
+        v4PrefixIndex = new int[(1 << 16) + 1];
+        int next = 0;
+        for (int p = 0; p <= (1 << 16); p++) {
+            long prefixStart = (long) p << 16;
+            while (next < n4 && v4Start[next] < prefixStart) {
+                next++;
+            }
+            v4PrefixIndex[p] = next;
+        }
+
+        int n6 = v6Rows.size();
+        v6StartHigh = new long[n6];
+        v6StartLow = new long[n6];
+        v6EndHigh = new long[n6];
+        v6EndLow = new long[n6];
+        v6Region = new int[n6];
+        v6Latitude = new float[n6];
+        v6Longitude = new float[n6];
+        for (int i = 0; i < n6; i++) {
+            Row row = v6Rows.get(i);
+            v6StartHigh[i] = row.startHigh;
+            v6StartLow[i] = row.startLow;
+            v6EndHigh[i] = row.endHigh;
+            v6EndLow[i] = row.endLow;
+            v6Region[i] = row.region;
+            v6Latitude[i] = row.latitude;
+            v6Longitude[i] = row.longitude;
+        }
+
+        this.regions = regions.toArray(new Region[0]);
+    }
+
+    /**
+     * 从 CSV 文件加载
+     *
+     * @param file CSV 文件
+     * @return 地理位置库
+     * @throws IOException 读取失败或格式错误
+     */
+    public static GeoIpDatabase load(Path file) throws IOException {
+        List<Row> v4Rows = new ArrayList<>();
+        List<Row> v6Rows = new ArrayList<>();
+        List<Region> regions = new ArrayList<>();
+        Map<String, Integer> regionIds = new HashMap<>();
+        long[] start = new long[2];
+        long[] end = new long[2];
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                if (fields.length < 7) {
+                    throw new IOException("invalid geoip line " + lineNo + ": " + line);
+                }
+                String country = unquote(fields[2]);
+                String province = unquote(fields[3]);
+                String city = unquote(fields[4]);
+                float latitude;
+                float longitude;
+                try {
+                    latitude = Float.parseFloat(unquote(fields[5]));
+                    longitude = Float.parseFloat(unquote(fields[6]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("invalid coordinates at geoip line " + lineNo, e);
+                }
+                String regionKey = country + '\u0000' + province + '\u0000' + city;
+                Integer region = regionIds.get(regionKey);
+                if (region == null) {
+                    region = regions.size();
+                    regionIds.put(regionKey, region);
+                    regions.add(new Region(country, province, city));
+                }
+
+                String startText = unquote(fields[0]);
+                String endText = unquote(fields[1]);
+                long start4 = parseIpv4(startText);
+                long end4 = parseIpv4(endText);
+                if (start4 >= 0 && end4 >= 0) {
+                    if (start4 > end4) {
+                        throw new IOException("start > end at geoip line " + lineNo);
+                    }
+                    v4Rows.add(new Row(0, start4, 0, end4, region, latitude, longitude));
+                } else if (parseIpv6(startText, start) && parseIpv6(endText, end)) {
+                    if (compareUnsigned(start[0], start[1], end[0], end[1]) > 0) {
+                        throw new IOException("start > end at geoip line " + lineNo);
+                    }
+                    v6Rows.add(new Row(start[0], start[1], end[0], end[1], region, latitude, longitude));
+                } else {
+                    throw new IOException("invalid ip range at geoip line " + lineNo + ": " + line);
+                }
+            }
+        }
+
+        Comparator<Row> byStart = (a, b) -> compareUnsigned(a.startHigh, a.startLow, b.startHigh, b.startLow);
+        v4Rows.sort(byStart);
+        v6Rows.sort(byStart);
+        return new GeoIpDatabase(v4Rows, v6Rows, regions);
+    }
+
+    /**
+     * 查询 IP 所在地区
+     *
+     * @param ip IPv4 或 IPv6 地址文本（IPv4 映射的 IPv6 地址按 IPv4 查询）
+     * @return 查询结果，地址无效或不在库中返回 null
+     */
+    public Location lookup(String ip) {
+        if (ip == null || ip.isEmpty()) {
+            return null;
+        }
+        long v4 = parseIpv4(ip);
+        if (v4 >= 0) {
+            return lookupV4(v4);
+        }
+        long[] address = new long[2];
+        if (!parseIpv6(ip, address)) {
+            return null;
+        }
+        if (address[0] == 0 && (address[1] >>> 32) == 0xFFFFL) {
+            return lookupV4(address[1] & 0xFFFFFFFFL);
+        }
+        return lookupV6(address[0], address[1]);
+    }
+
+    /**
+     * IP 段数量
+     */
+    public int size() {
+        return v4Start.length + v6StartHigh.length;
+    }
+
+    private Location lookupV4(long ip) {
+        // 找到最后一个起始地址 <= ip 的段：它位于高 16 位相同的段中，或是这些段之前的一段
+        int prefix = (int) (ip >>> 16);
+        int low = Math.max(0, v4PrefixIndex[prefix] - 1);
+        int high = v4PrefixIndex[prefix + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (v4Start[mid] <= ip) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high < 0 || ip > v4End[high]) {
+            return null;
+        }
+        return new Location(regions[v4Region[high]], v4Latitude[high], v4Longitude[high]);
+    }
+
+    private Location lookupV6(long ipHigh, long ipLow) {
+        int low = 0;
+        int high = v6StartHigh.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compareUnsigned(v6StartHigh[mid], v6StartLow[mid], ipHigh, ipLow) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high < 0 || compareUnsigned(ipHigh, ipLow, v6EndHigh[high], v6EndLow[high]) > 0) {
+            return null;
+        }
+        return new Location(regions[v6Region[high]], v6Latitude[high], v6Longitude[high]);
+    }
+
+    /**
+     * 解析 IPv4 地址（不做 DNS 解析）
+     *
+     * @return 32 位无符号地址，格式不正确返回 -1
+     */
+    public static long parseIpv4(String ip) {
+        int length = ip.length();
+        if (length < 7 || length > 15) {
+            return -1;
+        }
+        long result = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < length; i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                result = (result << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        if (dots != 3 || octet < 0) {
+            return -1;
+        }
+        return (result << 8) | octet;
+    }
+
+    /**
+     * 解析 IPv6 地址（支持 :: 缩写和末尾内嵌 IPv4，不支持 %zone 后缀以外的扩展写法，不做 DNS 解析）
+     *
+     * @param ip  地址文本
+     * @param out 输出：out[0] 为高 64 位，out[1] 为低 64 位
+     * @return 格式是否正确
+     */
+    public static boolean parseIpv6(String ip, long[] out) {
+        int end = ip.indexOf('%');
+        if (end < 0) {
+            end = ip.length();
+        }
+        if (end < 2 || ip.indexOf(':') < 0) {
+            return false;
+        }
+        int[] groups = new int[8];
+        int count = 0;
+        int gap = -1; // "::" 出现的位置（以组计）
+        int i = 0;
+        if (ip.startsWith("::")) {
+            gap = 0;
+            i = 2;
+            if (i == end) {
+                out[0] = 0;
+                out[1] = 0;
+                return true;
+            }
+        } else if (ip.charAt(0) == ':') {
+            return false;
+        }
+        while (i < end) {
+            if (count == 8) {
+                return false;
+            }
+            int groupEnd = i;
+            while (groupEnd < end && ip.charAt(groupEnd) != ':') {
+                groupEnd++;
+            }
+            if (groupEnd == i) {
+                return false;
+            }
+            if (groupEnd == end && ip.indexOf('.', i) >= 0 && ip.indexOf('.', i) < end) {
+                // 末尾内嵌 IPv4
+                if (count > 6) {
+                    return false;
+                }
+                long v4 = parseIpv4(ip.substring(i, end));
+                if (v4 < 0) {
+                    return false;
+                }
+                groups[count++] = (int) (v4 >>> 16);
+                groups[count++] = (int) (v4 & 0xFFFF);
+                i = end;
+                break;
+            }
+            if (groupEnd - i > 4) {
+                return false;
+            }
+            int value = 0;
+            for (int j = i; j < groupEnd; j++) {
+                int digit = Character.digit(ip.charAt(j), 16);
+                if (digit < 0) {
+                    return false;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[count++] = value;
+            if (groupEnd == end) {
+                i = end;
+            } else if (groupEnd + 1 < end && ip.charAt(groupEnd + 1) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = count;
+                i = groupEnd + 2;
+            } else if (groupEnd + 1 == end) {
+                return false;
+            } else {
+                i = groupEnd + 1;
+            }
+        }
+        if (gap < 0 ? count != 8 : count == 8) {
+            return false;
+        }
+        if (gap >= 0) {
+            int shift = 8 - count;
+            for (int k = count - 1; k >= gap; k--) {
+                groups[k + shift] = groups[k];
+            }
+            for (int k = gap; k < gap + shift; k++) {
+                groups[k] = 0;
+            }
+        }
+        long high = 0;
+        long low = 0;
+        for (int k = 0; k < 4; k++) {
+            high = (high << 16) | groups[k];
+            low = (low << 16) | groups[k + 4];
+        }
+        out[0] = high;
+        out[1] = low;
+        return true;
+    }
+
+    private static int compareUnsigned(long aHigh, long aLow, long bHigh, long bLow) {
+        int c = Long.compareUnsigned(aHigh, bHigh);
+        return c != 0 ? c : Long.compareUnsigned(aLow, bLow);
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * 加载时的中间行
+     */
+    private static final class Row {
+        final long startHigh;
+        final long startLow;
+        final long endHigh;
+        final long endLow;
+        final int region;
+        final float latitude;
+        final float longitude;
+
+        Row(long startHigh, long startLow, long endHigh, long endLow, int region, float latitude, float longitude) {
+            this.startHigh = startHigh;
+            this.startLow = startLow;
+            this.endHigh = endHigh;
+            this.endLow = endLow;
+            this.region = region;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+
+    /**
+     * 地区名称
+     */
+    public static final class Region {
+        private final String country;
+        private final String province;
+        private final String city;
+
+        Region(String country, String province, String city) {
+            this.country = country;
+            this.province = province;
+            this.city = city;
+        }
+
+        public String getCountry() {
+            return country;
+        }
+
+        public String getProvince() {
+            return province;
+        }
+
+        public String getCity() {
+            return city;
+        }
+    }
+
+    /**
+     * 查询结果
+     */
+    public static final class Location {
+        private final Region region;
+        private final float latitude;
+        private final float longitude;
+
+        Location(Region region, float latitude, float longitude) {
+            this.region = region;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+
+        public Region getRegion() {
+            return region;
+        }
+
+        public float getLatitude() {
+            return latitude;
+        }
+
+        public float getLongitude() {
+            return longitude;
+        }
+    }
+}
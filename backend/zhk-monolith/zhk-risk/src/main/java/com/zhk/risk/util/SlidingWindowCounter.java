@@ -0,0 +1,90 @@
+package com.zhk.risk.util;
+
+import java.util.Arrays;
+
+/**
+ * 固定桶数的滑动窗口计数器
+ * 时间按 bucketMillis 切成桶，只保留最近 bucketCount 个桶；每个桶可以同时记录多个计数通道
+ * （例如支付次数和支付失败次数共用一组桶）。桶编号 = 时间 / bucketMillis，按编号取模定位到环形数组，
+ * 写入时发现槽位里是旧桶就清零复用，读取时只累加仍在窗口内的桶，读写都是 O(桶数)。
+ * 线程安全。
+ *
+ * @author shigure
+ */
+public class SlidingWindowCounter {
+
+    private final int bucketCount;
+    private final long bucketMillis;
+    private final int channels;
+
+    /**
+     * 每个槽位当前保存的桶编号，-1 表示空
+     */
+    private final long[] bucketIds;
+
+    /**
+     * 计数，下标为 槽位 * channels + 通道
+     */
+    private final int[] counts;
+
+    /**
+     * @param bucketCount  桶数量
+     * @param bucketMillis 每个桶的时长（毫秒），窗口长度 = bucketCount * bucketMillis
+     * @param channels     计数通道数量
+     */
+    public SlidingWindowCounter(int bucketCount, long bucketMillis, int channels) {
+        if (bucketCount <= 0 || bucketMillis <= 0 || channels <= 0) {
+            throw new IllegalArgumentException("bucketCount, bucketMillis and channels must be positive");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketMillis = bucketMillis;
+        this.channels = channels;
+        this.bucketIds = new long[bucketCount];
+        this.counts = new int[bucketCount * channels];
+        Arrays.fill(bucketIds, -1L);
+    }
+
+    /**
+     * 在 now 所在的桶上累加计数
+     *
+     * @param now     当前时间（毫秒）
+     * @param channel 通道
+     * @param delta   增量
+     */
+    public synchronized void add(long now, int channel, int delta) {
+        long bucket = now / bucketMillis;
+        int slot = (int) (bucket % bucketCount);
+        if (bucketIds[slot] != bucket) {
+            bucketIds[slot] = bucket;
+            for (int c = 0; c < channels; c++) {
+                counts[slot * channels + c] = 0;
+            }
+        }
+        counts[slot * channels + channel] += delta;
+    }
+
+    /**
+     * 窗口内（包含 now 所在的桶）某个通道的计数之和
+     *
+     * @param now     当前时间（毫秒）
+     * @param channel 通道
+     * @return 计数之和
+     */
+    public synchronized int sum(long now, int channel) {
+        long minBucket = now / bucketMillis - bucketCount + 1;
+        int sum = 0;
+        for (int slot = 0; slot < bucketCount; slot++) {
+            if (bucketIds[slot] >= minBucket) {
+                sum += counts[slot * channels + channel];
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 窗口长度（毫秒）
+     */
+    public long windowMillis() {
+        return bucketCount * bucketMillis;
+    }
+}
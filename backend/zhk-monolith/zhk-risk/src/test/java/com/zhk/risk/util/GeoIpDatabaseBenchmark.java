@@ -0,0 +1,148 @@
+package com.zhk.risk.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoIpDatabase 基准测试
+ * 生成与常见离线库规模相当的 CSV（约 50 万个 IPv4 段、10 万个 IPv6 段、3000 个地区），
+ * lookup 测量每秒查询数（包含地址文本解析），地址在库内随机分布；load 测量整个文件的加载耗时。
+ * 运行方式（不随 mvn test 执行，-t 指定线程数）：
+ * <pre>
+ * mvn -pl zhk-monolith/zhk-risk -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp zhk-monolith/zhk-risk/target/test-classes:zhk-monolith/zhk-risk/target/classes:$(cat zhk-monolith/zhk-risk/target/cp.txt) \
+ *     org.openjdk.jmh.Main GeoIpDatabaseBenchmark -t 4
+ * </pre>
+ *
+ * @author shigure
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GeoIpDatabaseBenchmark {
+
+    static final int V4_RANGES = 500_000;
+    static final int V6_RANGES = 100_000;
+    static final int REGIONS = 3000;
+    static final int QUERIES = 1 << 16;
+
+    /**
+     * 按固定种子生成 CSV：IPv4 段首尾相接覆盖整个地址空间，IPv6 段为 2400::/12 下连续的 /64
+     */
+    static Path writeCsv() throws IOException {
+        Random random = new Random(20240101L);
+        Path file = Files.createTempFile("geoip-benchmark", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# 起始IP,结束IP,国家,省份,城市,纬度,经度\n");
+            long average = (1L << 32) / V4_RANGES;
+            long start = 0;
+            for (int i = 0; i < V4_RANGES && start <= 0xFFFFFFFFL; i++) {
+                long end = i == V4_RANGES - 1 ? 0xFFFFFFFFL
+                        : Math.min(0xFFFFFFFFL, start + 1 + (long) (random.nextDouble() * 2 * average));
+                writeRow(writer, ipv4(start), ipv4(end), random);
+                start = end + 1;
+            }
+            for (int i = 0; i < V6_RANGES; i++) {
+                String prefix = ipv6Prefix(0x2400_0000_0000_0000L + i);
+                writeRow(writer, prefix + "::", prefix + ":ffff:ffff:ffff:ffff", random);
+            }
+        }
+        return file;
+    }
+
+    private static void writeRow(BufferedWriter writer, String start, String end, Random random) throws IOException {
+        int region = random.nextInt(REGIONS);
+        writer.write(start + "," + end + ",中国,省份" + (region / 100) + ",城市" + region + ","
+                + (18 + random.nextFloat() * 35) + "," + (73 + random.nextFloat() * 62) + "\n");
+    }
+
+    static String ipv4(long address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    static String ipv6Prefix(long high) {
+        return Long.toHexString(high >>> 48) + ":" + Long.toHexString((high >>> 32) & 0xFFFF) + ":"
+                + Long.toHexString((high >>> 16) & 0xFFFF) + ":" + Long.toHexString(high & 0xFFFF);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Database {
+        @Param({"v4", "v6"})
+        String family;
+
+        Path file;
+        GeoIpDatabase database;
+        String[] queries;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            file = writeCsv();
+            database = GeoIpDatabase.load(file);
+            Random random = new Random(42L);
+            queries = new String[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                queries[i] = "v4".equals(family)
+                        ? ipv4(random.nextLong() & 0xFFFFFFFFL)
+                        : ipv6Prefix(0x2400_0000_0000_0000L + random.nextInt(V6_RANGES))
+                                + ":" + Integer.toHexString(random.nextInt(0x10000)) + "::1";
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * 每个线程各自遍历查询数组
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public GeoIpDatabase.Location lookup(Database state, Cursor cursor) {
+        int index = cursor.next;
+        cursor.next = (index + 1) & (QUERIES - 1);
+        return state.database.lookup(state.queries[index]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public GeoIpDatabase load(Database state) throws IOException {
+        return GeoIpDatabase.load(state.file);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GeoIpDatabaseBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,30 @@
+package com.zhk.user.aspect;
+
+import lombok.Getter;
+
+/**
+ * 审计描述符
+ * 某个 Controller 方法的审计配置：是否记录、操作类型、资源类型、需要记录的简单类型参数下标
+ *
+ * @author shigure
+ */
+@Getter
+public final class AuditDescriptor {
+
+    /**
+     * 不记录日志
+     */
+    public static final AuditDescriptor SKIP = new AuditDescriptor(false, null, null, new int[0]);
+
+    private final boolean logged;
+    private final String action;
+    private final String resourceType;
+    private final int[] simpleArgIndexes;
+
+    public AuditDescriptor(boolean logged, String action, String resourceType, int[] simpleArgIndexes) {
+        this.logged = logged;
+        this.action = action;
+        this.resourceType = resourceType;
+        this.simpleArgIndexes = simpleArgIndexes;
+    }
+}
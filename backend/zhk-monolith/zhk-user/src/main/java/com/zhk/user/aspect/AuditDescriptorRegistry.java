@@ -0,0 +1,211 @@
+package com.zhk.user.aspect;
+
+import com.zhk.common.core.annotation.Audited;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 审计描述符注册表
+ * 应用启动完成后遍历 RequestMappingHandlerMapping，为每个只映射一个路径和一个 HTTP 方法的 Controller 方法
+ * 预先计算审计描述符；请求时只需一次查表。
+ * 映射了多个路径或 HTTP 方法的 Controller 方法无法预先确定，仍按请求路径实时推断。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditDescriptorRegistry {
+
+    private final ApplicationContext applicationContext;
+
+    /**
+     * Controller 方法 -> 审计描述符（启动完成后整体替换，之后只读）
+     */
+    private volatile Map<Method, AuditDescriptor> descriptors = Map.of();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        RequestMappingHandlerMapping handlerMapping = applicationContext.getBean(
+                "requestMappingHandlerMapping", RequestMappingHandlerMapping.class);
+        Map<Method, AuditDescriptor> resolved = new HashMap<>();
+        Set<Method> ambiguous = new HashSet<>();
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            RequestMappingInfo info = entry.getKey();
+            Method method = entry.getValue().getMethod();
+            Set<String> patterns = info.getPatternValues();
+            Set<RequestMethod> httpMethods = info.getMethodsCondition().getMethods();
+            if (ambiguous.contains(method)) {
+                continue;
+            }
+            if (patterns.size() != 1 || httpMethods.size() != 1 || resolved.containsKey(method)) {
+                // 同一个方法映射到多个路由时无法预先确定，之后的路由也不再预解析
+                resolved.remove(method);
+                ambiguous.add(method);
+                continue;
+            }
+            resolved.put(method, describe(method, patterns.iterator().next(), httpMethods.iterator().next().name()));
+        }
+        descriptors = resolved;
+        log.info("审计描述符预解析完成: resolved={}, dynamic={}", resolved.size(), ambiguous.size());
+    }
+
+    /**
+     * 获取审计描述符
+     *
+     * @param method      Controller 方法
+     * @param requestPath 请求路径（预解析未命中时使用）
+     * @param httpMethod  HTTP 方法（预解析未命中时使用）
+     */
+    public AuditDescriptor resolve(Method method, String requestPath, String httpMethod) {
+        AuditDescriptor descriptor = descriptors.get(method);
+        if (descriptor != null) {
+            return descriptor;
+        }
+        return describe(method, requestPath, httpMethod);
+    }
+
+    /**
+     * 计算审计描述符：优先使用 @Audited，否则按路径和 HTTP 方法推断
+     */
+    private AuditDescriptor describe(Method method, String path, String httpMethod) {
+        Audited audited = method.getAnnotation(Audited.class);
+        if (audited != null) {
+            if (!audited.enabled()) {
+                return AuditDescriptor.SKIP;
+            }
+            String resourceType = audited.resourceType().isEmpty() ? null : audited.resourceType();
+            return new AuditDescriptor(true, audited.action(), resourceType, simpleArgIndexes(method));
+        }
+
+        // 跳过审计日志查询接口本身，避免循环记录；只记录关键操作
+        if (path.contains("/audit-logs") || !shouldLog(path, httpMethod)) {
+            return AuditDescriptor.SKIP;
+        }
+        return new AuditDescriptor(true, parseAction(path, httpMethod), parseResourceType(path),
+                simpleArgIndexes(method));
+    }
+
+    /**
+     * 判断是否应该记录日志
+     */
+    private boolean shouldLog(String path, String method) {
+        // 只记录POST、PUT、DELETE、PATCH等写操作
+        if (!"POST".equals(method) && !"PUT".equals(method) 
+            && !"DELETE".equals(method) && !"PATCH".equals(method)) {
+            return false;
+        }
+        
+        // 记录关键操作路径
+        return path.contains("/login") 
+            || path.contains("/logout")
+            || path.contains("/register")
+            || path.contains("/orders")
+            || path.contains("/payments")
+            || path.contains("/appeals")
+            || path.contains("/admin")
+            || path.contains("/accounts");
+    }
+
+    /**
+     * 解析资源类型
+     */
+    private String parseResourceType(String path) {
+        if (path.contains("/users")) {
+            return "USER";
+        } else if (path.contains("/orders")) {
+            return "ORDER";
+        } else if (path.contains("/accounts")) {
+            return "ACCOUNT";
+        } else if (path.contains("/appeals")) {
+            return "APPEAL";
+        } else if (path.contains("/payments")) {
+            return "PAYMENT";
+        }
+        return null;
+    }
+
+    /**
+     * 解析操作类型
+     */
+    private String parseAction(String path, String method) {
+        if (path.contains("/login")) {
+            return "LOGIN";
+        } else if (path.contains("/logout")) {
+            return "LOGOUT";
+        } else if (path.contains("/register")) {
+            return "REGISTER";
+        } else if (path.contains("/resolve")) {
+            return "APPEAL_RESOLVE";
+        } else if (path.contains("/status") && path.contains("/users")) {
+            if ("PUT".equals(method) || "PATCH".equals(method)) {
+                return "USER_STATUS_UPDATE";
+            }
+        } else if (path.contains("/freeze")) {
+            return "USER_FREEZE";
+        } else if (path.contains("/unfreeze")) {
+            return "USER_UNFREEZE";
+        } else if (path.contains("/accounts")) {
+            if ("POST".equals(method)) {
+                return "ACCOUNT_CREATE";
+            } else if ("PUT".equals(method) || "PATCH".equals(method)) {
+                return "ACCOUNT_UPDATE";
+            } else if ("DELETE".equals(method)) {
+                return "ACCOUNT_DELETE";
+            }
+        } else if (path.contains("/orders")) {
+            if ("POST".equals(method)) {
+                return "ORDER_CREATE";
+            } else if ("PUT".equals(method) || "PATCH".equals(method)) {
+                return "ORDER_UPDATE";
+            }
+        } else if (path.contains("/payments")) {
+            return "PAYMENT";
+        }
+        return null;
+    }
+
+    /**
+     * 声明类型为简单类型的参数下标（只记录简单参数，避免记录敏感信息）
+     */
+    private int[] simpleArgIndexes(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (isSimpleType(parameterTypes[i])) {
+                indexes.add(i);
+            }
+        }
+        int[] result = new int[indexes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = indexes.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * 判断是否为简单类型
+     */
+    private boolean isSimpleType(Class<?> clazz) {
+        return clazz.isPrimitive() 
+            || clazz == String.class
+            || clazz == Boolean.class
+            || Number.class.isAssignableFrom(clazz);
+    }
+}
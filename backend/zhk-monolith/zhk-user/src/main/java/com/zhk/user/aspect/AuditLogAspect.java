@@ -1,10 +1,7 @@
 package com.zhk.user.aspect;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zhk.common.security.SecurityUtils;
 import com.zhk.user.entity.AuditLog;
-import com.zhk.user.entity.User;
-import com.zhk.user.mapper.UserMapper;
 import com.zhk.user.service.AuditLogService;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
@@ -13,13 +10,13 @@ import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.lang.reflect.Method;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * 日志审计切面
@@ -34,8 +31,7 @@ import java.util.Map;
 public class AuditLogAspect {
 
     private final AuditLogService auditLogService;
-    private final UserMapper userMapper;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AuditDescriptorRegistry auditDescriptorRegistry;
 
     /**
      * 定义切点：所有Controller的方法
@@ -58,14 +54,11 @@ public class AuditLogAspect {
 
         String requestPath = request.getRequestURI();
         String requestMethod = request.getMethod();
-        
-        // 跳过审计日志查询接口本身，避免循环记录
-        if (requestPath.contains("/audit-logs")) {
-            return joinPoint.proceed();
-        }
 
-        // 只记录关键操作
-        if (!shouldLog(requestPath, requestMethod)) {
+        // 审计配置在启动时按 Controller 方法预先解析，这里只查一次表
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        AuditDescriptor descriptor = auditDescriptorRegistry.resolve(method, requestPath, requestMethod);
+        if (!descriptor.isLogged()) {
             return joinPoint.proceed();
         }
 
@@ -75,42 +68,17 @@ public class AuditLogAspect {
         auditLog.setIpAddress(getClientIp(request));
         auditLog.setUserAgent(request.getHeader("User-Agent"));
         auditLog.setCreatedAt(LocalDateTime.now());
+        auditLog.setAction(descriptor.getAction());
+        auditLog.setResourceType(descriptor.getResourceType());
 
-        // 获取用户信息
+        // 获取用户信息（用户名和角色由 AuditLogWriter 批量补全）
         Long userId = SecurityUtils.getCurrentUserId();
         if (userId != null) {
             auditLog.setUserId(userId);
-            User user = userMapper.selectById(userId);
-            if (user != null) {
-                auditLog.setUsername(user.getNickname());
-                auditLog.setRole(user.getRole());
-            }
         }
 
-        // 解析操作类型和资源类型
-        parseActionAndResource(requestPath, requestMethod, auditLog);
-
-        // 记录请求参数
-        try {
-            Object[] args = joinPoint.getArgs();
-            Map<String, Object> params = new HashMap<>();
-            for (int i = 0; i < args.length; i++) {
-                Object arg = args[i];
-                // 跳过HttpServletRequest等对象
-                if (arg instanceof HttpServletRequest) {
-                    continue;
-                }
-                // 只记录简单对象，避免记录敏感信息
-                if (isSimpleType(arg)) {
-                    params.put("arg" + i, arg);
-                }
-            }
-            if (!params.isEmpty()) {
-                auditLog.setRequestParams(objectMapper.writeValueAsString(params));
-            }
-        } catch (Exception e) {
-            log.warn("记录请求参数失败", e);
-        }
+        // 记录请求参数（只记录简单类型参数，避免记录敏感信息）
+        auditLog.setRequestParams(buildParams(joinPoint.getArgs(), descriptor.getSimpleArgIndexes()));
 
         Object result = null;
         try {
@@ -135,12 +103,7 @@ public class AuditLogAspect {
             long endTime = System.currentTimeMillis();
             auditLog.setExecutionTime((int) (endTime - startTime));
             
-            // 设置操作描述
-            if (auditLog.getDescription() == null || auditLog.getDescription().isEmpty()) {
-                auditLog.setDescription(buildDescription(auditLog));
-            }
-            
-            // 异步记录日志（避免影响主流程性能）
+            // 异步记录日志（避免影响主流程性能），操作描述在补全用户信息后生成
             try {
                 auditLogService.log(auditLog);
             } catch (Exception e) {
@@ -152,97 +115,50 @@ public class AuditLogAspect {
     }
 
     /**
-     * 判断是否应该记录日志
+     * 把简单类型参数拼接为 JSON，如 {"arg0":1,"arg1":"abc"}，char 和 NaN/Infinity 按字符串输出
      */
-    private boolean shouldLog(String path, String method) {
-        // 只记录POST、PUT、DELETE、PATCH等写操作
-        if (!"POST".equals(method) && !"PUT".equals(method) 
-            && !"DELETE".equals(method) && !"PATCH".equals(method)) {
-            return false;
-        }
-        
-        // 记录关键操作路径
-        return path.contains("/login") 
-            || path.contains("/logout")
-            || path.contains("/register")
-            || path.contains("/orders")
-            || path.contains("/payments")
-            || path.contains("/appeals")
-            || path.contains("/admin")
-            || path.contains("/accounts");
-    }
-
-    /**
-     * 解析操作类型和资源类型
-     */
-    private void parseActionAndResource(String path, String method, AuditLog auditLog) {
-        // 解析资源类型
-        if (path.contains("/users")) {
-            auditLog.setResourceType("USER");
-        } else if (path.contains("/orders")) {
-            auditLog.setResourceType("ORDER");
-        } else if (path.contains("/accounts")) {
-            auditLog.setResourceType("ACCOUNT");
-        } else if (path.contains("/appeals")) {
-            auditLog.setResourceType("APPEAL");
-        } else if (path.contains("/payments")) {
-            auditLog.setResourceType("PAYMENT");
-        }
-
-        // 解析操作类型
-        if (path.contains("/login")) {
-            auditLog.setAction("LOGIN");
-        } else if (path.contains("/logout")) {
-            auditLog.setAction("LOGOUT");
-        } else if (path.contains("/register")) {
-            auditLog.setAction("REGISTER");
-        } else if (path.contains("/resolve")) {
-            auditLog.setAction("APPEAL_RESOLVE");
-        } else if (path.contains("/status") && path.contains("/users")) {
-            if ("PUT".equals(method) || "PATCH".equals(method)) {
-                auditLog.setAction("USER_STATUS_UPDATE");
-            }
-        } else if (path.contains("/freeze")) {
-            auditLog.setAction("USER_FREEZE");
-        } else if (path.contains("/unfreeze")) {
-            auditLog.setAction("USER_UNFREEZE");
-        } else if (path.contains("/accounts")) {
-            if ("POST".equals(method)) {
-                auditLog.setAction("ACCOUNT_CREATE");
-            } else if ("PUT".equals(method) || "PATCH".equals(method)) {
-                auditLog.setAction("ACCOUNT_UPDATE");
-            } else if ("DELETE".equals(method)) {
-                auditLog.setAction("ACCOUNT_DELETE");
+    private String buildParams(Object[] args, int[] simpleArgIndexes) {
+        StringBuilder json = null;
+        for (int index : simpleArgIndexes) {
+            Object arg = index < args.length ? args[index] : null;
+            if (arg == null) {
+                continue;
             }
-        } else if (path.contains("/orders")) {
-            if ("POST".equals(method)) {
-                auditLog.setAction("ORDER_CREATE");
-            } else if ("PUT".equals(method) || "PATCH".equals(method)) {
-                auditLog.setAction("ORDER_UPDATE");
+            json = json == null ? new StringBuilder("{") : json.append(',');
+            json.append("\"arg").append(index).append("\":");
+            if (arg instanceof String || arg instanceof Character) {
+                appendJsonString(json, arg.toString());
+            } else if (arg instanceof Double d && !Double.isFinite(d)
+                    || arg instanceof Float f && !Float.isFinite(f)) {
+                // JSON 没有 NaN/Infinity 字面量，按字符串记录
+                appendJsonString(json, arg.toString());
+            } else {
+                json.append(arg);
             }
-        } else if (path.contains("/payments")) {
-            auditLog.setAction("PAYMENT");
         }
+        return json != null ? json.append('}').toString() : null;
     }
 
-    /**
-     * 构建操作描述
-     */
-    private String buildDescription(AuditLog auditLog) {
-        StringBuilder desc = new StringBuilder();
-        if (auditLog.getUsername() != null) {
-            desc.append(auditLog.getUsername());
-        } else {
-            desc.append("系统");
-        }
-        desc.append("执行了").append(auditLog.getAction());
-        if (auditLog.getResourceType() != null) {
-            desc.append("操作，资源类型：").append(auditLog.getResourceType());
-        }
-        if (auditLog.getResourceId() != null) {
-            desc.append("，资源ID：").append(auditLog.getResourceId());
+    private void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
         }
-        return desc.toString();
+        json.append('"');
     }
 
     /**
@@ -270,23 +186,4 @@ public class AuditLogAspect {
         }
         return ip;
     }
-
-    /**
-     * 判断是否为简单类型
-     */
-    private boolean isSimpleType(Object obj) {
-        if (obj == null) {
-            return false;
-        }
-        Class<?> clazz = obj.getClass();
-        return clazz.isPrimitive() 
-            || clazz == String.class
-            || clazz == Integer.class
-            || clazz == Long.class
-            || clazz == Double.class
-            || clazz == Float.class
-            || clazz == Boolean.class
-            || Number.class.isAssignableFrom(clazz);
-    }
 }
-
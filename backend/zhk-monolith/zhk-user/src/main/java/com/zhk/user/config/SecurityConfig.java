@@ -63,6 +63,9 @@ public class SecurityConfig {
                 ).permitAll()
                 // 管理员接口（需要OPERATOR角色）
                 .requestMatchers("/api/v1/admin/**").hasRole("OPERATOR")
+                // 监控端点（健康检查以外）仅管理员可访问
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("OPERATOR")
                 // 需要认证的接口
                 .requestMatchers(
                     "/api/v1/users/me",
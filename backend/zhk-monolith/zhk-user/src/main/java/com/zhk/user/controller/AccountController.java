@@ -1,5 +1,6 @@
 package com.zhk.user.controller;
 
+import com.zhk.common.core.page.CursorPage;
 import com.zhk.common.security.JwtUtil;
 import com.zhk.common.web.Result;
 import com.zhk.user.dto.AccountVO;
@@ -77,6 +78,52 @@ public class AccountController {
         return Result.success(result);
     }
 
+    /**
+     * 获取账号列表（游标分页，请求携带 cursor 参数时生效，第一页传空字符串）
+     */
+    @GetMapping(params = "cursor")
+    public Result<CursorPage<AccountVO>> getAccountListByCursor(
+            @RequestParam(value = "gameId", required = false) Integer gameId,
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "minPrice", required = false) BigDecimal minPrice,
+            @RequestParam(value = "maxPrice", required = false) BigDecimal maxPrice,
+            @RequestParam(value = "sortBy", required = false) String sortBy,
+            @RequestParam(value = "sortOrder", required = false) String sortOrder,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "12") Integer pageSize
+    ) {
+        return Result.success(accountService.getAccountListByCursor(
+                gameId, keyword, minPrice, maxPrice, sortBy, sortOrder, cursor, pageSize));
+    }
+
+    /**
+     * 获取我的账号列表（商家端，游标分页）
+     */
+    @GetMapping(value = "/my", params = "cursor")
+    public Result<CursorPage<AccountVO>> getMyAccountsByCursor(
+            HttpServletRequest request,
+            @RequestParam(value = "gameId", required = false) Integer gameId,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "cursor") String cursor,
+            @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize
+    ) {
+        // 从请求头获取 Token
+        String token = getTokenFromRequest(request);
+        if (token == null) {
+            return Result.error(401, "未授权，请先登录");
+        }
+
+        // 从 Token 中获取用户ID
+        Long userId;
+        try {
+            userId = jwtUtil.getUserIdFromToken(token);
+        } catch (Exception e) {
+            return Result.error(401, "Token 无效或已过期");
+        }
+
+        return Result.success(accountService.getMyAccountsByCursor(userId, gameId, status, cursor, pageSize));
+    }
+
     /**
      * 创建账号（商家端，需要认证）
      */
@@ -12,8 +12,9 @@ import com.zhk.order.mapper.LeaseOrderMapper;
 import com.zhk.user.dto.UserVO;
 import com.zhk.user.entity.Account;
 import com.zhk.user.entity.User;
-import com.zhk.user.mapper.AccountMapper;
 import com.zhk.user.mapper.UserMapper;
+import com.zhk.user.service.DashboardStats;
+import com.zhk.user.service.UserProfileCache;
 import com.zhk.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -35,9 +36,10 @@ import java.util.stream.Collectors;
 public class AdminController {
 
     private final UserMapper userMapper;
-    private final AccountMapper accountMapper;
     private final LeaseOrderMapper orderMapper;
     private final AppealMapper appealMapper;
+    private final UserProfileCache userProfileCache;
+    private final DashboardStats dashboardStats;
 
     /**
      * 获取统计数据
@@ -45,36 +47,19 @@ public class AdminController {
     @GetMapping("/stats")
     @PreAuthorize("hasRole('OPERATOR')")
     public Result<Map<String, Object>> getStats() {
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        if (currentUserId == null) {
-            throw new BusinessException(401, "未授权，请先登录");
-        }
+        checkOperator();
 
-        // 验证角色
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
-            throw new BusinessException(403, "无权限访问");
-        }
+        // 读取增量维护的计数，不再逐表 COUNT
+        DashboardStats.Snapshot snapshot = dashboardStats.snapshot();
 
         Map<String, Object> stats = new HashMap<>();
-        
-        // 总用户数
-        long totalUsers = userMapper.selectCount(null);
-        stats.put("totalUsers", totalUsers);
-        
-        // 总账号数
-        long totalAccounts = accountMapper.selectCount(null);
-        stats.put("totalAccounts", totalAccounts);
-        
-        // 总订单数
-        long totalOrders = orderMapper.selectCount(null);
-        stats.put("totalOrders", totalOrders);
-        
+        stats.put("totalUsers", snapshot.getUsers());
+        stats.put("totalAccounts", snapshot.getAccounts());
+        stats.put("totalOrders", snapshot.getOrders());
         // 待处理申诉数（verdict为null表示待处理）
-        LambdaQueryWrapper<Appeal> appealWrapper = new LambdaQueryWrapper<>();
-        appealWrapper.isNull(Appeal::getVerdict);
-        long pendingAppeals = appealMapper.selectCount(appealWrapper);
-        stats.put("pendingAppeals", pendingAppeals);
+        stats.put("pendingAppeals", snapshot.getPendingAppeals());
+        stats.put("accountStatusCounts", snapshot.getAccountStatusCounts());
+        stats.put("orderStatusCounts", snapshot.getOrderStatusCounts());
 
         return Result.success(stats);
     }
@@ -91,16 +76,7 @@ public class AdminController {
             @RequestParam(value = "page", defaultValue = "1") Integer page,
             @RequestParam(value = "pageSize", defaultValue = "10") Integer pageSize
     ) {
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        if (currentUserId == null) {
-            throw new BusinessException(401, "未授权，请先登录");
-        }
-
-        // 验证角色
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
-            throw new BusinessException(403, "无权限访问");
-        }
+        checkOperator();
 
         LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
         
@@ -154,16 +130,7 @@ public class AdminController {
             @PathVariable Long userId,
             @RequestParam Integer status
     ) {
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        if (currentUserId == null) {
-            throw new BusinessException(401, "未授权，请先登录");
-        }
-
-        // 验证角色
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
-            throw new BusinessException(403, "无权限访问");
-        }
+        checkOperator();
 
         User user = userMapper.selectById(userId);
         if (user == null) {
@@ -172,6 +139,7 @@ public class AdminController {
 
         user.setStatus(status);
         userMapper.updateById(user);
+        userProfileCache.invalidate(userId);
 
         return Result.success(status == 1 ? "解冻成功" : "冻结成功");
     }
@@ -184,16 +152,7 @@ public class AdminController {
     public Result<List<Map<String, Object>>> getRecentOrders(
             @RequestParam(value = "limit", defaultValue = "10") Integer limit
     ) {
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        if (currentUserId == null) {
-            throw new BusinessException(401, "未授权，请先登录");
-        }
-
-        // 验证角色
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
-            throw new BusinessException(403, "无权限访问");
-        }
+        checkOperator();
 
         LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
         wrapper.orderByDesc(LeaseOrder::getCreatedAt);
@@ -224,16 +183,7 @@ public class AdminController {
     public Result<List<Map<String, Object>>> getRecentAppeals(
             @RequestParam(value = "limit", defaultValue = "10") Integer limit
     ) {
-        Long currentUserId = SecurityUtils.getCurrentUserId();
-        if (currentUserId == null) {
-            throw new BusinessException(401, "未授权，请先登录");
-        }
-
-        // 验证角色
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
-            throw new BusinessException(403, "无权限访问");
-        }
+        checkOperator();
 
         // 查询最近申诉
         LambdaQueryWrapper<Appeal> wrapper = new LambdaQueryWrapper<>();
@@ -257,5 +207,20 @@ public class AdminController {
         
         return Result.success(appealList);
     }
-}
 
+    /**
+     * 校验当前用户是运营人员（角色读取用户概要缓存，避免每个请求查库）
+     */
+    private void checkOperator() {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new BusinessException(401, "未授权，请先登录");
+        }
+
+        // 验证角色
+        UserProfileCache.UserProfile currentUser = userProfileCache.get(currentUserId);
+        if (currentUser == null || !"OPERATOR".equals(currentUser.getRole())) {
+            throw new BusinessException(403, "无权限访问");
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.zhk.user.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhk.common.core.page.CursorPage;
 import com.zhk.common.security.SecurityUtils;
 import com.zhk.common.web.BusinessException;
 import com.zhk.common.web.Result;
@@ -48,6 +49,61 @@ public class AuditLogController {
             throw new BusinessException(401, "未授权，请先登录");
         }
 
+        AuditLogQueryDTO queryDTO = buildQueryDTO(userId, username, role, action, resourceType, resourceId,
+                success, startTime, endTime);
+        queryDTO.setPage(page);
+        queryDTO.setPageSize(pageSize);
+
+        try {
+            log.info("查询日志列表: page={}, pageSize={}, userId={}, action={}", 
+                    page, pageSize, userId, action);
+            Page<AuditLogVO> result = auditLogService.queryLogs(queryDTO);
+            log.info("查询日志列表成功: total={}, records={}", 
+                    result.getTotal(), result.getRecords() != null ? result.getRecords().size() : 0);
+            return Result.success("查询成功", result);
+        } catch (Exception e) {
+            log.error("查询日志列表失败", e);
+            e.printStackTrace();
+            throw new BusinessException(500, "查询日志列表失败: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
+        }
+    }
+
+    /**
+     * 查询日志列表（游标分页，请求携带 cursor 参数时生效，第一页传空字符串，不返回总数）
+     */
+    @GetMapping(params = "cursor")
+    @PreAuthorize("hasRole('OPERATOR')")
+    public Result<CursorPage<AuditLogVO>> queryLogsByCursor(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String resourceType,
+            @RequestParam(required = false) Long resourceId,
+            @RequestParam(required = false) Integer success,
+            @RequestParam(required = false) String startTime,
+            @RequestParam(required = false) String endTime,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") Integer pageSize
+    ) {
+        Long currentUserId = SecurityUtils.getCurrentUserId();
+        if (currentUserId == null) {
+            throw new BusinessException(401, "未授权，请先登录");
+        }
+
+        AuditLogQueryDTO queryDTO = buildQueryDTO(userId, username, role, action, resourceType, resourceId,
+                success, startTime, endTime);
+        queryDTO.setCursor(cursor);
+        queryDTO.setPageSize(pageSize);
+        return Result.success("查询成功", auditLogService.queryLogsByCursor(queryDTO));
+    }
+
+    /**
+     * 构建查询条件
+     */
+    private AuditLogQueryDTO buildQueryDTO(Long userId, String username, String role, String action,
+                                           String resourceType, Long resourceId, Integer success,
+                                           String startTime, String endTime) {
         AuditLogQueryDTO queryDTO = new AuditLogQueryDTO();
         queryDTO.setUserId(userId);
         queryDTO.setUsername(username);
@@ -56,8 +112,6 @@ public class AuditLogController {
         queryDTO.setResourceType(resourceType);
         queryDTO.setResourceId(resourceId);
         queryDTO.setSuccess(success);
-        queryDTO.setPage(page);
-        queryDTO.setPageSize(pageSize);
 
         // 解析时间字符串（简单实现，实际可以使用更完善的日期解析）
         if (startTime != null && !startTime.isEmpty()) {
@@ -74,19 +128,6 @@ public class AuditLogController {
                 // 忽略解析错误
             }
         }
-
-        try {
-            log.info("查询日志列表: page={}, pageSize={}, userId={}, action={}", 
-                    page, pageSize, userId, action);
-            Page<AuditLogVO> result = auditLogService.queryLogs(queryDTO);
-            log.info("查询日志列表成功: total={}, records={}", 
-                    result.getTotal(), result.getRecords() != null ? result.getRecords().size() : 0);
-            return Result.success("查询成功", result);
-        } catch (Exception e) {
-            log.error("查询日志列表失败", e);
-            e.printStackTrace();
-            throw new BusinessException(500, "查询日志列表失败: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName()));
-        }
+        return queryDTO;
     }
 }
-
@@ -1,9 +1,8 @@
 package com.zhk.user.controller;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.zhk.common.web.Result;
-import com.zhk.user.entity.Game;
-import com.zhk.user.mapper.GameMapper;
+import com.zhk.order.entity.Game;
+import com.zhk.order.service.GameCatalogCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,19 +23,16 @@ import java.util.List;
 @RequiredArgsConstructor
 public class GameController {
 
-    private final GameMapper gameMapper;
+    private final GameCatalogCache gameCatalogCache;
 
     /**
-     * 获取游戏列表
+     * 获取游戏列表（读取本地游戏目录缓存）
      */
     @GetMapping
     public Result<List<Game>> getGameList() {
         try {
             log.info("开始查询游戏列表");
-            LambdaQueryWrapper<Game> wrapper = new LambdaQueryWrapper<>();
-            wrapper.eq(Game::getStatus, 1); // 只返回启用的游戏
-            wrapper.orderByAsc(Game::getId);
-            List<Game> games = gameMapper.selectList(wrapper);
+            List<Game> games = gameCatalogCache.getEnabledGames(); // 只返回启用的游戏
             log.info("查询游戏列表成功，数量: {}", games != null ? games.size() : 0);
             return Result.success(games != null ? games : new ArrayList<>());
         } catch (Exception e) {
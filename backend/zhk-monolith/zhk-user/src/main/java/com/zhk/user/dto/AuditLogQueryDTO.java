@@ -65,5 +65,10 @@ public class AuditLogQueryDTO {
      * 每页大小
      */
     private Integer pageSize = 20;
+
+    /**
+     * 游标（游标分页时使用，第一页为空字符串）
+     */
+    private String cursor;
 }
 
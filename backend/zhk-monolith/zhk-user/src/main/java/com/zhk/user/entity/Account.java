@@ -20,7 +20,7 @@ public class Account {
     /**
      * 账号ID
      */
-    @TableId(type = IdType.AUTO)
+    @TableId(type = IdType.ASSIGN_ID)
     private Long id;
 
     /**
@@ -1,6 +1,7 @@
 package com.zhk.user.filter;
 
 import com.zhk.common.security.JwtAuthenticationToken;
+import com.zhk.common.security.JwtPrincipal;
 import com.zhk.common.security.JwtUtil;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -37,25 +38,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = extractToken(request);
 
-        if (token != null && jwtUtil.validateToken(token)) {
-            try {
-                // 从 Token 中提取用户信息
-                Long userId = jwtUtil.getUserIdFromToken(token);
-                String username = jwtUtil.getUsernameFromToken(token);
-                String role = jwtUtil.getRoleFromToken(token);
+        // 一次解析完成签名校验和用户信息提取
+        JwtPrincipal principal = token != null ? jwtUtil.parse(token) : null;
 
-                // 创建认证对象
-                JwtAuthenticationToken authentication = new JwtAuthenticationToken(userId, username, role);
+        if (principal != null) {
+            // 创建认证对象
+            JwtAuthenticationToken authentication = new JwtAuthenticationToken(
+                    principal.getUserId(), principal.getUsername(), principal.getRole());
 
-                // 设置到 SecurityContext
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            // 设置到 SecurityContext
+            SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                log.debug("JWT 认证成功: userId={}, username={}, role={}", userId, username, role);
-            } catch (Exception e) {
-                log.error("JWT Token 解析失败", e);
-                // 清除可能存在的认证信息
-                SecurityContextHolder.clearContext();
-            }
+            log.debug("JWT 认证成功: userId={}, username={}, role={}",
+                    principal.getUserId(), principal.getUsername(), principal.getRole());
         } else {
             // 如果没有有效的 Token，清除 SecurityContext
             SecurityContextHolder.clearContext();
@@ -2,7 +2,11 @@ package com.zhk.user.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.zhk.user.entity.AuditLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * 日志审计 Mapper 接口
@@ -11,5 +15,23 @@ import org.apache.ibatis.annotations.Mapper;
  */
 @Mapper
 public interface AuditLogMapper extends BaseMapper<AuditLog> {
-}
 
+    /**
+     * 批量插入（单条多行 INSERT）
+     *
+     * @param logs 日志列表，不能为空
+     * @return 插入行数
+     */
+    @Insert("<script>"
+            + "INSERT INTO audit_log (user_id, username, role, action, resource_type, resource_id, description, "
+            + "request_method, request_path, request_params, response_status, ip_address, user_agent, "
+            + "success, error_message, execution_time, created_at) VALUES "
+            + "<foreach collection='logs' item='log' separator=','>"
+            + "(#{log.userId}, #{log.username}, #{log.role}, #{log.action}, #{log.resourceType}, #{log.resourceId}, "
+            + "#{log.description}, #{log.requestMethod}, #{log.requestPath}, #{log.requestParams}, "
+            + "#{log.responseStatus}, #{log.ipAddress}, #{log.userAgent}, #{log.success}, #{log.errorMessage}, "
+            + "#{log.executionTime}, #{log.createdAt})"
+            + "</foreach>"
+            + "</script>")
+    int insertBatch(@Param("logs") List<AuditLog> logs);
+}
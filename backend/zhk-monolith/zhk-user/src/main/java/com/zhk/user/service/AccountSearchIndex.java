@@ -0,0 +1,556 @@
+package com.zhk.user.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.zhk.common.core.page.SeekCursor;
+import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.event.OrderStatusChangedEvent;
+import com.zhk.order.mapper.LeaseOrderMapper;
+import com.zhk.order.util.RedisBroadcaster;
+import com.zhk.user.entity.Account;
+import com.zhk.user.mapper.AccountMapper;
+import com.zhk.user.util.BigramIndex;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * 账号搜索索引
+ * 在内存中为所有账号的标题和描述建立二元分词倒排索引（见 BigramIndex），并保存游戏、时租价格、状态、创建时间，
+ * 关键词搜索在内存中完成求交、过滤、排序和分页，只按主键回表读取当前页，耗时与账号总量无关。
+ * 索引在应用启动完成后由后台线程按主键分批加载，加载完成前返回 null，调用方回退到数据库 LIKE 查询。
+ * 数据变更：
+ * 1. AccountServiceImpl 的增删改、上下架在事务提交后调用 markChanged；
+ * 2. 订单状态流转（租出、归还、取消、申诉）会改变账号状态，监听 OrderStatusChangedEvent 后按订单找到账号；
+ * 两类变更都记入待刷新集合，每秒批量回表刷新，并通过 Redis 通知其他节点刷新；
+ * 另外定时全量重建，兜底直接改库和丢失的通知（account.updated_at 在 updateById 时不会自动更新，不能用于增量同步）。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AccountSearchIndex {
+
+    private static final String CHANNEL = "search:account:changed";
+    private static final int LOAD_BATCH_SIZE = 2000;
+    private static final int REFRESH_BATCH_SIZE = 500;
+    private static final int NO_GAME = Integer.MIN_VALUE;
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final AccountMapper accountMapper;
+    private final LeaseOrderMapper leaseOrderMapper;
+    private final RedisBroadcaster redisBroadcaster;
+
+    @Value("${zhk.search.enabled:true}")
+    private boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> pendingAccounts = ConcurrentHashMap.newKeySet();
+    private final Set<Long> pendingOrders = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 其他节点通知的变更（刷新后不再广播）
+     */
+    private final Set<Long> remoteAccounts = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    /**
+     * 重建期间发生变更的账号，新索引替换旧索引后需要重新刷新
+     */
+    private final Set<Long> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 当前索引，加载完成前为 null（写入需持有写锁，替换后旧索引不再使用）
+     */
+    private volatile Segment segment;
+    private ExecutorService rebuildExecutor;
+
+    @PostConstruct
+    public void init() {
+        rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "account-search-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        redisBroadcaster.subscribe(CHANNEL, message -> {
+            for (String id : message.split(",")) {
+                try {
+                    remoteAccounts.add(Long.parseLong(id.trim()));
+                } catch (NumberFormatException ignored) {
+                    // 忽略格式错误的通知
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * 关键词搜索上架中的账号（页码分页）
+     *
+     * @return 搜索结果；索引未就绪或关键词无法分词（如单个汉字）时返回 null，调用方应回退到数据库查询
+     */
+    public SearchResult search(String keyword, Integer gameId, BigDecimal minPrice, BigDecimal maxPrice,
+                               String sortBy, String sortOrder, int page, int pageSize) {
+        return query(keyword, gameId, minPrice, maxPrice, sortBy, sortOrder, null,
+                Math.max(0L, (long) (page - 1) * pageSize), pageSize, false);
+    }
+
+    /**
+     * 关键词搜索上架中的账号（游标分页）
+     * 游标的排序键为时租价格（分）或创建时间（毫秒），与数据库回退查询生成的游标一致
+     *
+     * @param after 上一页最后一条记录的游标，第一页传 null
+     * @return 搜索结果（total 为全部匹配数），返回 null 的情况同 search
+     */
+    public SearchResult searchAfter(String keyword, Integer gameId, BigDecimal minPrice, BigDecimal maxPrice,
+                                    String sortBy, String sortOrder, SeekCursor after, int pageSize) {
+        return query(keyword, gameId, minPrice, maxPrice, sortBy, sortOrder, after, 0L, pageSize, true);
+    }
+
+    private SearchResult query(String keyword, Integer gameId, BigDecimal minPrice, BigDecimal maxPrice,
+                               String sortBy, String sortOrder, SeekCursor after, long offset, int pageSize,
+                               boolean withCursor) {
+        Segment current = segment;
+        if (!enabled || current == null) {
+            return null;
+        }
+        long minCents = minPrice != null ? minPrice.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue() : NO_PRICE;
+        long maxCents = maxPrice != null ? maxPrice.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue() : Long.MAX_VALUE;
+        boolean byPrice = "price".equals(sortBy);
+        boolean descending = !StringUtils.hasText(sortBy) || "desc".equalsIgnoreCase(sortOrder);
+
+        lock.readLock().lock();
+        try {
+            long[] keys = byPrice ? current.prices : current.createdAts;
+            IntPredicate filter = doc -> current.statuses[doc] == 1
+                    && (gameId == null || current.gameIds[doc] == gameId)
+                    && (minPrice == null || (current.prices[doc] != NO_PRICE && current.prices[doc] >= minCents))
+                    && (maxPrice == null || (current.prices[doc] != NO_PRICE && current.prices[doc] <= maxCents))
+                    && (after == null || current.isAfter(doc, keys, after, descending));
+            int[] matched = current.index.match(keyword, filter);
+            if (matched == null) {
+                return null;
+            }
+            if (offset >= matched.length || pageSize <= 0) {
+                return new SearchResult(matched.length, Collections.emptyList(), null);
+            }
+            int limit = (int) Math.min(matched.length, offset + pageSize);
+            int[] top = current.top(matched, limit, keys, descending);
+            List<Long> ids = new ArrayList<>(limit - (int) offset);
+            for (int i = (int) offset; i < limit; i++) {
+                ids.add(current.accountIds[top[i]]);
+            }
+            SeekCursor nextCursor = null;
+            if (withCursor && matched.length > limit) {
+                int last = top[limit - 1];
+                nextCursor = new SeekCursor(keys[last], current.accountIds[last]);
+            }
+            return new SearchResult(matched.length, ids, nextCursor);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 账号数据变更后调用（在事务中调用时，事务提交后才生效）
+     *
+     * @param accountId 账号ID
+     */
+    public void markChanged(Long accountId) {
+        if (!enabled || accountId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pendingAccounts.add(accountId);
+                }
+            });
+        } else {
+            pendingAccounts.add(accountId);
+        }
+    }
+
+    /**
+     * 订单状态流转会改变账号状态，事务提交后再刷新
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (enabled && event.getOrderId() != null) {
+            pendingOrders.add(event.getOrderId());
+        }
+    }
+
+    /**
+     * 批量刷新待刷新的账号
+     * 默认每秒执行一次
+     */
+    @Scheduled(fixedDelayString = "${zhk.search.refresh-interval-ms:1000}")
+    public void refreshPending() {
+        if (segment == null) {
+            return;
+        }
+        try {
+            Set<Long> localChanges = drain(pendingAccounts);
+            Set<Long> orderIds = drain(pendingOrders);
+            if (!orderIds.isEmpty()) {
+                localChanges.addAll(findAccountIds(orderIds));
+            }
+            Set<Long> accountIds = drain(remoteAccounts);
+            accountIds.addAll(localChanges);
+            if (accountIds.isEmpty()) {
+                return;
+            }
+            if (rebuilding.get()) {
+                changedDuringRebuild.addAll(accountIds);
+            }
+            refresh(accountIds);
+            // 只广播本节点产生的变更（本节点也会收到自己的通知，多刷新一次无副作用）
+            publish(localChanges);
+
+            Segment current = segment;
+            if (current.index.deletedCount() > current.index.docCount() / 2 && current.index.docCount() > 10000) {
+                // 墓碑过多时整体重建，回收倒排表空间
+                rebuildExecutor.execute(this::rebuild);
+            }
+        } catch (Exception e) {
+            log.error("刷新账号搜索索引失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 定时全量重建（兜底直接改库和丢失的变更通知）
+     * 默认每6小时执行一次
+     */
+    @Scheduled(fixedDelayString = "${zhk.search.rebuild-interval-ms:21600000}",
+               initialDelayString = "${zhk.search.rebuild-interval-ms:21600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * 按主键分批加载全部账号，构建新索引后原子替换
+     */
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            changedDuringRebuild.clear();
+            Segment fresh = new Segment();
+            long lastId = 0L;
+            while (true) {
+                LambdaQueryWrapper<Account> wrapper = indexedColumns();
+                wrapper.gt(Account::getId, lastId)
+                       .orderByAsc(Account::getId)
+                       .last("LIMIT " + LOAD_BATCH_SIZE);
+                List<Account> batch = accountMapper.selectList(wrapper);
+                for (Account account : batch) {
+                    fresh.upsert(account);
+                }
+                if (batch.size() < LOAD_BATCH_SIZE) {
+                    break;
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                segment = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            // 加载期间的变更可能读到了旧数据，重新刷新一次
+            pendingAccounts.addAll(changedDuringRebuild);
+            log.info("账号搜索索引重建完成: accounts={}, cost={}ms",
+                    fresh.docs.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("重建账号搜索索引失败: {}", e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    /**
+     * 回表读取账号并更新索引，已删除的账号从索引中移除
+     */
+    private void refresh(Collection<Long> accountIds) {
+        List<Long> ids = new ArrayList<>(accountIds);
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + REFRESH_BATCH_SIZE));
+            LambdaQueryWrapper<Account> wrapper = indexedColumns();
+            wrapper.in(Account::getId, chunk);
+            List<Account> accounts = accountMapper.selectList(wrapper);
+            Set<Long> missing = new HashSet<>(chunk);
+            lock.writeLock().lock();
+            try {
+                Segment current = segment;
+                for (Account account : accounts) {
+                    current.upsert(account);
+                    missing.remove(account.getId());
+                }
+                for (Long id : missing) {
+                    current.remove(id);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Set<Long> findAccountIds(Collection<Long> orderIds) {
+        LambdaQueryWrapper<LeaseOrder> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(LeaseOrder::getId, LeaseOrder::getAccountId)
+               .in(LeaseOrder::getId, orderIds);
+        Set<Long> accountIds = new HashSet<>();
+        for (LeaseOrder order : leaseOrderMapper.selectList(wrapper)) {
+            if (order.getAccountId() != null) {
+                accountIds.add(order.getAccountId());
+            }
+        }
+        return accountIds;
+    }
+
+    private void publish(Collection<Long> accountIds) {
+        if (accountIds.isEmpty() || !redisBroadcaster.isAvailable()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        for (Long id : accountIds) {
+            if (message.length() > 0) {
+                message.append(',');
+            }
+            message.append(id);
+        }
+        redisBroadcaster.publish(CHANNEL, message.toString());
+    }
+
+    private static LambdaQueryWrapper<Account> indexedColumns() {
+        LambdaQueryWrapper<Account> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Account::getId, Account::getGameId, Account::getTitle, Account::getDescription,
+                Account::getPrice1h, Account::getStatus, Account::getCreatedAt);
+        return wrapper;
+    }
+
+    private static Set<Long> drain(Set<Long> source) {
+        Set<Long> drained = new HashSet<>();
+        Iterator<Long> iterator = source.iterator();
+        while (iterator.hasNext()) {
+            drained.add(iterator.next());
+            iterator.remove();
+        }
+        return drained;
+    }
+
+    /**
+     * 搜索结果
+     */
+    @Getter
+    public static final class SearchResult {
+        private final long total;
+
+        /**
+         * 当前页的账号ID（已排序）
+         */
+        private final List<Long> accountIds;
+
+        /**
+         * 下一页游标（仅游标分页，没有下一页时为 null）
+         */
+        private final SeekCursor nextCursor;
+
+        SearchResult(long total, List<Long> accountIds, SeekCursor nextCursor) {
+            this.total = total;
+            this.accountIds = accountIds;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    /**
+     * 一份完整的索引：倒排索引 + 按文档序号存放的账号属性
+     */
+    private static final class Segment {
+        final BigramIndex index = new BigramIndex();
+        final Map<Long, Integer> docs = new HashMap<>();
+        long[] accountIds = new long[1024];
+        int[] gameIds = new int[1024];
+        long[] prices = new long[1024];
+        long[] createdAts = new long[1024];
+        byte[] statuses = new byte[1024];
+        int[] textHashes = new int[1024];
+
+        void upsert(Account account) {
+            Integer doc = docs.get(account.getId());
+            int textHash = (account.getTitle() + "\u0000" + account.getDescription()).hashCode();
+            if (doc == null || textHashes[doc] != textHash) {
+                // 文本变化时以新序号重新加入倒排索引，创建时间沿用旧值
+                long createdAt = doc != null ? createdAts[doc] : System.currentTimeMillis();
+                if (doc != null) {
+                    index.delete(doc);
+                }
+                doc = index.add(account.getTitle(), account.getDescription());
+                ensureCapacity(doc + 1);
+                docs.put(account.getId(), doc);
+                accountIds[doc] = account.getId();
+                textHashes[doc] = textHash;
+                createdAts[doc] = createdAt;
+            }
+            gameIds[doc] = account.getGameId() != null ? account.getGameId() : NO_GAME;
+            prices[doc] = account.getPrice1h() != null
+                    ? account.getPrice1h().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue()
+                    : NO_PRICE;
+            statuses[doc] = account.getStatus() != null ? account.getStatus().byteValue() : 0;
+            if (account.getCreatedAt() != null) {
+                createdAts[doc] = account.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            }
+        }
+
+        void remove(Long accountId) {
+            Integer doc = docs.remove(accountId);
+            if (doc != null) {
+                index.delete(doc);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= accountIds.length) {
+                return;
+            }
+            int newLength = Math.max(capacity, accountIds.length * 2);
+            accountIds = Arrays.copyOf(accountIds, newLength);
+            gameIds = Arrays.copyOf(gameIds, newLength);
+            prices = Arrays.copyOf(prices, newLength);
+            createdAts = Arrays.copyOf(createdAts, newLength);
+            statuses = Arrays.copyOf(statuses, newLength);
+            textHashes = Arrays.copyOf(textHashes, newLength);
+        }
+
+        /**
+         * 取排序后的前 limit 个文档（小顶堆/大顶堆选出前 limit 个再排序，不对全部匹配结果排序）
+         * 排序键相同时按账号ID排序，方向与排序键一致
+         */
+        int[] top(int[] matched, int limit, long[] keys, boolean descending) {
+            int[] heap = new int[limit];
+            int size = 0;
+            for (int doc : matched) {
+                if (size < limit) {
+                    heap[size] = doc;
+                    siftUp(heap, size++, keys, descending);
+                } else if (before(doc, heap[0], keys, descending)) {
+                    heap[0] = doc;
+                    siftDown(heap, size, keys, descending);
+                }
+            }
+            // 堆顶是当前最靠后的文档，依次取出从后往前填充
+            int[] sorted = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                sorted[i] = heap[0];
+                heap[0] = heap[i];
+                siftDown(heap, i, keys, descending);
+            }
+            return sorted;
+        }
+
+        private boolean before(int a, int b, long[] keys, boolean descending) {
+            if (keys[a] != keys[b]) {
+                return descending ? keys[a] > keys[b] : keys[a] < keys[b];
+            }
+            return descending ? accountIds[a] > accountIds[b] : accountIds[a] < accountIds[b];
+        }
+
+        /**
+         * 文档是否排在游标之后
+         */
+        boolean isAfter(int doc, long[] keys, SeekCursor after, boolean descending) {
+            if (keys[doc] != after.getSortKey()) {
+                return descending ? keys[doc] < after.getSortKey() : keys[doc] > after.getSortKey();
+            }
+            return descending ? accountIds[doc] < after.getId() : accountIds[doc] > after.getId();
+        }
+
+        private void siftUp(int[] heap, int i, long[] keys, boolean descending) {
+            int doc = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!before(heap[parent], doc, keys, descending)) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = doc;
+        }
+
+        private void siftDown(int[] heap, int size, long[] keys, boolean descending) {
+            if (size == 0) {
+                return;
+            }
+            int doc = heap[0];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && before(heap[child], heap[child + 1], keys, descending)) {
+                    child++;
+                }
+                if (!before(doc, heap[child], keys, descending)) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = doc;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.zhk.user.service;
 
+import com.zhk.common.core.page.CursorPage;
 import com.zhk.user.dto.AccountVO;
 import com.zhk.user.dto.CreateAccountDTO;
 import com.zhk.user.dto.UpdateAccountDTO;
@@ -41,6 +42,30 @@ public interface AccountService {
             String sortOrder
     );
 
+    /**
+     * 获取账号列表（游标分页，不返回总数）
+     *
+     * @param gameId    游戏ID
+     * @param keyword   关键词
+     * @param minPrice  最低价格
+     * @param maxPrice  最高价格
+     * @param sortBy    排序字段
+     * @param sortOrder 排序顺序
+     * @param cursor    上一页返回的游标，第一页传空字符串
+     * @param pageSize  每页数量
+     * @return 账号列表
+     */
+    CursorPage<AccountVO> getAccountListByCursor(
+            Integer gameId,
+            String keyword,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            String sortBy,
+            String sortOrder,
+            String cursor,
+            Integer pageSize
+    );
+
     /**
      * 获取我的账号列表（商家端）
      *
@@ -59,6 +84,24 @@ public interface AccountService {
             Integer pageSize
     );
 
+    /**
+     * 获取我的账号列表（商家端，游标分页）
+     *
+     * @param userId   用户ID
+     * @param gameId   游戏ID
+     * @param status   状态
+     * @param cursor   上一页返回的游标，第一页传空字符串
+     * @param pageSize 每页数量
+     * @return 账号列表
+     */
+    CursorPage<AccountVO> getMyAccountsByCursor(
+            Long userId,
+            Integer gameId,
+            String status,
+            String cursor,
+            Integer pageSize
+    );
+
     /**
      * 创建账号
      *
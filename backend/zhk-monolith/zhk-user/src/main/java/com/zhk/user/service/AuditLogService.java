@@ -2,6 +2,9 @@ package com.zhk.user.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhk.common.core.page.CursorPage;
+import com.zhk.common.core.page.SeekCursor;
+import com.zhk.common.core.page.SeekPagination;
 import com.zhk.user.dto.AuditLogQueryDTO;
 import com.zhk.user.dto.AuditLogVO;
 import com.zhk.user.entity.AuditLog;
@@ -25,13 +28,14 @@ import java.util.stream.Collectors;
 public class AuditLogService {
 
     private final AuditLogMapper auditLogMapper;
+    private final AuditLogWriter auditLogWriter;
 
     /**
-     * 记录日志
+     * 记录日志（异步批量写入，用户名、角色和描述为空时由写入器补全）
      */
     public void log(AuditLog auditLog) {
         try {
-            auditLogMapper.insert(auditLog);
+            auditLogWriter.submit(auditLog);
         } catch (Exception e) {
             log.error("记录审计日志失败", e);
             // 不抛出异常，避免影响主业务流程
@@ -44,35 +48,7 @@ public class AuditLogService {
     public Page<AuditLogVO> queryLogs(AuditLogQueryDTO queryDTO) {
         try {
             log.debug("开始查询日志列表: {}", queryDTO);
-            LambdaQueryWrapper<AuditLog> wrapper = new LambdaQueryWrapper<>();
-            
-            if (queryDTO.getUserId() != null) {
-                wrapper.eq(AuditLog::getUserId, queryDTO.getUserId());
-            }
-            if (queryDTO.getUsername() != null && !queryDTO.getUsername().isEmpty()) {
-                wrapper.like(AuditLog::getUsername, queryDTO.getUsername());
-            }
-            if (queryDTO.getRole() != null && !queryDTO.getRole().isEmpty()) {
-                wrapper.eq(AuditLog::getRole, queryDTO.getRole());
-            }
-            if (queryDTO.getAction() != null && !queryDTO.getAction().isEmpty()) {
-                wrapper.eq(AuditLog::getAction, queryDTO.getAction());
-            }
-            if (queryDTO.getResourceType() != null && !queryDTO.getResourceType().isEmpty()) {
-                wrapper.eq(AuditLog::getResourceType, queryDTO.getResourceType());
-            }
-            if (queryDTO.getResourceId() != null) {
-                wrapper.eq(AuditLog::getResourceId, queryDTO.getResourceId());
-            }
-            if (queryDTO.getSuccess() != null) {
-                wrapper.eq(AuditLog::getSuccess, queryDTO.getSuccess());
-            }
-            if (queryDTO.getStartTime() != null) {
-                wrapper.ge(AuditLog::getCreatedAt, queryDTO.getStartTime());
-            }
-            if (queryDTO.getEndTime() != null) {
-                wrapper.le(AuditLog::getCreatedAt, queryDTO.getEndTime());
-            }
+            LambdaQueryWrapper<AuditLog> wrapper = buildWrapper(queryDTO);
             
             wrapper.orderByDesc(AuditLog::getCreatedAt);
             
@@ -101,6 +77,57 @@ public class AuditLogService {
         }
     }
 
+    /**
+     * 查询日志列表（游标分页，按 (created_at, id) 倒序定位，深翻页与第一页代价相同）
+     */
+    public CursorPage<AuditLogVO> queryLogsByCursor(AuditLogQueryDTO queryDTO) {
+        SeekCursor after = SeekPagination.decode(queryDTO.getCursor());
+        int size = SeekPagination.pageSize(queryDTO.getPageSize(), 20);
+        LambdaQueryWrapper<AuditLog> wrapper = buildWrapper(queryDTO);
+        SeekPagination.seek(wrapper, AuditLog::getCreatedAt, AuditLog::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<AuditLog> logs = auditLogMapper.selectList(wrapper);
+        return SeekPagination.page(logs, size,
+                auditLog -> SeekCursor.ofTime(auditLog.getCreatedAt(), auditLog.getId()),
+                records -> records.stream().map(this::convertToVO).collect(Collectors.toList()));
+    }
+
+    /**
+     * 构建查询条件
+     */
+    private LambdaQueryWrapper<AuditLog> buildWrapper(AuditLogQueryDTO queryDTO) {
+        LambdaQueryWrapper<AuditLog> wrapper = new LambdaQueryWrapper<>();
+        
+        if (queryDTO.getUserId() != null) {
+            wrapper.eq(AuditLog::getUserId, queryDTO.getUserId());
+        }
+        if (queryDTO.getUsername() != null && !queryDTO.getUsername().isEmpty()) {
+            wrapper.like(AuditLog::getUsername, queryDTO.getUsername());
+        }
+        if (queryDTO.getRole() != null && !queryDTO.getRole().isEmpty()) {
+            wrapper.eq(AuditLog::getRole, queryDTO.getRole());
+        }
+        if (queryDTO.getAction() != null && !queryDTO.getAction().isEmpty()) {
+            wrapper.eq(AuditLog::getAction, queryDTO.getAction());
+        }
+        if (queryDTO.getResourceType() != null && !queryDTO.getResourceType().isEmpty()) {
+            wrapper.eq(AuditLog::getResourceType, queryDTO.getResourceType());
+        }
+        if (queryDTO.getResourceId() != null) {
+            wrapper.eq(AuditLog::getResourceId, queryDTO.getResourceId());
+        }
+        if (queryDTO.getSuccess() != null) {
+            wrapper.eq(AuditLog::getSuccess, queryDTO.getSuccess());
+        }
+        if (queryDTO.getStartTime() != null) {
+            wrapper.ge(AuditLog::getCreatedAt, queryDTO.getStartTime());
+        }
+        if (queryDTO.getEndTime() != null) {
+            wrapper.le(AuditLog::getCreatedAt, queryDTO.getEndTime());
+        }
+        return wrapper;
+    }
+
     /**
      * 转换为VO
      */
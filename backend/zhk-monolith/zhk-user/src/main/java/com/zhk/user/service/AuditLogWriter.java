@@ -0,0 +1,225 @@
+package com.zhk.user.service;
+
+import com.zhk.common.core.queue.BoundedRingBuffer;
+import com.zhk.user.entity.AuditLog;
+import com.zhk.user.mapper.AuditLogMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计日志异步批量写入器
+ * 请求线程只把日志放入无锁环形缓冲区，后台线程攒够 flush-size 条或每隔 flush-interval 毫秒
+ * 批量补全用户信息并以一条多行 INSERT 写入，审计落库不再计入请求耗时。
+ * 缓冲区满时按 overflow-policy 处理：DROP 丢弃并计数，CALLER_RUNS 在请求线程同步写入（反压）。
+ * 应用关闭时会把缓冲区中剩余的日志全部写完。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuditLogWriter {
+
+    private final AuditLogMapper auditLogMapper;
+    private final UserProfileCache userProfileCache;
+
+    @Value("${zhk.audit.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${zhk.audit.flush-size:200}")
+    private int flushSize;
+
+    @Value("${zhk.audit.flush-interval-ms:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${zhk.audit.overflow-policy:DROP}")
+    private String overflowPolicy;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong callerRunsCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    private BoundedRingBuffer<AuditLog> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        buffer = new BoundedRingBuffer<>(bufferSize);
+        running = true;
+        writerThread = new Thread(this::runLoop, "audit-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("审计日志写入器已启动: bufferSize={}, flushSize={}, flushIntervalMs={}, overflowPolicy={}",
+                buffer.capacity(), flushSize, flushIntervalMillis, overflowPolicy);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("审计日志写入器已停止: submitted={}, written={}, dropped={}, callerRuns={}, failed={}, remaining={}",
+                submittedCount.get(), writtenCount.get(), droppedCount.get(),
+                callerRunsCount.get(), failedCount.get(), buffer.size());
+    }
+
+    /**
+     * 提交日志（不阻塞）
+     */
+    public void submit(AuditLog auditLog) {
+        submittedCount.incrementAndGet();
+        if (buffer.offer(auditLog)) {
+            if (buffer.size() >= flushSize) {
+                LockSupport.unpark(writerThread);
+            }
+            return;
+        }
+
+        if ("CALLER_RUNS".equalsIgnoreCase(overflowPolicy)) {
+            callerRunsCount.incrementAndGet();
+            List<AuditLog> single = new ArrayList<>(1);
+            single.add(auditLog);
+            write(single);
+        } else {
+            long dropped = droppedCount.incrementAndGet();
+            // 避免日志风暴：每丢弃 1000 条打印一次
+            if (dropped == 1 || dropped % 1000 == 0) {
+                log.warn("审计日志缓冲区已满，丢弃日志: dropped={}", dropped);
+            }
+        }
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getCallerRunsCount() {
+        return callerRunsCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public int getPendingCount() {
+        return buffer.size();
+    }
+
+    private void runLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        List<AuditLog> batch = new ArrayList<>(flushSize);
+        long batchStart = System.nanoTime();
+        while (running || !buffer.isEmpty()) {
+            if (batch.isEmpty()) {
+                batchStart = System.nanoTime();
+            }
+            buffer.drainTo(batch, flushSize - batch.size());
+            long waited = System.nanoTime() - batchStart;
+            // 攒够一批、等待超过刷新间隔或正在关闭时写入
+            if (batch.size() >= flushSize || (!batch.isEmpty() && (waited >= intervalNanos || !running))) {
+                write(batch);
+                batch.clear();
+                continue;
+            }
+            if (running) {
+                LockSupport.parkNanos(this, batch.isEmpty() ? intervalNanos : intervalNanos - waited);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    /**
+     * 补全用户信息后批量写入
+     */
+    private void write(List<AuditLog> batch) {
+        try {
+            fillUserInfo(batch);
+            for (AuditLog auditLog : batch) {
+                if (auditLog.getDescription() == null || auditLog.getDescription().isEmpty()) {
+                    auditLog.setDescription(buildDescription(auditLog));
+                }
+            }
+            auditLogMapper.insertBatch(batch);
+            writtenCount.addAndGet(batch.size());
+        } catch (Exception e) {
+            failedCount.addAndGet(batch.size());
+            log.error("批量写入审计日志失败: size={}, error={}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 补全整批日志的用户名和角色（读取用户概要缓存，未命中的一次查询）
+     */
+    private void fillUserInfo(List<AuditLog> batch) {
+        Set<Long> userIds = new HashSet<>();
+        for (AuditLog auditLog : batch) {
+            if (auditLog.getUserId() != null && auditLog.getUsername() == null) {
+                userIds.add(auditLog.getUserId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Map<Long, UserProfileCache.UserProfile> profiles = userProfileCache.getAll(userIds);
+        for (AuditLog auditLog : batch) {
+            if (auditLog.getUserId() == null || auditLog.getUsername() != null) {
+                continue;
+            }
+            UserProfileCache.UserProfile profile = profiles.get(auditLog.getUserId());
+            if (profile != null) {
+                auditLog.setUsername(profile.getNickname());
+                auditLog.setRole(profile.getRole());
+            }
+        }
+    }
+
+    /**
+     * 构建操作描述
+     */
+    private String buildDescription(AuditLog auditLog) {
+        StringBuilder desc = new StringBuilder();
+        if (auditLog.getUsername() != null) {
+            desc.append(auditLog.getUsername());
+        } else {
+            desc.append("系统");
+        }
+        desc.append("执行了").append(auditLog.getAction());
+        if (auditLog.getResourceType() != null) {
+            desc.append("操作，资源类型：").append(auditLog.getResourceType());
+        }
+        if (auditLog.getResourceId() != null) {
+            desc.append("，资源ID：").append(auditLog.getResourceId());
+        }
+        return desc.toString();
+    }
+}
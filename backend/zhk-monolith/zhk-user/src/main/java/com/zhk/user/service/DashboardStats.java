@@ -0,0 +1,472 @@
+package com.zhk.user.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.zhk.order.entity.Appeal;
+import com.zhk.order.entity.LeaseOrder;
+import com.zhk.order.event.AccountStatusChangedEvent;
+import com.zhk.order.event.AppealCreatedEvent;
+import com.zhk.order.event.AppealResolvedEvent;
+import com.zhk.order.event.OrderCreatedEvent;
+import com.zhk.order.event.OrderStatusChangedEvent;
+import com.zhk.order.mapper.AppealMapper;
+import com.zhk.order.mapper.LeaseOrderMapper;
+import com.zhk.order.util.DistributedLock;
+import com.zhk.user.entity.Account;
+import com.zhk.user.mapper.AccountMapper;
+import com.zhk.user.mapper.UserMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 后台统计计数
+ * 后台首页不再每次对 user、account、lease_order、appeal 做全表 COUNT，改为读取增量维护的计数：
+ * 1. 用户注册、账号增删和上下架、订单创建和状态流转、订单流程中的账号状态变更（租出、归还、取消、到期关闭、申诉处理）、
+ *    申诉创建和处理在事务提交后更新本地 {@link LongAdder}
+ *    （用户数、各状态账号数、各状态订单数、待处理申诉数，总账号数和总订单数由各状态求和）；
+ *    待处理申诉数按申诉表计：创建申诉（裁决结果为空）加一，写入裁决结果减一，与校正时的查询口径一致；
+ * 2. Redis 可用时，本地增量每隔 zhk.stats.flush-interval-ms 以 HINCRBY 合并写入 Redis 哈希，
+ *    多节点读取同一份计数；Redis 不可用或调用失败时读取本地计数；
+ * 3. 每隔 zhk.stats.reconcile-interval-ms 用 GROUP BY 查询重新计算一次。Redis 可用时由取得分布式锁的一个节点执行，
+ *    锁不主动释放，到期前其他节点跳过；计算结果用 Lua 脚本一次替换 Redis 哈希，读取方不会看到清空后的中间状态；
+ *    本地计数和未写入 Redis 的增量只扣除查询前的部分，查询期间提交的增量保留。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+public class DashboardStats {
+
+    private static final String REDIS_KEY = "stats:dashboard";
+    private static final String RECONCILE_LOCK = "stats:dashboard:reconcile";
+
+    /**
+     * 删除哈希后写入全部字段（ARGV 依次为字段和值）
+     */
+    private static final DefaultRedisScript<Long> REPLACE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('del', KEYS[1]) "
+                    + "for i = 1, #ARGV, 2 do "
+                    + "redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1]) "
+                    + "end "
+                    + "return 1",
+            Long.class);
+
+    private static final String USERS = "users";
+    private static final String PENDING_APPEALS = "appeals:pending";
+    private static final String ACCOUNT_STATUS_PREFIX = "accounts:";
+    private static final String ORDER_STATUS_PREFIX = "orders:";
+
+    private final UserMapper userMapper;
+    private final AccountMapper accountMapper;
+    private final LeaseOrderMapper orderMapper;
+    private final AppealMapper appealMapper;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate; // Redis 不可用时为 null
+
+    @Autowired(required = false)
+    private DistributedLock distributedLock; // Redis 不可用时为 null
+
+    @Value("${zhk.stats.reconcile-interval-ms:300000}")
+    private long reconcileIntervalMs;
+
+    /**
+     * 本地计数
+     */
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 尚未写入 Redis 的增量
+     */
+    private final Map<String, LongAdder> unflushed = new ConcurrentHashMap<>();
+
+    /**
+     * flush 与校正时读取未写入的增量互斥
+     */
+    private final Object flushLock = new Object();
+
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile boolean loaded;
+
+    public DashboardStats(UserMapper userMapper, AccountMapper accountMapper,
+                          LeaseOrderMapper orderMapper, AppealMapper appealMapper) {
+        this.userMapper = userMapper;
+        this.accountMapper = accountMapper;
+        this.orderMapper = orderMapper;
+        this.appealMapper = appealMapper;
+    }
+
+    /**
+     * 新用户注册
+     */
+    public void userRegistered() {
+        add(USERS, 1);
+    }
+
+    /**
+     * 新账号创建
+     *
+     * @param status 账号状态
+     */
+    public void accountCreated(Integer status) {
+        add(ACCOUNT_STATUS_PREFIX + status, 1);
+    }
+
+    /**
+     * 账号删除
+     *
+     * @param status 删除前的账号状态
+     */
+    public void accountDeleted(Integer status) {
+        add(ACCOUNT_STATUS_PREFIX + status, -1);
+    }
+
+    /**
+     * 账号状态变更
+     *
+     * @param fromStatus 原状态
+     * @param toStatus   新状态
+     */
+    public void accountStatusChanged(Integer fromStatus, Integer toStatus) {
+        if (fromStatus == null || fromStatus.equals(toStatus)) {
+            return;
+        }
+        add(ACCOUNT_STATUS_PREFIX + fromStatus, -1);
+        add(ACCOUNT_STATUS_PREFIX + toStatus, 1);
+    }
+
+    /**
+     * 订单创建（事务提交后）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        increment(ORDER_STATUS_PREFIX + event.getStatus(), 1);
+    }
+
+    /**
+     * 订单状态流转（事务提交后）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getFromStatus() == null || event.getFromStatus().equals(event.getToStatus())) {
+            return;
+        }
+        increment(ORDER_STATUS_PREFIX + event.getFromStatus(), -1);
+        increment(ORDER_STATUS_PREFIX + event.getToStatus(), 1);
+    }
+
+    /**
+     * 订单流程中的账号状态变更（事务提交后）
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccountStatusChanged(AccountStatusChangedEvent event) {
+        if (event.getFromStatus() == null || event.getFromStatus().equals(event.getToStatus())) {
+            return;
+        }
+        increment(ACCOUNT_STATUS_PREFIX + event.getFromStatus(), -1);
+        increment(ACCOUNT_STATUS_PREFIX + event.getToStatus(), 1);
+    }
+
+    /**
+     * 申诉创建（事务提交后）：待处理申诉加一
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppealCreated(AppealCreatedEvent event) {
+        increment(PENDING_APPEALS, 1);
+    }
+
+    /**
+     * 申诉处理（事务提交后）：待处理申诉减一
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAppealResolved(AppealResolvedEvent event) {
+        increment(PENDING_APPEALS, -1);
+    }
+
+    /**
+     * 当前统计
+     *
+     * @return 统计快照
+     */
+    public Snapshot snapshot() {
+        Map<String, Long> values = readRedis();
+        if (values == null) {
+            if (!loaded) {
+                recompute();
+            }
+            values = new HashMap<>();
+            for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+                values.put(entry.getKey(), entry.getValue().sum());
+            }
+        }
+        return new Snapshot(values);
+    }
+
+    /**
+     * 把本地增量写入 Redis
+     */
+    @Scheduled(fixedDelayString = "${zhk.stats.flush-interval-ms:1000}")
+    public void flush() {
+        if (redisTemplate == null || unflushed.isEmpty()) {
+            return;
+        }
+        synchronized (flushLock) {
+            if (reconciling.get()) {
+                // 校正期间暂停写入，校正结束后再合并
+                return;
+            }
+            for (Map.Entry<String, LongAdder> entry : unflushed.entrySet()) {
+                long delta = entry.getValue().sumThenReset();
+                if (delta == 0) {
+                    continue;
+                }
+                try {
+                    redisTemplate.opsForHash().increment(REDIS_KEY, entry.getKey(), delta);
+                } catch (Exception e) {
+                    // 放回去，下次重试
+                    entry.getValue().add(delta);
+                    log.warn("写入后台统计计数失败，稍后重试: error={}", e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时校正：Redis 可用时只有取得锁的节点执行，锁在接近下一次校正时自然过期
+     */
+    @Scheduled(fixedDelayString = "${zhk.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        if (distributedLock != null
+                && distributedLock.tryLock(RECONCILE_LOCK, Math.max(1000L, reconcileIntervalMs * 9 / 10),
+                        TimeUnit.MILLISECONDS) == null) {
+            return;
+        }
+        recompute();
+    }
+
+    /**
+     * 从数据库重新计算全部计数
+     */
+    private void recompute() {
+        if (!reconciling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            // 查询前的本地计数和未写入的增量，查询后只扣除这一部分
+            Map<String, Long> countersBefore = sums(counters);
+            Map<String, Long> unflushedBefore;
+            synchronized (flushLock) {
+                unflushedBefore = sums(unflushed);
+            }
+
+            Map<String, Long> values = new HashMap<>();
+            values.put(USERS, userMapper.selectCount(null));
+
+            LambdaQueryWrapper<Appeal> appealWrapper = new LambdaQueryWrapper<>();
+            appealWrapper.isNull(Appeal::getVerdict);
+            values.put(PENDING_APPEALS, appealMapper.selectCount(appealWrapper));
+
+            QueryWrapper<Account> accountWrapper = new QueryWrapper<>();
+            accountWrapper.select("status", "COUNT(*) AS cnt").groupBy("status");
+            putGroupCounts(values, ACCOUNT_STATUS_PREFIX, accountMapper.selectMaps(accountWrapper));
+
+            QueryWrapper<LeaseOrder> orderWrapper = new QueryWrapper<>();
+            orderWrapper.select("status", "COUNT(*) AS cnt").groupBy("status");
+            putGroupCounts(values, ORDER_STATUS_PREFIX, orderMapper.selectMaps(orderWrapper));
+
+            // 查询结果已包含查询前提交的变更：本地计数按差值调整，查询期间的增量保留
+            Set<String> keys = new HashSet<>(values.keySet());
+            keys.addAll(countersBefore.keySet());
+            for (String key : keys) {
+                long delta = values.getOrDefault(key, 0L) - countersBefore.getOrDefault(key, 0L);
+                counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+            }
+            loaded = true;
+            if (writeRedis(values)) {
+                for (Map.Entry<String, Long> entry : unflushedBefore.entrySet()) {
+                    unflushed.get(entry.getKey()).add(-entry.getValue());
+                }
+            }
+
+            log.info("后台统计计数校正完成: users={}, pendingAppeals={}, costMs={}",
+                    values.get(USERS), values.get(PENDING_APPEALS), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("后台统计计数校正失败: error={}", e.getMessage(), e);
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    /**
+     * 在事务中调用时，事务提交后才计数
+     */
+    private void add(String key, long delta) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(key, delta);
+                }
+            });
+        } else {
+            increment(key, delta);
+        }
+    }
+
+    private void increment(String key, long delta) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        if (redisTemplate != null) {
+            unflushed.computeIfAbsent(key, k -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static void putGroupCounts(Map<String, Long> values, String prefix, List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            Object status = row.get("status");
+            Object count = row.get("cnt");
+            if (status != null && count instanceof Number) {
+                values.put(prefix + status, ((Number) count).longValue());
+            }
+        }
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> adders) {
+        Map<String, Long> result = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : adders.entrySet()) {
+            long sum = entry.getValue().sum();
+            if (sum != 0) {
+                result.put(entry.getKey(), sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用 Lua 脚本一次替换 Redis 中的计数
+     *
+     * @return 是否写入成功
+     */
+    private boolean writeRedis(Map<String, Long> values) {
+        if (redisTemplate == null) {
+            return false;
+        }
+        List<String> args = new ArrayList<>(values.size() * 2);
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            args.add(entry.getKey());
+            args.add(String.valueOf(entry.getValue()));
+        }
+        try {
+            redisTemplate.execute(REPLACE_SCRIPT, Collections.singletonList(REDIS_KEY), args.toArray());
+            return true;
+        } catch (Exception e) {
+            log.warn("写入后台统计计数失败: error={}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 从 Redis 读取计数，Redis 不可用、调用失败或尚未校正过时返回 null
+     */
+    private Map<String, Long> readRedis() {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(REDIS_KEY);
+            if (entries.isEmpty()) {
+                return null;
+            }
+            Map<String, Long> values = new HashMap<>();
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                values.put(String.valueOf(entry.getKey()), Long.parseLong(String.valueOf(entry.getValue())));
+            }
+            return values;
+        } catch (Exception e) {
+            log.warn("读取后台统计计数失败，使用本地计数: error={}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 统计快照
+     */
+    public static final class Snapshot {
+        private final long users;
+        private final long pendingAppeals;
+        private final Map<String, Long> accountStatusCounts = new TreeMap<>();
+        private final Map<String, Long> orderStatusCounts = new TreeMap<>();
+
+        Snapshot(Map<String, Long> values) {
+            long users = 0;
+            long pendingAppeals = 0;
+            for (Map.Entry<String, Long> entry : values.entrySet()) {
+                String key = entry.getKey();
+                long value = Math.max(0, entry.getValue());
+                if (USERS.equals(key)) {
+                    users = value;
+                } else if (PENDING_APPEALS.equals(key)) {
+                    pendingAppeals = value;
+                } else if (key.startsWith(ACCOUNT_STATUS_PREFIX)) {
+                    accountStatusCounts.put(key.substring(ACCOUNT_STATUS_PREFIX.length()), value);
+                } else if (key.startsWith(ORDER_STATUS_PREFIX)) {
+                    orderStatusCounts.put(key.substring(ORDER_STATUS_PREFIX.length()), value);
+                }
+            }
+            this.users = users;
+            this.pendingAppeals = pendingAppeals;
+        }
+
+        public long getUsers() {
+            return users;
+        }
+
+        public long getPendingAppeals() {
+            return pendingAppeals;
+        }
+
+        public long getAccounts() {
+            return accountStatusCounts.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        public long getOrders() {
+            return orderStatusCounts.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * 各状态账号数，键为账号状态
+         */
+        public Map<String, Long> getAccountStatusCounts() {
+            return accountStatusCounts;
+        }
+
+        /**
+         * 各状态订单数，键为订单状态
+         */
+        public Map<String, Long> getOrderStatusCounts() {
+            return orderStatusCounts;
+        }
+    }
+}
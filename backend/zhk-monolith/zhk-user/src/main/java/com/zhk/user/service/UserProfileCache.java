@@ -0,0 +1,176 @@
+package com.zhk.user.service;
+
+import com.zhk.order.util.RedisBroadcaster;
+import com.zhk.user.entity.User;
+import com.zhk.user.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 用户概要信息缓存（昵称、角色、状态）
+ * 按用户ID直接映射到固定大小的槽位数组，不加锁、不装箱；槽位冲突时后写入的覆盖先写入的，缓存条目数不会超过槽位数。
+ * 条目超过 TTL 后重新查库；用户状态或角色变更时调用 invalidate，在事务提交后清除并通过 Redis 通知其他节点。
+ * 清除与查库并发时，查库结果不写入缓存，避免提交前读到的旧数据覆盖刚清除的条目。
+ *
+ * @author shigure
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserProfileCache {
+
+    private static final int SLOTS = 4096; // 2 的幂
+    private static final long TTL_MILLIS = 5 * 60 * 1000L; // 5分钟
+    private static final String CHANNEL = "cache:user-profile:invalidate";
+
+    private final UserMapper userMapper;
+    private final RedisBroadcaster redisBroadcaster;
+
+    private final AtomicReferenceArray<UserProfile> slots = new AtomicReferenceArray<>(SLOTS);
+
+    /**
+     * 清除次数，查库前后不一致说明期间有清除
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        redisBroadcaster.subscribe(CHANNEL, message -> evictLocal(Long.parseLong(message.trim())));
+    }
+
+    /**
+     * 获取用户概要信息
+     *
+     * @param userId 用户ID
+     * @return 用户概要信息，用户不存在时返回 null
+     */
+    public UserProfile get(long userId) {
+        UserProfile profile = lookup(userId);
+        if (profile != null) {
+            return profile;
+        }
+        long version = invalidations.get();
+        User user = userMapper.selectById(userId);
+        return user != null ? store(user, version) : null;
+    }
+
+    /**
+     * 批量获取用户概要信息（未命中的用户一次 IN 查询）
+     *
+     * @param userIds 用户ID
+     * @return 用户ID -> 用户概要信息，不存在的用户不包含在结果中
+     */
+    public Map<Long, UserProfile> getAll(Collection<Long> userIds) {
+        Map<Long, UserProfile> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (userId == null) {
+                continue;
+            }
+            UserProfile profile = lookup(userId);
+            if (profile != null) {
+                result.put(userId, profile);
+            } else {
+                missing.add(userId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long version = invalidations.get();
+            for (User user : userMapper.selectBatchIds(missing)) {
+                result.put(user.getId(), store(user, version));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户信息变更后调用：清除本节点缓存并通知其他节点（在事务中调用时于提交后执行）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(userId);
+                }
+            });
+        } else {
+            evictAndPublish(userId);
+        }
+    }
+
+    private void evictAndPublish(long userId) {
+        evictLocal(userId);
+        redisBroadcaster.publish(CHANNEL, String.valueOf(userId));
+    }
+
+    private UserProfile lookup(long userId) {
+        UserProfile profile = slots.get(indexOf(userId));
+        if (profile == null || profile.userId != userId) {
+            return null;
+        }
+        if (profile.expireAt <= System.currentTimeMillis()) {
+            slots.compareAndSet(indexOf(userId), profile, null);
+            return null;
+        }
+        return profile;
+    }
+
+    private UserProfile store(User user, long version) {
+        UserProfile profile = new UserProfile(user.getId(), user.getNickname(), user.getRole(), user.getStatus(),
+                System.currentTimeMillis() + TTL_MILLIS);
+        if (invalidations.get() == version) {
+            slots.set(indexOf(profile.userId), profile);
+        }
+        return profile;
+    }
+
+    private void evictLocal(long userId) {
+        invalidations.incrementAndGet();
+        int index = indexOf(userId);
+        UserProfile profile = slots.get(index);
+        if (profile != null && profile.userId == userId) {
+            slots.compareAndSet(index, profile, null);
+        }
+    }
+
+    private static int indexOf(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 52) & (SLOTS - 1);
+    }
+
+    /**
+     * 用户概要信息（不可变）
+     */
+    @Getter
+    public static final class UserProfile {
+        private final long userId;
+        private final String nickname;
+        private final String role;
+        private final Integer status;
+        private final long expireAt;
+
+        UserProfile(long userId, String nickname, String role, Integer status, long expireAt) {
+            this.userId = userId;
+            this.nickname = nickname;
+            this.role = role;
+            this.status = status;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.zhk.user.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.zhk.common.core.id.SnowflakeIdGenerator;
+import com.zhk.common.core.page.CursorPage;
+import com.zhk.common.core.page.SeekCursor;
+import com.zhk.common.core.page.SeekPagination;
 import com.zhk.common.web.BusinessException;
+import com.zhk.order.service.GameCatalogCache;
 import com.zhk.user.dto.AccountVO;
 import com.zhk.user.dto.CreateAccountDTO;
 import com.zhk.user.dto.UpdateAccountDTO;
@@ -10,7 +16,9 @@ import com.zhk.user.entity.Account;
 import com.zhk.user.entity.Game;
 import com.zhk.user.mapper.AccountMapper;
 import com.zhk.user.mapper.GameMapper;
+import com.zhk.user.service.AccountSearchIndex;
 import com.zhk.user.service.AccountService;
+import com.zhk.user.service.DashboardStats;
 import com.zhk.user.service.EncryptionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -20,9 +28,11 @@ import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -37,7 +47,11 @@ public class AccountServiceImpl implements AccountService {
 
     private final AccountMapper accountMapper;
     private final GameMapper gameMapper;
+    private final GameCatalogCache gameCatalogCache;
     private final EncryptionService encryptionService;
+    private final AccountSearchIndex accountSearchIndex;
+    private final SnowflakeIdGenerator idGenerator;
+    private final DashboardStats dashboardStats;
 
     @Override
     public Map<String, Object> getAccountList(
@@ -51,31 +65,17 @@ public class AccountServiceImpl implements AccountService {
             String sortBy,
             String sortOrder
     ) {
-        // 构建查询条件
-        LambdaQueryWrapper<Account> wrapper = new LambdaQueryWrapper<>();
-        
-        // 只查询上架的账号
-        wrapper.eq(Account::getStatus, 1);
-        
-        // 游戏ID筛选
-        if (gameId != null) {
-            wrapper.eq(Account::getGameId, gameId);
-        }
-        
-        // 关键词搜索（标题、描述）
+        // 关键词搜索优先走内存倒排索引（索引未就绪或关键词过短时回退到数据库查询）
         if (StringUtils.hasText(keyword)) {
-            wrapper.and(w -> w.like(Account::getTitle, keyword)
-                    .or()
-                    .like(Account::getDescription, keyword));
-        }
-        
-        // 价格筛选
-        if (minPrice != null) {
-            wrapper.ge(Account::getPrice1h, minPrice);
-        }
-        if (maxPrice != null) {
-            wrapper.le(Account::getPrice1h, maxPrice);
+            AccountSearchIndex.SearchResult searchResult = accountSearchIndex.search(
+                    keyword, gameId, minPrice, maxPrice, sortBy, sortOrder, page, pageSize);
+            if (searchResult != null) {
+                return buildSearchPage(searchResult, page, pageSize);
+            }
         }
+
+        // 构建查询条件
+        LambdaQueryWrapper<Account> wrapper = buildMarketWrapper(gameId, keyword, minPrice, maxPrice);
         
         // 排序
         if (StringUtils.hasText(sortBy)) {
@@ -101,15 +101,8 @@ public class AccountServiceImpl implements AccountService {
         Page<Account> pageParam = new Page<>(page, pageSize);
         Page<Account> accountPage = accountMapper.selectPage(pageParam, wrapper);
         
-        // 获取游戏信息映射
-        List<Game> games = gameMapper.selectList(null);
-        Map<Integer, String> gameMap = games.stream()
-                .collect(Collectors.toMap(Game::getId, Game::getName));
-        
-        // 转换为 VO
-        List<AccountVO> voList = accountPage.getRecords().stream()
-                .map(account -> convertToVO(account, gameMap))
-                .collect(Collectors.toList());
+        // 转换为 VO（游戏名称读取本地游戏目录缓存）
+        List<AccountVO> voList = convertToVOList(accountPage.getRecords());
         
         // 构建返回结果
         Map<String, Object> result = new HashMap<>();
@@ -121,6 +114,46 @@ public class AccountServiceImpl implements AccountService {
         return result;
     }
 
+    @Override
+    public CursorPage<AccountVO> getAccountListByCursor(
+            Integer gameId,
+            String keyword,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            String sortBy,
+            String sortOrder,
+            String cursor,
+            Integer pageSize
+    ) {
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 12);
+        boolean byPrice = "price".equals(sortBy);
+        boolean descending = !StringUtils.hasText(sortBy) || "desc".equalsIgnoreCase(sortOrder);
+
+        // 关键词搜索优先走内存倒排索引
+        if (StringUtils.hasText(keyword)) {
+            AccountSearchIndex.SearchResult searchResult = accountSearchIndex.searchAfter(
+                    keyword, gameId, minPrice, maxPrice, sortBy, sortOrder, after, size);
+            if (searchResult != null) {
+                SeekCursor next = searchResult.getNextCursor();
+                return new CursorPage<>(loadListedAccounts(searchResult.getAccountIds()),
+                        next != null ? next.encode() : null, next != null, size);
+            }
+        }
+
+        // 按 (价格或创建时间, id) 定位，不使用 OFFSET；价格游标以分为单位
+        LambdaQueryWrapper<Account> wrapper = buildMarketWrapper(gameId, keyword, minPrice, maxPrice);
+        SFunction<Account, ?> sortColumn = byPrice ? Account::getPrice1h : Account::getCreatedAt;
+        Object afterSort = after == null ? null
+                : byPrice ? BigDecimal.valueOf(after.getSortKey(), 2) : after.getTime();
+        SeekPagination.seek(wrapper, sortColumn, Account::getId,
+                afterSort, after != null ? after.getId() : null, descending, size);
+        List<Account> accounts = accountMapper.selectList(wrapper);
+        return SeekPagination.page(accounts, size, account -> byPrice
+                ? new SeekCursor(account.getPrice1h().movePointRight(2).longValue(), account.getId())
+                : SeekCursor.ofTime(account.getCreatedAt(), account.getId()), this::convertToVOList);
+    }
+
     @Override
     public Map<String, Object> getMyAccounts(
             Long userId,
@@ -130,24 +163,7 @@ public class AccountServiceImpl implements AccountService {
             Integer pageSize
     ) {
         // 构建查询条件
-        LambdaQueryWrapper<Account> wrapper = new LambdaQueryWrapper<>();
-        wrapper.eq(Account::getOwnerUid, userId);
-        
-        // 游戏ID筛选
-        if (gameId != null) {
-            wrapper.eq(Account::getGameId, gameId);
-        }
-        
-        // 状态筛选
-        if (StringUtils.hasText(status)) {
-            if ("ONLINE".equals(status)) {
-                wrapper.eq(Account::getStatus, 1);
-            } else if ("OFFLINE".equals(status)) {
-                wrapper.eq(Account::getStatus, 2);
-            } else if ("RENTED".equals(status)) {
-                wrapper.eq(Account::getStatus, 3);
-            }
-        }
+        LambdaQueryWrapper<Account> wrapper = buildMyAccountsWrapper(userId, gameId, status);
         
         // 按创建时间倒序
         wrapper.orderByDesc(Account::getCreatedAt);
@@ -156,15 +172,8 @@ public class AccountServiceImpl implements AccountService {
         Page<Account> pageParam = new Page<>(page, pageSize);
         Page<Account> accountPage = accountMapper.selectPage(pageParam, wrapper);
         
-        // 获取游戏信息映射
-        List<Game> games = gameMapper.selectList(null);
-        Map<Integer, String> gameMap = games.stream()
-                .collect(Collectors.toMap(Game::getId, Game::getName));
-        
-        // 转换为 VO
-        List<AccountVO> voList = accountPage.getRecords().stream()
-                .map(account -> convertToVO(account, gameMap))
-                .collect(Collectors.toList());
+        // 转换为 VO（游戏名称读取本地游戏目录缓存）
+        List<AccountVO> voList = convertToVOList(accountPage.getRecords());
         
         // 构建返回结果
         Map<String, Object> result = new HashMap<>();
@@ -176,15 +185,37 @@ public class AccountServiceImpl implements AccountService {
         return result;
     }
 
+    @Override
+    public CursorPage<AccountVO> getMyAccountsByCursor(
+            Long userId,
+            Integer gameId,
+            String status,
+            String cursor,
+            Integer pageSize
+    ) {
+        SeekCursor after = SeekPagination.decode(cursor);
+        int size = SeekPagination.pageSize(pageSize, 10);
+        LambdaQueryWrapper<Account> wrapper = buildMyAccountsWrapper(userId, gameId, status);
+        SeekPagination.seek(wrapper, Account::getCreatedAt, Account::getId,
+                after != null ? after.getTime() : null, after != null ? after.getId() : null, true, size);
+        List<Account> accounts = accountMapper.selectList(wrapper);
+        return SeekPagination.page(accounts, size,
+                account -> SeekCursor.ofTime(account.getCreatedAt(), account.getId()), this::convertToVOList);
+    }
+
     @Override
     @Transactional
     public AccountVO createAccount(Long userId, CreateAccountDTO dto) {
         log.info("创建账号: userId={}, gameId={}, title={}", userId, dto.getGameId(), dto.getTitle());
         
-        // 验证游戏是否存在
-        Game game = gameMapper.selectById(dto.getGameId());
-        if (game == null) {
-            throw new BusinessException(404, "游戏不存在");
+        // 验证游戏是否存在（缓存未命中时回查数据库，兼容刚新增的游戏）
+        String gameName = gameCatalogCache.findGameName(dto.getGameId());
+        if (gameName == null) {
+            Game game = gameMapper.selectById(dto.getGameId());
+            if (game == null) {
+                throw new BusinessException(404, "游戏不存在");
+            }
+            gameName = game.getName();
         }
         
         // 创建账号实体
@@ -214,13 +245,8 @@ public class AccountServiceImpl implements AccountService {
         // 状态：默认上架
         account.setStatus(1);
         
-        // 先保存账号以获取ID（用于加密）
-        account.setUsernameEnc(""); // 临时值
-        account.setPwdEnc(""); // 临时值
-        account.setIv(""); // 临时值
-        accountMapper.insert(account);
-        
-        // 使用账号ID进行加密
+        // 预先分配ID（用于派生加密密钥），加密后一次插入
+        account.setId(idGenerator.nextId());
         try {
             account.setUsernameEnc(encryptionService.encrypt(dto.getUsername(), account.getId()));
             account.setPwdEnc(encryptionService.encrypt(dto.getPassword(), account.getId()));
@@ -230,12 +256,13 @@ public class AccountServiceImpl implements AccountService {
             throw new BusinessException(500, "账号加密失败: " + e.getMessage());
         }
         
-        // 更新账号（保存加密后的数据）
-        accountMapper.updateById(account);
+        accountMapper.insert(account);
+        accountSearchIndex.markChanged(account.getId());
+        dashboardStats.accountCreated(account.getStatus());
         
         log.info("账号创建成功: accountId={}, userId={}", account.getId(), userId);
         
-        return convertToVO(account, game);
+        return convertToVO(account, gameName);
     }
 
     @Override
@@ -245,8 +272,7 @@ public class AccountServiceImpl implements AccountService {
             throw new BusinessException(404, "账号不存在");
         }
         
-        Game game = gameMapper.selectById(account.getGameId());
-        return convertToVO(account, game);
+        return convertToVO(account, gameCatalogCache.getGameName(account.getGameId()));
     }
 
     @Override
@@ -298,11 +324,11 @@ public class AccountServiceImpl implements AccountService {
         
         if (updated) {
             accountMapper.updateById(account);
+            accountSearchIndex.markChanged(id);
             log.info("账号更新成功: accountId={}", id);
         }
         
-        Game game = gameMapper.selectById(account.getGameId());
-        return convertToVO(account, game);
+        return convertToVO(account, gameCatalogCache.getGameName(account.getGameId()));
     }
 
     @Override
@@ -327,6 +353,8 @@ public class AccountServiceImpl implements AccountService {
         }
         
         accountMapper.deleteById(id);
+        accountSearchIndex.markChanged(id);
+        dashboardStats.accountDeleted(account.getStatus());
         log.info("账号删除成功: accountId={}", id);
     }
 
@@ -348,13 +376,15 @@ public class AccountServiceImpl implements AccountService {
             throw new BusinessException(400, "账号正在租赁中，无法上架");
         }
         
+        Integer originalStatus = account.getStatus();
         account.setStatus(1);
         accountMapper.updateById(account);
+        accountSearchIndex.markChanged(id);
+        dashboardStats.accountStatusChanged(originalStatus, 1);
         
         log.info("账号上架成功: accountId={}", id);
         
-        Game game = gameMapper.selectById(account.getGameId());
-        return convertToVO(account, game);
+        return convertToVO(account, gameCatalogCache.getGameName(account.getGameId()));
     }
 
     @Override
@@ -375,13 +405,15 @@ public class AccountServiceImpl implements AccountService {
             throw new BusinessException(400, "账号正在租赁中，无法下架");
         }
         
+        Integer originalStatus = account.getStatus();
         account.setStatus(2);
         accountMapper.updateById(account);
+        accountSearchIndex.markChanged(id);
+        dashboardStats.accountStatusChanged(originalStatus, 2);
         
         log.info("账号下架成功: accountId={}", id);
         
-        Game game = gameMapper.selectById(account.getGameId());
-        return convertToVO(account, game);
+        return convertToVO(account, gameCatalogCache.getGameName(account.getGameId()));
     }
 
     @Override
@@ -406,18 +438,118 @@ public class AccountServiceImpl implements AccountService {
         }
     }
 
+    /**
+     * 按索引给出的顺序回表读取当前页
+     * 索引刷新有秒级延迟，回表后再次过滤掉已不在上架状态的账号
+     */
+    private Map<String, Object> buildSearchPage(AccountSearchIndex.SearchResult searchResult,
+                                                Integer page, Integer pageSize) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", loadListedAccounts(searchResult.getAccountIds()));
+        result.put("total", searchResult.getTotal());
+        result.put("page", page);
+        result.put("pageSize", pageSize);
+        return result;
+    }
+
+    /**
+     * 按给定顺序回表读取账号，过滤掉已不在上架状态的账号
+     */
+    private List<AccountVO> loadListedAccounts(List<Long> accountIds) {
+        List<AccountVO> voList = new ArrayList<>();
+        if (accountIds.isEmpty()) {
+            return voList;
+        }
+        Map<Long, Account> accounts = accountMapper.selectBatchIds(accountIds).stream()
+                .collect(Collectors.toMap(Account::getId, Function.identity()));
+        for (Long accountId : accountIds) {
+            Account account = accounts.get(accountId);
+            if (account != null && account.getStatus() != null && account.getStatus() == 1) {
+                voList.add(convertToVO(account, gameCatalogCache.getGameName(account.getGameId())));
+            }
+        }
+        return voList;
+    }
+
+    /**
+     * 账号市场的筛选条件（只查询上架的账号）
+     */
+    private LambdaQueryWrapper<Account> buildMarketWrapper(
+            Integer gameId, String keyword, BigDecimal minPrice, BigDecimal maxPrice) {
+        LambdaQueryWrapper<Account> wrapper = new LambdaQueryWrapper<>();
+        
+        // 只查询上架的账号
+        wrapper.eq(Account::getStatus, 1);
+        
+        // 游戏ID筛选
+        if (gameId != null) {
+            wrapper.eq(Account::getGameId, gameId);
+        }
+        
+        // 关键词搜索（标题、描述）
+        if (StringUtils.hasText(keyword)) {
+            wrapper.and(w -> w.like(Account::getTitle, keyword)
+                    .or()
+                    .like(Account::getDescription, keyword));
+        }
+        
+        // 价格筛选
+        if (minPrice != null) {
+            wrapper.ge(Account::getPrice1h, minPrice);
+        }
+        if (maxPrice != null) {
+            wrapper.le(Account::getPrice1h, maxPrice);
+        }
+        return wrapper;
+    }
+
+    /**
+     * 商家账号列表的筛选条件
+     */
+    private LambdaQueryWrapper<Account> buildMyAccountsWrapper(Long userId, Integer gameId, String status) {
+        LambdaQueryWrapper<Account> wrapper = new LambdaQueryWrapper<>();
+        wrapper.eq(Account::getOwnerUid, userId);
+        
+        // 游戏ID筛选
+        if (gameId != null) {
+            wrapper.eq(Account::getGameId, gameId);
+        }
+        
+        // 状态筛选
+        if (StringUtils.hasText(status)) {
+            if ("ONLINE".equals(status)) {
+                wrapper.eq(Account::getStatus, 1);
+            } else if ("OFFLINE".equals(status)) {
+                wrapper.eq(Account::getStatus, 2);
+            } else if ("RENTED".equals(status)) {
+                wrapper.eq(Account::getStatus, 3);
+            }
+        }
+        return wrapper;
+    }
+
+    /**
+     * 批量转换为 VO（游戏名称读取本地游戏目录缓存）
+     */
+    private List<AccountVO> convertToVOList(List<Account> accounts) {
+        return accounts.stream()
+                .map(account -> convertToVO(account, gameCatalogCache.getGameName(account.getGameId())))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 转换为 VO
      */
-    private AccountVO convertToVO(Account account, Game game) {
+    private AccountVO convertToVO(Account account, String gameName) {
+        boolean hasGame = gameName != null && !gameName.isEmpty();
         AccountVO vo = new AccountVO();
         vo.setId(account.getId());
         vo.setGameId(account.getGameId());
-        vo.setGameName(game != null ? game.getName() : "");
+        vo.setGameName(hasGame ? gameName : "");
         vo.setOwnerId(account.getOwnerUid());
         vo.setTitle(account.getTitle() != null && !account.getTitle().isEmpty() 
                 ? account.getTitle() 
-                : (game != null ? game.getName() + " 账号 - Lv." + (account.getLvl() != null ? account.getLvl() : "?") : ""));
+                : (hasGame ? gameName + " 账号 - Lv." + (account.getLvl() != null ? account.getLvl() : "?") : ""));
         vo.setDescription(account.getDescription());
         vo.setPricePerHour(account.getPrice1h());
         vo.setPricePerNight(account.getPriceOvernight());
@@ -438,18 +570,4 @@ public class AccountServiceImpl implements AccountService {
         
         return vo;
     }
-
-    /**
-     * 转换为 VO（使用游戏映射）
-     */
-    private AccountVO convertToVO(Account account, Map<Integer, String> gameMap) {
-        String gameName = gameMap.getOrDefault(account.getGameId(), "");
-        Game game = gameName.isEmpty() ? null : new Game();
-        if (game != null) {
-            game.setId(account.getGameId());
-            game.setName(gameName);
-        }
-        return convertToVO(account, game);
-    }
 }
-
@@ -9,6 +9,7 @@ import com.zhk.user.dto.RegisterDTO;
 import com.zhk.user.dto.UserVO;
 import com.zhk.user.entity.User;
 import com.zhk.user.mapper.UserMapper;
+import com.zhk.user.service.DashboardStats;
 import com.zhk.user.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,6 +32,7 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final ApplicationEventPublisher eventPublisher;
+    private final DashboardStats dashboardStats;
 
     @Override
     public UserVO register(RegisterDTO dto) {
@@ -63,6 +65,7 @@ public class UserServiceImpl implements UserService {
             user.setStatus(1);
 
             userMapper.insert(user);
+            dashboardStats.userRegistered();
             log.info("用户注册成功: userId={}, mobile={}", user.getId(), user.getMobile());
 
             // 转换为 VO
@@ -0,0 +1,314 @@
+package com.zhk.user.util;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * 二元分词倒排索引
+ * 文本按字母/数字的连续片段切分（其他字符视为分隔符，英文统一小写、全角字母数字转半角），
+ * 片段内每两个相邻字符组成一个词项，中文即按字切分的二元组。查询时先求关键词所有词项的交集得到候选文档，
+ * 再逐个确认关键词（忽略大小写）确实是某个字段的子串，结果与 LIKE '%keyword%' 一致：
+ * 词项分散在文本各处、或关键词包含空格等分隔符时，候选文档不一定真正包含关键词。
+ * 文档以递增的内部序号标识，倒排表按序号升序追加，用差值 + 变长整数压缩存储，每 128 个条目记录一个跳表点，
+ * 求交集时以最短的倒排表驱动，其余倒排表借助跳表点跳跃前进。
+ * 不支持修改文档：调用方删除（打墓碑）后以新序号重新添加，墓碑过多时由调用方整体重建。
+ * 注意：非线程安全，调用方需自行加锁。
+ *
+ * @author shigure
+ */
+public class BigramIndex {
+
+    private static final int SKIP_INTERVAL = 128;
+
+    private final Map<Integer, Postings> postings = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private String[] texts = new String[1024];
+    private int nextDoc;
+    private int deletedCount;
+
+    /**
+     * 添加文档
+     *
+     * @param texts 文档的各个字段（字段之间不会组成词项）
+     * @return 文档序号
+     */
+    public int add(String... texts) {
+        int doc = nextDoc++;
+        for (int term : terms(texts)) {
+            postings.computeIfAbsent(term, key -> new Postings()).append(doc);
+        }
+        if (doc == this.texts.length) {
+            this.texts = Arrays.copyOf(this.texts, doc * 2);
+        }
+        this.texts[doc] = fold(texts);
+        return doc;
+    }
+
+    /**
+     * 删除文档（只打墓碑，倒排表中的条目在查询时过滤）
+     *
+     * @param doc 文档序号
+     */
+    public void delete(int doc) {
+        if (doc >= 0 && doc < nextDoc && !deleted.get(doc)) {
+            deleted.set(doc);
+            deletedCount++;
+            texts[doc] = null;
+        }
+    }
+
+    /**
+     * 已分配的文档序号总数（包含已删除的文档）
+     */
+    public int docCount() {
+        return nextDoc;
+    }
+
+    /**
+     * 已删除的文档数
+     */
+    public int deletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * 查询包含关键词的文档
+     *
+     * @param keyword 关键词
+     * @param filter  附加过滤条件，可为 null
+     * @return 匹配的文档序号（升序，已排除删除的文档）；关键词中没有两个连续的字母/数字、无法生成词项时返回 null
+     */
+    public int[] match(String keyword, IntPredicate filter) {
+        int[] terms = terms(keyword);
+        if (terms.length == 0) {
+            return null;
+        }
+        Postings[] lists = new Postings[terms.length];
+        for (int i = 0; i < terms.length; i++) {
+            lists[i] = postings.get(terms[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        String needle = keyword.toLowerCase(Locale.ROOT);
+
+        Cursor lead = lists[0].cursor();
+        Cursor[] others = new Cursor[lists.length - 1];
+        for (int i = 1; i < lists.length; i++) {
+            others[i - 1] = lists[i].cursor();
+        }
+
+        int[] result = new int[Math.min(lists[0].size, 64)];
+        int count = 0;
+        candidates:
+        for (int doc = lead.next(); doc >= 0; doc = lead.next()) {
+            for (Cursor other : others) {
+                int found = other.advance(doc);
+                if (found < 0) {
+                    break candidates;
+                }
+                if (found != doc) {
+                    continue candidates;
+                }
+            }
+            if (deleted.get(doc) || !texts[doc].contains(needle) || (filter != null && !filter.test(doc))) {
+                continue;
+            }
+            if (count == result.length) {
+                result = Arrays.copyOf(result, Math.min(lists[0].size, count * 2));
+            }
+            result[count++] = doc;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 用于确认子串的文本：各字段转小写后以 NUL 字符分隔，关键词不会跨字段匹配
+     */
+    private static String fold(String... texts) {
+        StringBuilder folded = new StringBuilder();
+        for (String text : texts) {
+            if (text != null) {
+                folded.append(text.toLowerCase(Locale.ROOT));
+            }
+            folded.append('\u0000');
+        }
+        return folded.toString();
+    }
+
+    /**
+     * 生成去重后的词项（两个字符拼成一个 int）
+     */
+    static int[] terms(String... texts) {
+        int capacity = 0;
+        for (String text : texts) {
+            if (text != null) {
+                capacity += text.length();
+            }
+        }
+        int[] terms = new int[capacity];
+        int count = 0;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            char previous = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char current = normalize(text.charAt(i));
+                if (current != 0 && previous != 0) {
+                    terms[count++] = (previous << 16) | current;
+                }
+                previous = current;
+            }
+        }
+        if (count == 0) {
+            return new int[0];
+        }
+        Arrays.sort(terms, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (terms[i] != terms[unique - 1]) {
+                terms[unique++] = terms[i];
+            }
+        }
+        return Arrays.copyOf(terms, unique);
+    }
+
+    /**
+     * 字符归一化，分隔符返回 0
+     */
+    private static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            // 全角转半角
+            c = (char) (c - 0xFEE0);
+        }
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : 0;
+    }
+
+    /**
+     * 倒排表：文档序号的差值以变长整数存储，每个块的第一个条目记录在跳表中
+     */
+    private static final class Postings {
+        byte[] data = new byte[8];
+        int length;
+        int size;
+        int last = -1;
+        int[] skipDocs = new int[1];
+        int[] skipOffsets = new int[1];
+        int skipCount;
+
+        void append(int doc) {
+            writeVarInt(doc - last);
+            last = doc;
+            if (size % SKIP_INTERVAL == 0) {
+                if (skipCount == skipDocs.length) {
+                    skipDocs = Arrays.copyOf(skipDocs, skipCount * 2);
+                    skipOffsets = Arrays.copyOf(skipOffsets, skipCount * 2);
+                }
+                // 记录块首条目解码之后的位置
+                skipDocs[skipCount] = doc;
+                skipOffsets[skipCount] = length;
+                skipCount++;
+            }
+            size++;
+        }
+
+        private void writeVarInt(int value) {
+            if (length + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+
+        Cursor cursor() {
+            return new Cursor(this);
+        }
+    }
+
+    /**
+     * 倒排表游标
+     */
+    private static final class Cursor {
+        private final Postings postings;
+        private int index = -1;
+        private int position;
+        private int doc = -1;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+        }
+
+        /**
+         * 下一个文档序号，没有更多条目时返回 -1
+         */
+        int next() {
+            if (index + 1 >= postings.size) {
+                index = postings.size;
+                return doc = -1;
+            }
+            index++;
+            if (index % SKIP_INTERVAL == 0) {
+                int block = index / SKIP_INTERVAL;
+                doc = postings.skipDocs[block];
+                position = postings.skipOffsets[block];
+                return doc;
+            }
+            byte[] data = postings.data;
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return doc += delta;
+        }
+
+        /**
+         * 前进到第一个不小于 target 的文档序号，没有更多条目时返回 -1
+         */
+        int advance(int target) {
+            if (index >= postings.size) {
+                return -1;
+            }
+            if (index >= 0 && doc >= target) {
+                return doc;
+            }
+            // 在当前块之后的跳表点中二分查找最后一个不大于 target 的块
+            int low = index < 0 ? 0 : index / SKIP_INTERVAL + 1;
+            int high = postings.skipCount - 1;
+            int block = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (postings.skipDocs[mid] <= target) {
+                    block = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            if (block >= 0) {
+                index = block * SKIP_INTERVAL;
+                doc = postings.skipDocs[block];
+                position = postings.skipOffsets[block];
+            }
+            while (index < 0 || doc < target) {
+                if (next() < 0) {
+                    return -1;
+                }
+            }
+            return doc;
+        }
+    }
+}
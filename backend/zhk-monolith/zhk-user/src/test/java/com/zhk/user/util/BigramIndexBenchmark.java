@@ -0,0 +1,105 @@
+package com.zhk.user.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigramIndex 基准测试：100 万个账号的标题和描述
+ * match 测量不同命中率关键词的查询耗时，build1M 测量全量建索引的耗时（对应 AccountSearchIndex 的全量重建）。
+ * 运行方式（不随 mvn test 执行）：
+ * <pre>
+ * mvn -pl zhk-monolith/zhk-user -am test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp zhk-monolith/zhk-user/target/test-classes:zhk-monolith/zhk-user/target/classes:$(cat zhk-monolith/zhk-user/target/cp.txt) \
+ *     com.zhk.user.util.BigramIndexBenchmark
+ * </pre>
+ *
+ * @author shigure
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BigramIndexBenchmark {
+
+    static final int ACCOUNTS = 1_000_000;
+
+    private static final String[] GAMES = {"王者荣耀", "和平精英", "原神", "英雄联盟", "穿越火线", "金铲铲之战", "永劫无间", "CS2"};
+    private static final String[] RANKS = {"青铜", "白银", "黄金", "铂金", "钻石", "星耀", "最强王者", "荣耀王者"};
+    private static final String[] WORDS = {"满级", "全皮肤", "限定", "典藏", "可排位", "双区", "安卓", "苹果", "QQ区", "微信区",
+            "不可改密", "秒发货", "账号稳定", "英雄全", "高胜率", "绝版", "vip10", "贵族", "战令", "星元"};
+
+    /**
+     * 生成第 i 个账号的标题和描述（固定随机种子，每次运行数据相同）
+     */
+    static String[] account(Random random, int i) {
+        String game = GAMES[random.nextInt(GAMES.length)];
+        String title = game + " " + RANKS[random.nextInt(RANKS.length)] + " 皮肤" + random.nextInt(400) + "个 "
+                + WORDS[random.nextInt(WORDS.length)];
+        StringBuilder description = new StringBuilder(game).append(" 编号").append(i);
+        for (int w = 0; w < 6; w++) {
+            description.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return new String[]{title, description.toString()};
+    }
+
+    static BigramIndex build() {
+        Random random = new Random(20240101L);
+        BigramIndex index = new BigramIndex();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            index.add(account(random, i));
+        }
+        return index;
+    }
+
+    @State(Scope.Benchmark)
+    public static class Loaded {
+
+        /**
+         * 高命中（约 1/8）、中等命中（约 1/400）、单个结果、无结果、词项都在文档中但子串不匹配
+         */
+        @Param({"王者荣耀", "皮肤399个", "编号424242", "典藏绝版皮肤", "满级全皮肤"})
+        String keyword;
+
+        BigramIndex index;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            index = build();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int[] match(Loaded state) {
+        return state.index.match(state.keyword, null);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public BigramIndex build1M() {
+        return build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BigramIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package com.zhk.user.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * BigramIndex 单元测试
+ *
+ * @author shigure
+ */
+class BigramIndexTest {
+
+    @Test
+    void matchesSubstringIgnoringCase() {
+        BigramIndex index = new BigramIndex();
+        int hello = index.add("Hello World", "");
+        int other = index.add("goodbye", "");
+
+        assertArrayEquals(new int[]{hello}, index.match("hello world", null));
+        assertArrayEquals(new int[]{hello}, index.match("LO WO", null));
+        assertArrayEquals(new int[0], index.match("bye world", null));
+        assertArrayEquals(new int[]{other}, index.match("odby", null));
+    }
+
+    @Test
+    void candidatesWithoutTheSubstringAreRejected() {
+        BigramIndex index = new BigramIndex();
+        index.add("hello world", "");
+        // "helloworld" 的词项都在文档中，但文档不包含这个子串
+        assertArrayEquals(new int[0], index.match("helloworld", null));
+
+        int doc = index.add("满级账号，皮肤全", "");
+        assertArrayEquals(new int[0], index.match("账号满皮", null));
+        assertArrayEquals(new int[]{doc}, index.match("满级账号", null));
+    }
+
+    @Test
+    void doesNotMatchAcrossFields() {
+        BigramIndex index = new BigramIndex();
+        index.add("abc", "def");
+        assertArrayEquals(new int[0], index.match("cd", null));
+        assertArrayEquals(new int[0], index.match("abcdef", null));
+        assertEquals(1, index.match("de", null).length);
+    }
+
+    @Test
+    void keywordWithoutTermsReturnsNull() {
+        BigramIndex index = new BigramIndex();
+        index.add("abc", "");
+        assertNull(index.match("a", null));
+        assertNull(index.match("a b", null));
+    }
+
+    @Test
+    void deletedDocumentsAndFilterAreExcluded() {
+        BigramIndex index = new BigramIndex();
+        int first = index.add("王者荣耀账号", "");
+        int second = index.add("王者荣耀满级", "");
+        int third = index.add("王者荣耀皮肤", "");
+
+        index.delete(second);
+        assertArrayEquals(new int[]{first, third}, index.match("王者荣耀", null));
+        assertArrayEquals(new int[]{third}, index.match("王者荣耀", doc -> doc != first));
+        assertEquals(1, index.deletedCount());
+        assertEquals(3, index.docCount());
+    }
+
+    @Test
+    void longPostingListsIntersectAcrossSkipPoints() {
+        BigramIndex index = new BigramIndex();
+        int expected = 0;
+        for (int i = 0; i < 5000; i++) {
+            // 每个文档都含 "ab"，只有 7 的倍数含 "xy"
+            index.add(i % 7 == 0 ? "abxy" + i : "ab" + i, "");
+            if (i % 7 == 0) {
+                expected++;
+            }
+        }
+        int[] result = index.match("abxy", null);
+        assertEquals(expected, result.length);
+        for (int i = 1; i < result.length; i++) {
+            assertEquals(result[i - 1] + 7, result[i]);
+        }
+    }
+}